@@ -31,7 +31,8 @@ public class CorsConfig {
             "Access-Control-Allow-Headers",
             "Access-Control-Request-Method",
             "Access-Control-Request-Headers",
-            "X-Requested-With"
+            "X-Requested-With",
+            "Idempotency-Key"
         ));
         
 
@@ -41,7 +42,8 @@ public class CorsConfig {
         config.setExposedHeaders(Arrays.asList(
             "Access-Control-Allow-Origin",
             "Access-Control-Allow-Credentials",
-            "Authorization"
+            "Authorization",
+            "Idempotent-Replayed"
         ));
         
 
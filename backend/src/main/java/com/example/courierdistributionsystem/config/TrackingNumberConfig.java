@@ -0,0 +1,16 @@
+package com.example.courierdistributionsystem.config;
+
+import com.example.courierdistributionsystem.utils.TrackingNumberGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TrackingNumberConfig {
+
+    // Instances sharing a database must each run with their own node id
+    @Bean
+    public TrackingNumberGenerator trackingNumberGenerator(@Value("${app.tracking-number.node-id:0}") int nodeId) {
+        return new TrackingNumberGenerator(nodeId);
+    }
+}
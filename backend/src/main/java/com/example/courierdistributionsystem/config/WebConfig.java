@@ -21,8 +21,9 @@ public class WebConfig implements WebMvcConfigurer {
             .allowedHeaders("Origin", "Content-Type", "Accept", "Authorization", 
                           "Access-Control-Allow-Origin", "Access-Control-Allow-Headers",
                           "Access-Control-Request-Method", "Access-Control-Request-Headers",
-                          "X-Requested-With")
-            .exposedHeaders("Access-Control-Allow-Origin", "Access-Control-Allow-Credentials", "Authorization")
+                          "X-Requested-With", "Idempotency-Key")
+            .exposedHeaders("Access-Control-Allow-Origin", "Access-Control-Allow-Credentials", "Authorization",
+                          "Idempotent-Replayed")
             .allowCredentials(true)
             .maxAge(3600);
     }
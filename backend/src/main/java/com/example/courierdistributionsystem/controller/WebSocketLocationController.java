@@ -1,22 +1,28 @@
 package com.example.courierdistributionsystem.controller;
 
 import com.example.courierdistributionsystem.dto.LocationUpdateDto;
-import com.example.courierdistributionsystem.model.LocationHistory;
+import com.example.courierdistributionsystem.dto.PackageLocationDto;
+import com.example.courierdistributionsystem.exception.LocationIngestException;
+import com.example.courierdistributionsystem.dto.LocationHistoryPageDto;
 import com.example.courierdistributionsystem.service.IDeliveryPackageService;
 import com.example.courierdistributionsystem.service.LocationHistoryService;
 import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Slf4j
 @Controller
 public class WebSocketLocationController {
+    private static final int DEFAULT_HISTORY_CHUNK_SIZE = 40;
+    // A serialized point is about 150 bytes, so this keeps each outbound history frame within 8 KB
+    private static final int MAX_HISTORY_CHUNK_SIZE = 50;
 
     private final SimpMessagingTemplate messagingTemplate;
     private final IDeliveryPackageService deliveryPackageService;
@@ -33,30 +39,23 @@ public class WebSocketLocationController {
 
     @MessageMapping("/package/{trackingNumber}/location")
     public void handleLocationUpdate(@Payload LocationUpdateDto locationUpdate, 
-                                   String trackingNumber,
+                                   @DestinationVariable String trackingNumber,
                                    Authentication authentication) {
         String courierUsername = authentication.getName();
         log.debug("Received location update from courier {} for package {}: {}", 
                  courierUsername, trackingNumber, locationUpdate);
         
         try {
+            locationUpdate.setTrackingNumber(trackingNumber);
 
-//            locationUpdate.setTrackingNumber(trackingNumber);
-            
-
-//            LocationHistory history = locationHistoryService.saveLocationUpdate(
-//                locationUpdate, courierUsername);
-            
+            // Authorized against the in-memory assignment table; history is written by the ingest pipeline
+            PackageLocationDto location = locationHistoryService.recordLocationUpdate(
+                locationUpdate, courierUsername);
 
             messagingTemplate.convertAndSend(
                 "/topic/package/" + trackingNumber + "/location",
-                "adkjsfhdsa"
-            );
-            messagingTemplate.convertAndSend(
-                    "/app/package/" + trackingNumber + "/location",
-                    "adkjsfhdsa"
+                location
             );
-            
 
             messagingTemplate.convertAndSendToUser(
                 courierUsername,
@@ -78,6 +77,13 @@ public class WebSocketLocationController {
                 "/queue/package/" + trackingNumber + "/location/status",
                 Map.of("status", "error", "message", e.getMessage())
             );
+        } catch (LocationIngestException e) {
+            log.warn("Location update for tracking number {} rejected: {}", trackingNumber, e.getMessage());
+            messagingTemplate.convertAndSendToUser(
+                courierUsername,
+                "/queue/package/" + trackingNumber + "/location/status",
+                Map.of("status", "error", "message", e.getMessage())
+            );
         } catch (Exception e) {
             log.error("Unexpected error processing location update for tracking number {}: {}", 
                      trackingNumber, e.getMessage(), e);
@@ -91,24 +97,32 @@ public class WebSocketLocationController {
 
     @MessageMapping("/package/{trackingNumber}/history")
     public void handleHistoryRequest(@Payload Map<String, String> payload,
-                                   String trackingNumber,
+                                   @DestinationVariable String trackingNumber,
                                    Authentication authentication) {
         String username = authentication.getName();
         log.debug("Received history request for tracking number {} from user {}", 
                  trackingNumber, username);
         
         try {
-            List<LocationHistory> history = locationHistoryService.getLocationHistory(trackingNumber);
-            
-            // Send history to the requesting user
+            LocalDateTime from = parseTimestamp(payload, "from");
+            LocalDateTime to = parseTimestamp(payload, "to");
+            String cursor = payload != null ? payload.get("cursor") : null;
+            int chunkSize = payload != null && payload.get("chunkSize") != null
+                ? Math.min(Integer.parseInt(payload.get("chunkSize")), MAX_HISTORY_CHUNK_SIZE)
+                : DEFAULT_HISTORY_CHUNK_SIZE;
+
+            // One page per request: the client asks again with nextCursor, so a long route never queues more
+            // frames than the session's send buffer holds
+            LocationHistoryPageDto page = locationHistoryService.getLocationHistoryPage(
+                trackingNumber, from, to, cursor, chunkSize);
             messagingTemplate.convertAndSendToUser(
                 username,
                 "/queue/package/" + trackingNumber + "/history",
-                history
+                page
             );
             
-        } catch (ResourceNotFoundException e) {
-            log.error("Resource not found error for tracking number {}: {}", trackingNumber, e.getMessage());
+        } catch (ResourceNotFoundException | IllegalArgumentException e) {
+            log.error("Invalid history request for tracking number {}: {}", trackingNumber, e.getMessage());
             messagingTemplate.convertAndSendToUser(
                 username,
                 "/queue/package/" + trackingNumber + "/history/status",
@@ -124,4 +138,9 @@ public class WebSocketLocationController {
             );
         }
     }
-} 
\ No newline at end of file
+
+    private static LocalDateTime parseTimestamp(Map<String, String> payload, String key) {
+        String value = payload != null ? payload.get(key) : null;
+        return value != null && !value.isBlank() ? LocalDateTime.parse(value) : null;
+    }
+}
@@ -16,6 +16,8 @@ import org.springframework.http.HttpStatus;
 import com.example.courierdistributionsystem.service.IUserService;
 import com.example.courierdistributionsystem.service.IDeliveryPackageService;
 import com.example.courierdistributionsystem.service.IDeliveryReportService;
+import com.example.courierdistributionsystem.service.IPackageEventService;
+import com.example.courierdistributionsystem.service.IZoneLoadService;
 import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
 
 @RestController
@@ -33,6 +35,12 @@ public class AdminController {
     @Autowired
     private IDeliveryReportService deliveryReportService;
 
+    @Autowired
+    private IZoneLoadService zoneLoadService;
+
+    @Autowired
+    private IPackageEventService packageEventService;
+
 
 
     // User Management Endpoints
@@ -172,6 +180,28 @@ public class AdminController {
         }
     }
 
+    // Latest counters; the same snapshot is pushed to /topic/admin/zones
+    @GetMapping("/zones")
+    public ResponseEntity<?> getZoneLoad(HttpSession session) {
+        try {
+            validateAdminSession(session);
+            return ResponseEntity.ok(zoneLoadService.snapshot());
+        } catch (Exception e) {
+            return handleError(e);
+        }
+    }
+
+    // Replays every package event into the courier delivery history; hand-entered feedback is kept
+    @PostMapping("/projections/rebuild")
+    public ResponseEntity<?> rebuildProjections(HttpSession session) {
+        try {
+            validateAdminSession(session);
+            return ResponseEntity.ok(Map.of("replayedEvents", packageEventService.rebuildProjections()));
+        } catch (Exception e) {
+            return handleError(e);
+        }
+    }
+
     @GetMapping("/reports")
     public String showReportsPage(Model model) {
         List<DeliveryReport> reports = deliveryReportService.getAllReports();
@@ -1,9 +1,15 @@
 package com.example.courierdistributionsystem.controller.restController;
 
 import com.example.courierdistributionsystem.dto.CourierDto;
+import com.example.courierdistributionsystem.dto.DeliveryPackageDto;
 import com.example.courierdistributionsystem.dto.LocationUpdateDto;
+import com.example.courierdistributionsystem.dto.NearbyCourierDto;
+import com.example.courierdistributionsystem.dto.PackageBundleDto;
+import com.example.courierdistributionsystem.dto.RouteStopDto;
 import com.example.courierdistributionsystem.service.ICourierService;
 import com.example.courierdistributionsystem.service.IDeliveryPackageService;
+import com.example.courierdistributionsystem.service.IPackageBundlingService;
+import com.example.courierdistributionsystem.service.IRouteSequencingService;
 import com.example.courierdistributionsystem.utils.JwtUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -15,17 +21,25 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/couriers")
 public class CourierController {
+    private static final int DEFAULT_NEARBY_LIMIT = 10;
+    private static final int MAX_NEARBY_LIMIT = 100;
 
     private final ICourierService courierService;
     private final IDeliveryPackageService deliveryPackageService;
+    private final IRouteSequencingService routeSequencingService;
+    private final IPackageBundlingService packageBundlingService;
     private final JwtUtils jwtUtils;
 
     @Autowired
     public CourierController(ICourierService courierService, 
                            IDeliveryPackageService deliveryPackageService,
+                           IRouteSequencingService routeSequencingService,
+                           IPackageBundlingService packageBundlingService,
                            JwtUtils jwtUtils) {
         this.courierService = courierService;
         this.deliveryPackageService = deliveryPackageService;
+        this.routeSequencingService = routeSequencingService;
+        this.packageBundlingService = packageBundlingService;
         this.jwtUtils = jwtUtils;
     }
 
@@ -38,6 +52,49 @@ public class CourierController {
         return ResponseEntity.ok(couriers);
     }
 
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyCourierDto>> getNearbyAvailableCouriers(
+            @RequestHeader("Authorization") String token,
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Double radiusMeters) {
+        String jwtToken = token.replace("Bearer ", "");
+        jwtUtils.validateToken(jwtToken);
+        // Without a limit a radius query returns every courier inside it; otherwise the k nearest are returned
+        if (limit == null && radiusMeters != null) {
+            return ResponseEntity.ok(courierService.findAvailableCouriersWithin(latitude, longitude, radiusMeters));
+        }
+        int k = Math.max(1, Math.min(limit != null ? limit : DEFAULT_NEARBY_LIMIT, MAX_NEARBY_LIMIT));
+        double maxRadius = radiusMeters != null ? radiusMeters : Double.POSITIVE_INFINITY;
+        return ResponseEntity.ok(courierService.findNearestAvailableCouriers(latitude, longitude, k, maxRadius));
+    }
+
+    @GetMapping("/route")
+    public ResponseEntity<List<RouteStopDto>> getRoute(
+            @RequestHeader("Authorization") String token) {
+        String jwtToken = token.replace("Bearer ", "");
+        String username = jwtUtils.getUsernameFromToken(jwtToken);
+        return ResponseEntity.ok(routeSequencingService.getRoute(username));
+    }
+
+    @GetMapping("/bundles")
+    public ResponseEntity<List<PackageBundleDto>> getAvailableBundles(
+            @RequestHeader("Authorization") String token) {
+        String jwtToken = token.replace("Bearer ", "");
+        String username = jwtUtils.getUsernameFromToken(jwtToken);
+        return ResponseEntity.ok(packageBundlingService.getAvailableBundles(username));
+    }
+
+    @PostMapping("/bundles/claim")
+    public ResponseEntity<List<DeliveryPackageDto>> claimBundle(
+            @RequestHeader("Authorization") String token,
+            @RequestBody Map<String, List<Long>> request) {
+        String jwtToken = token.replace("Bearer ", "");
+        String username = jwtUtils.getUsernameFromToken(jwtToken);
+        return ResponseEntity.ok(packageBundlingService.claimBundle(username, request.get("packageIds")));
+    }
+
     @GetMapping("/{username}")
     public ResponseEntity<CourierDto> getCourierByUsername(
             @RequestHeader("Authorization") String token,
@@ -1,15 +1,26 @@
 package com.example.courierdistributionsystem.controller.restController;
 
+import com.example.courierdistributionsystem.dto.BulkImportSummaryDto;
 import com.example.courierdistributionsystem.dto.CreatePackageDto;
 import com.example.courierdistributionsystem.dto.DeliveryPackageDto;
+import com.example.courierdistributionsystem.dto.PackageEventDto;
 import com.example.courierdistributionsystem.model.DeliveryPackage;
+import com.example.courierdistributionsystem.service.IBulkPackageImportService;
 import com.example.courierdistributionsystem.service.IDeliveryPackageService;
 import com.example.courierdistributionsystem.service.ICustomerService;
+import com.example.courierdistributionsystem.service.IPackageEventService;
 import com.example.courierdistributionsystem.utils.JwtUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -19,14 +30,23 @@ public class DeliveryPackageController {
 
     private final IDeliveryPackageService deliveryPackageService;
     private final ICustomerService customerService;
+    private final IPackageEventService packageEventService;
+    private final IBulkPackageImportService bulkPackageImportService;
+    private final ObjectMapper objectMapper;
     private final JwtUtils jwtUtils;
 
     @Autowired
     public DeliveryPackageController(IDeliveryPackageService deliveryPackageService, 
                                    ICustomerService customerService,
+                                   IPackageEventService packageEventService,
+                                   IBulkPackageImportService bulkPackageImportService,
+                                   ObjectMapper objectMapper,
                                    JwtUtils jwtUtils) {
         this.deliveryPackageService = deliveryPackageService;
         this.customerService = customerService;
+        this.packageEventService = packageEventService;
+        this.bulkPackageImportService = bulkPackageImportService;
+        this.objectMapper = objectMapper;
         this.jwtUtils = jwtUtils;
     }
 
@@ -41,6 +61,38 @@ public class DeliveryPackageController {
         return ResponseEntity.ok(createdPackage);
     }
 
+    // Streams one NDJSON result line per uploaded row as each batch is stored, then a summary line
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public void importDeliveryPackages(
+            @RequestHeader("Authorization") String token,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        String jwtToken = token.replace("Bearer ", "");
+        Long userId = jwtUtils.getUserIdFromToken(jwtToken);
+        IBulkPackageImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? IBulkPackageImportService.Format.CSV
+                : IBulkPackageImportService.Format.NDJSON;
+        BulkImportSummaryDto summary = bulkPackageImportService.importPackages(userId, format, request.getInputStream(),
+                row -> writeLine(response, row));
+        writeLine(response, summary);
+        response.flushBuffer();
+    }
+
+    // The content type is set on the first line, so errors raised before any row still render as JSON
+    private void writeLine(HttpServletResponse response, Object value) {
+        try {
+            if (response.getContentType() == null) {
+                response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            }
+            OutputStream out = response.getOutputStream();
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @GetMapping("/available")
     public ResponseEntity<List<DeliveryPackageDto>> getAvailableDeliveryPackages(
             @RequestHeader("Authorization") String token) {
@@ -61,6 +113,15 @@ public class DeliveryPackageController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/{id}/timeline")
+    public ResponseEntity<List<PackageEventDto>> getPackageTimeline(
+            @RequestHeader("Authorization") String token,
+            @PathVariable Long id) {
+        String jwtToken = token.replace("Bearer ", "");
+        jwtUtils.validateToken(jwtToken);
+        return ResponseEntity.ok(packageEventService.getTimeline(id));
+    }
+
     @GetMapping("/courier/active")
     public ResponseEntity<List<DeliveryPackageDto>> getCourierActiveDeliveryPackages(
             @RequestHeader("Authorization") String token) {
@@ -1,44 +1,59 @@
 package com.example.courierdistributionsystem.controller.restController;
 
-import com.example.courierdistributionsystem.model.LocationHistory;
-import com.example.courierdistributionsystem.model.DeliveryPackage;
+import com.example.courierdistributionsystem.dto.LocationHistoryPageDto;
 import com.example.courierdistributionsystem.model.Courier;
-import com.example.courierdistributionsystem.repository.jpa.LocationHistoryRepository;
 import com.example.courierdistributionsystem.repository.jpa.DeliveryPackageRepository;
 import com.example.courierdistributionsystem.repository.jpa.CourierRepository;
+import com.example.courierdistributionsystem.service.LocationHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/location-history")
 public class LocationHistoryController {
 
-    @Autowired
-    private LocationHistoryRepository locationHistoryRepository;
-
     @Autowired
     private DeliveryPackageRepository packageRepository;
 
     @Autowired
     private CourierRepository courierRepository;
 
+    @Autowired
+    private LocationHistoryService locationHistoryService;
+
     @GetMapping
-    public List<LocationHistory> getAllLocationHistory() {
-        return locationHistoryRepository.findAll();
+    public LocationHistoryPageDto getAllLocationHistory(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return locationHistoryService.getAllLocationHistoryPage(from, to, cursor, limit);
     }
 
     @GetMapping("/courier")
-    public List<LocationHistory> getCourierLocationHistory(@RequestParam String username) {
+    public LocationHistoryPageDto getCourierLocationHistory(
+            @RequestParam String username,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
         Courier courier = courierRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Courier not found"));
-        return locationHistoryRepository.findByCourier(courier);
+        return locationHistoryService.getCourierLocationHistoryPage(courier.getId(), from, to, cursor, limit);
     }
 
     @GetMapping("/package/{packageId}")
-    public List<LocationHistory> getPackageLocationHistory(@PathVariable Long packageId) {
-        DeliveryPackage deliveryPackage = packageRepository.findById(packageId)
-                .orElseThrow(() -> new RuntimeException("Package not found"));
-        return locationHistoryRepository.findByDeliveryPackage(deliveryPackage);
+    public LocationHistoryPageDto getPackageLocationHistory(
+            @PathVariable Long packageId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (!packageRepository.existsById(packageId)) {
+            throw new RuntimeException("Package not found");
+        }
+        return locationHistoryService.getPackageLocationHistoryPage(packageId, from, to, cursor, limit);
     }
 }
@@ -0,0 +1,13 @@
+package com.example.courierdistributionsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BulkImportSummaryDto {
+    private final long rows;
+    private final long created;
+    private final long rejected;
+    private final long elapsedMs;
+}
@@ -0,0 +1,24 @@
+package com.example.courierdistributionsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Outcome of one uploaded row; rows are numbered from 1, not counting a CSV header
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkPackageRowDto {
+    private final long row;
+    private final Long packageId;
+    private final String trackingNumber;
+    private final String error;
+
+    public static BulkPackageRowDto created(long row, long packageId, String trackingNumber) {
+        return new BulkPackageRowDto(row, packageId, trackingNumber, null);
+    }
+
+    public static BulkPackageRowDto rejected(long row, String error) {
+        return new BulkPackageRowDto(row, null, null, error);
+    }
+}
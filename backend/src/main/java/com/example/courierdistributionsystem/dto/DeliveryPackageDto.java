@@ -40,6 +40,7 @@ public class DeliveryPackageDto {
     private LocalDateTime updatedAt;
     private Map<String, Object> customerDetails;
     private Map<String, Object> courierDetails;
+    private EtaDto eta;
     public DeliveryPackageDto(String pickupAddress, String deliveryAddress, Double weight, 
                              String description, String specialInstructions) {
         this.pickupAddress = pickupAddress;
@@ -0,0 +1,21 @@
+package com.example.courierdistributionsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class EtaDto {
+    private final String trackingNumber;
+    private final long etaSeconds;
+    private final double remainingMeters;
+    private final double speedMetersPerSecond;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private final LocalDateTime estimatedArrival;
+}
@@ -0,0 +1,11 @@
+package com.example.courierdistributionsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class GeocodeResult {
+    private final double latitude;
+    private final double longitude;
+}
@@ -0,0 +1,23 @@
+package com.example.courierdistributionsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class GeofenceArrivalDto {
+    private final String trackingNumber;
+    private final String courierUsername;
+    private final String type;
+    private final double latitude;
+    private final double longitude;
+    private final boolean statusUpdated;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private final LocalDateTime timestamp;
+}
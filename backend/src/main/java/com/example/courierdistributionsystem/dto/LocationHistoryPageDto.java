@@ -0,0 +1,17 @@
+package com.example.courierdistributionsystem.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LocationHistoryPageDto {
+    private List<LocationPointDto> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
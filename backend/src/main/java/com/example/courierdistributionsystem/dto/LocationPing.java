@@ -0,0 +1,35 @@
+package com.example.courierdistributionsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class LocationPing {
+    private final String courierUsername;
+
+    // Optional; resolved by the ingest pipeline when absent
+    private final Long courierId;
+
+    // Optional; resolved by the ingest pipeline when absent
+    private final Long packageId;
+
+    private final double latitude;
+
+    private final double longitude;
+
+    private final String zone;
+
+    private final LocalDateTime timestamp;
+
+    public boolean samePositionAs(LocationPing other) {
+        return other != null
+                && latitude == other.latitude
+                && longitude == other.longitude
+                && (zone == null ? other.zone == null : zone.equals(other.zone));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.courierdistributionsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LocationPointDto {
+    // Null for points served from a compressed track
+    private Long id;
+    private Long packageId;
+    private String courierUsername;
+    private double latitude;
+    private double longitude;
+    private String zone;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private LocalDateTime timestamp;
+}
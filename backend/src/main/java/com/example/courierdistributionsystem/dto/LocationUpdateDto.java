@@ -1,5 +1,6 @@
 package com.example.courierdistributionsystem.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -19,10 +20,12 @@ public class LocationUpdateDto {
     
     @NotNull(message = "Latitude is required")
     @JsonProperty("lat")
+    @JsonAlias("latitude")
     private Double latitude;
     
     @NotNull(message = "Longitude is required")
     @JsonProperty("lng")
+    @JsonAlias("longitude")
     private Double longitude;
     
     private String zone;
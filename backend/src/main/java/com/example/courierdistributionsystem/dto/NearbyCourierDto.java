@@ -0,0 +1,11 @@
+package com.example.courierdistributionsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class NearbyCourierDto {
+    private final CourierDto courier;
+    private final double distanceMeters;
+}
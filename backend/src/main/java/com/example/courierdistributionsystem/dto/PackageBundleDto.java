@@ -0,0 +1,16 @@
+package com.example.courierdistributionsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class PackageBundleDto {
+    private final List<DeliveryPackageDto> packages;
+    private final double totalWeight;
+    // Smallest vehicle class able to carry the bundle
+    private final String vehicleType;
+    private final Double pickupDistanceMeters;
+}
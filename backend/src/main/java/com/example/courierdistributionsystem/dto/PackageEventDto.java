@@ -0,0 +1,23 @@
+package com.example.courierdistributionsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class PackageEventDto {
+    private final Long id;
+    private final String type;
+    private final String status;
+    private final String courierUsername;
+    private final String notes;
+    private final String locationData;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private final LocalDateTime occurredAt;
+}
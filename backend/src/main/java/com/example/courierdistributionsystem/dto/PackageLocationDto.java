@@ -0,0 +1,22 @@
+package com.example.courierdistributionsystem.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class PackageLocationDto {
+    private final String trackingNumber;
+    private final String courierUsername;
+    private final double latitude;
+    private final double longitude;
+    private final String zone;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private final LocalDateTime timestamp;
+}
@@ -0,0 +1,16 @@
+package com.example.courierdistributionsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RouteStopDto {
+    private final int sequence;
+    private final Long packageId;
+    private final String trackingNumber;
+    private final String type;
+    private final String address;
+    private final Double latitude;
+    private final Double longitude;
+}
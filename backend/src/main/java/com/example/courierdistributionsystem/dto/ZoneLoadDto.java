@@ -0,0 +1,14 @@
+package com.example.courierdistributionsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ZoneLoadDto {
+    private final String zone;
+    private final long availableCouriers;
+    private final long busyCouriers;
+    private final long pendingPackages;
+    private final long inProgressPackages;
+}
@@ -0,0 +1,14 @@
+package com.example.courierdistributionsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ZoneLoadSnapshotDto {
+    private final LocalDateTime timestamp;
+    private final List<ZoneLoadDto> zones;
+}
@@ -0,0 +1,17 @@
+package com.example.courierdistributionsystem.event;
+
+import com.example.courierdistributionsystem.registry.GeofenceIndex;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// Published when a courier has stayed inside one of its packages' geofences for enough consecutive pings
+@Getter
+@AllArgsConstructor
+public class GeofenceArrivalEvent {
+    private final GeofenceIndex.Fence fence;
+    private final double latitude;
+    private final double longitude;
+    private final LocalDateTime timestamp;
+}
@@ -0,0 +1,21 @@
+package com.example.courierdistributionsystem.event;
+
+import com.example.courierdistributionsystem.model.DeliveryPackage;
+import com.example.courierdistributionsystem.model.PackageEvent;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// A committed change in a package's lifecycle, as sent to WebSocket subscribers
+@Getter
+@Builder
+public class PackageLifecycleEvent {
+    private final Long packageId;
+    private final String trackingNumber;
+    private final PackageEvent.Type type;
+    private final DeliveryPackage.DeliveryStatus status;
+    private final String courierUsername;
+    private final String customerUsername;
+    private final LocalDateTime occurredAt;
+}
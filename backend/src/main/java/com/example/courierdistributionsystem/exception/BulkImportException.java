@@ -0,0 +1,11 @@
+package com.example.courierdistributionsystem.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BulkImportException extends RuntimeException {
+    public BulkImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.courierdistributionsystem.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class LocationIngestException extends RuntimeException {
+    public LocationIngestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.courierdistributionsystem.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class PackageClaimException extends RuntimeException {
+    public PackageClaimException(String message) {
+        super(message);
+    }
+}
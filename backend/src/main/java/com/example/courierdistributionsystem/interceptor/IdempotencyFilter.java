@@ -0,0 +1,250 @@
+package com.example.courierdistributionsystem.interceptor;
+
+import com.example.courierdistributionsystem.registry.IdempotencyStore;
+import com.example.courierdistributionsystem.utils.JwtUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Makes the configured POST endpoints safe to retry. A request carrying an Idempotency-Key runs once per user and
+// key; later requests with the same key get the stored response without reaching the controller. A retry that
+// arrives while the first attempt is still running is turned away with 409 rather than running alongside it.
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final List<String> pathPatterns;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Counter executedCounter;
+    private final Counter replayedCounter;
+    private final Counter inFlightCounter;
+    private final Counter mismatchCounter;
+
+    @Autowired
+    public IdempotencyFilter(IdempotencyStore idempotencyStore,
+                             JwtUtils jwtUtils,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.idempotency.paths:/api/packages,/api/packages/*/take,/api/packages/*/drop,/api/customer/packages/create}") List<String> pathPatterns) {
+        this.idempotencyStore = idempotencyStore;
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.pathPatterns = pathPatterns;
+
+        this.executedCounter = requestCounter(meterRegistry, "executed");
+        this.replayedCounter = requestCounter(meterRegistry, "replayed");
+        this.inFlightCounter = requestCounter(meterRegistry, "in_flight");
+        this.mismatchCounter = requestCounter(meterRegistry, "mismatch");
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.requests")
+                .description("Requests carrying an Idempotency-Key, by whether they ran or were answered from the store")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return pathPatterns.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        // Keys are scoped to the caller; without a readable token the request goes on to be rejected as usual
+        String username = username(request);
+        if (username == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        BufferedRequest bufferedRequest = new BufferedRequest(request, request.getInputStream().readAllBytes());
+        String key = username + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request, bufferedRequest.body);
+        IdempotencyStore.Claim claim = idempotencyStore.begin(key, fingerprint);
+        switch (claim.getOutcome()) {
+            case REPLAY -> {
+                replayedCounter.increment();
+                replay(response, claim.getResponse());
+                return;
+            }
+            case IN_FLIGHT -> {
+                inFlightCounter.increment();
+                response.setHeader("Retry-After", "1");
+                writeError(response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still being processed");
+                return;
+            }
+            case MISMATCH -> {
+                mismatchCounter.increment();
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+                return;
+            }
+            default -> {
+            }
+        }
+
+        executedCounter.increment();
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(bufferedRequest, cachingResponse);
+        } catch (IOException | ServletException | RuntimeException e) {
+            idempotencyStore.abandon(key);
+            throw e;
+        }
+        int status = cachingResponse.getStatus();
+        if (isFinal(status)) {
+            idempotencyStore.complete(key, new IdempotencyStore.StoredResponse(fingerprint, status,
+                    cachingResponse.getContentType(), cachingResponse.getContentAsByteArray()));
+        } else {
+            idempotencyStore.abandon(key);
+        }
+        cachingResponse.copyBodyToResponse();
+    }
+
+    // Server errors, auth failures and throttling say nothing about the outcome, so the retry runs again
+    private static boolean isFinal(int status) {
+        return status < 500
+                && status != HttpStatus.UNAUTHORIZED.value()
+                && status != HttpStatus.FORBIDDEN.value()
+                && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private String username(HttpServletRequest request) {
+        String token = request.getHeader("Authorization");
+        if (token == null || !token.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtils.getUsernameFromToken(token.substring(7));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getRequestURI() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void replay(HttpServletResponse response, IdempotencyStore.StoredResponse stored) throws IOException {
+        response.setStatus(stored.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(objectMapper.writeValueAsBytes(body));
+    }
+
+    // The body is read up front for the fingerprint, then served again to the controller
+    private static class BufferedRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BufferedRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.courierdistributionsystem.interceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Outbound-channel interceptor that keeps only the latest location per session and destination,
+// releasing it at most once per interval so slow subscribers never queue stale positions
+@Component
+public class LocationConflationInterceptor implements ChannelInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(LocationConflationInterceptor.class);
+
+    private static final String RELEASED_HEADER = "conflationReleased";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long minIntervalNanos;
+    private final List<String> destinationPatterns;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService releaser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "location-conflation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile MessageChannel outboundChannel;
+
+    @Autowired
+    public LocationConflationInterceptor(MeterRegistry meterRegistry,
+                                         @Value("${app.websocket.conflation.enabled:true}") boolean enabled,
+                                         @Value("${app.websocket.conflation.min-interval-ms:250}") long minIntervalMillis,
+                                         @Value("${app.websocket.conflation.destinations:/topic/package/*/location}") List<String> destinationPatterns) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+        this.destinationPatterns = destinationPatterns;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        releaser.shutdownNow();
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (!enabled || headers.containsKey(RELEASED_HEADER)
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (sessionId == null || destination == null || !isConflated(destination)) {
+            return message;
+        }
+
+        outboundChannel = channel;
+        SessionState session = sessions.computeIfAbsent(sessionId, SessionState::new);
+        Slot slot = session.slots.computeIfAbsent(destination, key -> new Slot());
+        synchronized (slot) {
+            long now = System.nanoTime();
+            if (slot.pending == null && now - slot.lastSentNanos >= minIntervalNanos) {
+                slot.lastSentNanos = now;
+                return message;
+            }
+            if (slot.pending != null) {
+                session.conflated.increment();
+            } else {
+                session.held.incrementAndGet();
+            }
+            slot.pending = message;
+            if (!slot.scheduled) {
+                slot.scheduled = true;
+                long delay = Math.max(0, slot.lastSentNanos + minIntervalNanos - now);
+                releaser.schedule(() -> release(session, destination, slot), delay, TimeUnit.NANOSECONDS);
+            }
+        }
+        return null;
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        SessionState session = sessions.remove(event.getSessionId());
+        if (session == null) {
+            return;
+        }
+        int discarded = 0;
+        for (Slot slot : session.slots.values()) {
+            synchronized (slot) {
+                if (slot.pending != null) {
+                    slot.pending = null;
+                    discarded++;
+                }
+            }
+        }
+        if (discarded > 0) {
+            logger.debug("Discarded {} pending location updates for closed session {}", discarded, event.getSessionId());
+        }
+        session.close();
+    }
+
+    private void release(SessionState session, String destination, Slot slot) {
+        Message<?> message;
+        synchronized (slot) {
+            message = slot.pending;
+            slot.pending = null;
+            slot.scheduled = false;
+            slot.lastSentNanos = System.nanoTime();
+        }
+        if (message == null) {
+            return;
+        }
+        session.held.decrementAndGet();
+        try {
+            Message<?> released = MessageBuilder.fromMessage(message).setHeader(RELEASED_HEADER, Boolean.TRUE).build();
+            if (!outboundChannel.send(released)) {
+                session.discarded.increment();
+            }
+        } catch (Exception e) {
+            session.discarded.increment();
+            logger.warn("Failed to deliver conflated update to {} for session {}: {}", destination, session.sessionId, e.getMessage());
+        }
+    }
+
+    private boolean isConflated(String destination) {
+        for (String pattern : destinationPatterns) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Slot {
+        private long lastSentNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+        private Message<?> pending;
+        private boolean scheduled;
+    }
+
+    private class SessionState {
+        private final String sessionId;
+        private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+        private final AtomicInteger held = new AtomicInteger();
+        private final Counter conflated;
+        private final Counter discarded;
+        private final Gauge heldGauge;
+
+        SessionState(String sessionId) {
+            this.sessionId = sessionId;
+            this.conflated = Counter.builder("websocket.location.conflated")
+                    .description("Location updates replaced in place before reaching a subscriber")
+                    .tag("session", sessionId)
+                    .register(meterRegistry);
+            // Both meters only see this interceptor's own slots; the session's send buffer is not reachable from here
+            this.discarded = Counter.builder("websocket.location.discarded")
+                    .description("Held location updates the outbound channel refused or that were discarded with their session")
+                    .tag("session", sessionId)
+                    .register(meterRegistry);
+            this.heldGauge = Gauge.builder("websocket.location.held", held, AtomicInteger::get)
+                    .description("Location updates held back for a subscriber by the rate limit")
+                    .tag("session", sessionId)
+                    .register(meterRegistry);
+        }
+
+        void close() {
+            // Updates still held are counted as discarded; meters go away with the session to keep cardinality bounded
+            discarded.increment(held.getAndSet(0));
+            for (Meter meter : List.of(conflated, discarded, heldGauge)) {
+                meterRegistry.remove(meter);
+            }
+        }
+    }
+}
@@ -16,7 +16,6 @@ public class CreatePackageMapper {
         }
 
         DeliveryPackage deliveryPackage = new DeliveryPackage();
-        deliveryPackage.setTrackingNumber(generateTrackingNumber());
         deliveryPackage.setCustomer(customer);
         deliveryPackage.setPickupAddress(dto.getPickupAddress());
         deliveryPackage.setDeliveryAddress(dto.getDeliveryAddress());
@@ -45,8 +44,4 @@ public class CreatePackageMapper {
         
         return dto;
     }
-
-    private String generateTrackingNumber() {
-        return "PKG" + System.currentTimeMillis() + String.format("%04d", (int) (Math.random() * 10000));
-    }
 } 
\ No newline at end of file
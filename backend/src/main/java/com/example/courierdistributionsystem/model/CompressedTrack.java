@@ -0,0 +1,45 @@
+package com.example.courierdistributionsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "compressed_tracks", indexes = {
+    @Index(name = "idx_compressed_tracks_start", columnList = "started_at, package_id"),
+    @Index(name = "idx_compressed_tracks_courier_start", columnList = "courier_id, started_at, package_id")
+})
+public class CompressedTrack {
+    @Id
+    @Column(name = "package_id")
+    private Long packageId;
+
+    @Column(name = "courier_id", nullable = false)
+    private Long courierId;
+
+    @Column(name = "courier_username", nullable = false)
+    private String courierUsername;
+
+    @Column(name = "point_count", nullable = false)
+    private int pointCount;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "ended_at")
+    private LocalDateTime endedAt;
+
+    @Lob
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+
+    @Column(name = "compacted_at", nullable = false)
+    private LocalDateTime compactedAt;
+}
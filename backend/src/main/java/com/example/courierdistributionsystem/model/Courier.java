@@ -47,6 +47,10 @@ public class Courier extends User {
     @Column(name = "vehicle_type")
     private String vehicleType;
 
+    // Meters; only ever incremented in SQL by the distance tracker, so entity saves must not overwrite it
+    @Column(name = "total_distance", insertable = false, updatable = false)
+    private Double totalDistance;
+
     @JsonIgnore
     @OneToMany(mappedBy = "courier", cascade = CascadeType.ALL, orphanRemoval = true)
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -57,6 +57,10 @@ public class DeliveryHistory {
     @Column(name = "delivery_rating")
     private Integer deliveryRating;
 
+    // The pickup event this row was projected from; null for rows created by hand
+    @Column(name = "source_event_id", unique = true)
+    private Long sourceEventId;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -19,6 +19,7 @@ import java.util.HashMap;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "delivery_packages")
+@EntityListeners(TrackingNumberListener.class)
 @RedisHash("delivery_packages")
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "package_id")
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -74,12 +75,22 @@ public class DeliveryPackage implements Serializable {
     @Column
     private String currentLocation;
 
-    @Column
+    // Pickup and delivery coordinates; written in SQL by the geocoder once the package is created
+    @Column(insertable = false, updatable = false)
     private Double latitude;
 
-    @Column
+    @Column(insertable = false, updatable = false)
     private Double longitude;
 
+    @Column(name = "delivery_latitude", insertable = false, updatable = false)
+    private Double deliveryLatitude;
+
+    @Column(name = "delivery_longitude", insertable = false, updatable = false)
+    private Double deliveryLongitude;
+
+    @Column(name = "geocoded_at", insertable = false, updatable = false)
+    private LocalDateTime geocodedAt;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private DeliveryStatus status;
@@ -102,12 +113,21 @@ public class DeliveryPackage implements Serializable {
     @Column(name = "picked_up_at")
     private LocalDateTime pickedUpAt;
 
-    @OneToMany(mappedBy = "deliveryPackage", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonManagedReference
+    // Guards the read-modify-write paths; claims go through a conditional update that bumps it as well
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Meters; written in SQL by the distance tracker
+    @Column(name = "distance_traveled", insertable = false, updatable = false)
+    private Double distanceTraveled;
+
+    // Append-only lifecycle stream; new events are queued here and inserted when the package is flushed
+    @OneToMany(mappedBy = "deliveryPackage", cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE})
     @JsonIgnore
     @Builder.Default
     @ToString.Exclude
-    private List<DeliveryStatusHistory> statusHistory = new ArrayList<>();
+    private List<PackageEvent> events = new ArrayList<>();
 
     @Transient
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -129,11 +149,11 @@ public class DeliveryPackage implements Serializable {
         if (status == null) {
             status = DeliveryStatus.PENDING;
         }
-        if (trackingNumber == null) {
-            trackingNumber = generateTrackingNumber();
-        }
         updatedAt = now;
-        addStatusHistory("Package created", null);
+        // Setting the initial status already recorded the creation
+        if (events == null || events.isEmpty()) {
+            appendEvent(PackageEvent.Type.CREATED, "Package created", null);
+        }
     }
 
     @PreUpdate
@@ -154,47 +174,51 @@ public class DeliveryPackage implements Serializable {
                 case CANCELLED -> this.cancelledAt = LocalDateTime.now();
             }
             
-            addStatusHistory(
-                String.format("Status changed from %s to %s", 
-                    oldStatus != null ? oldStatus : "NEW", 
+            appendEvent(eventType(oldStatus, newStatus),
+                String.format("Status changed from %s to %s",
+                    oldStatus != null ? oldStatus : "NEW",
                     newStatus),
                 null
             );
         }
     }
 
-    public void updateLocation(Double latitude, Double longitude, String location) {
-        this.currentLatitude = latitude;
-        this.currentLongitude = longitude;
-        this.currentLocation = location;
-        this.updatedAt = LocalDateTime.now();
-        
-        addStatusHistory("Location updated to: " + location, 
-            String.format("Lat: %f, Long: %f", latitude, longitude));
+    // The pickup coordinates when known, otherwise the last reported package position
+    @JsonIgnore
+    public Double getPickupLatitude() {
+        return latitude != null ? latitude : currentLatitude;
     }
 
-    private void addStatusHistory(String notes, String locationData) {
+    @JsonIgnore
+    public Double getPickupLongitude() {
+        return latitude != null ? longitude : currentLongitude;
+    }
+
+    private void appendEvent(PackageEvent.Type type, String notes, String locationData) {
         if (this.status == null) {
             this.status = DeliveryStatus.PENDING;
         }
-        
-        LocalDateTime now = LocalDateTime.now();
-        String statusNotes = notes != null ? notes : "Status update";
-        
-        DeliveryStatusHistory history = DeliveryStatusHistory.builder()
+        if (this.events == null) {
+            this.events = new ArrayList<>();
+        }
+        this.events.add(PackageEvent.builder()
             .deliveryPackage(this)
-            .status(this.status)
             .courier(this.courier)
-            .notes(statusNotes)
+            .type(type)
+            .status(this.status)
+            .notes(notes)
             .locationData(locationData)
-            .createdAt(now)
-            .build();
-        
-        if (this.statusHistory == null) {
-            this.statusHistory = new ArrayList<>();
-        }
-        
-        this.statusHistory.add(history);
+            .occurredAt(LocalDateTime.now())
+            .build());
+    }
+
+    private static PackageEvent.Type eventType(DeliveryStatus oldStatus, DeliveryStatus newStatus) {
+        return switch (newStatus) {
+            case PENDING -> oldStatus == null ? PackageEvent.Type.CREATED : PackageEvent.Type.RELEASED;
+            case IN_PROGRESS -> PackageEvent.Type.PICKED_UP;
+            case DELIVERED -> PackageEvent.Type.DELIVERED;
+            case CANCELLED -> PackageEvent.Type.CANCELLED;
+        };
     }
 
     @JsonProperty("customerUsername")
@@ -243,12 +267,6 @@ public class DeliveryPackage implements Serializable {
         // Ignore during deserialization
     }
 
-    private String generateTrackingNumber() {
-        return String.format("CDS-%d-%04d", 
-            System.currentTimeMillis() % 1000000000, 
-            (int)(Math.random() * 10000));
-    }
-
     @JsonProperty("id")
     public Long getId() {
         return package_id;
@@ -273,73 +291,3 @@ public class DeliveryPackage implements Serializable {
                 '}';
     }
 }
-
-@Entity
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-@Table(name = "delivery_status_history")
-@JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
-class DeliveryStatusHistory implements Serializable {
-    private static final long serialVersionUID = 1L;
-    
-    @jakarta.persistence.Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
-    @ManyToOne
-    @JoinColumn(name = "delivery_package_id", nullable = false)
-    @JsonBackReference
-    @JsonIgnore
-    @NonNull
-    private DeliveryPackage deliveryPackage;
-
-    @ManyToOne
-    @JoinColumn(name = "courier_id")
-    @JsonIdentityReference(alwaysAsId = true)
-    @JsonIgnore
-    private Courier courier;
-
-    @Enumerated(EnumType.STRING)
-    @Column(nullable = false)
-    @NonNull
-    private DeliveryPackage.DeliveryStatus status;
-
-    @Column(columnDefinition = "TEXT")
-    @NonNull
-    private String notes;
-
-    @Column(columnDefinition = "TEXT")
-    private String locationData;
-
-    @Column(nullable = false)
-    @NonNull
-    private LocalDateTime createdAt;
-
-    @JsonProperty("deliveryPackageId")
-    public Long getDeliveryPackageId() {
-        return deliveryPackage != null ? deliveryPackage.getPackage_id() : null;
-    }
-
-    @JsonProperty("courierId")
-    public Long getCourierId() {
-        return courier != null ? courier.getId() : null;
-    }
-
-    @PrePersist
-    protected void onCreate() {
-        if (createdAt == null) {
-            createdAt = LocalDateTime.now();
-        }
-        if (status == null && deliveryPackage != null) {
-            status = deliveryPackage.getStatus();
-        }
-        if (notes == null) {
-            notes = "Status update";
-        }
-        if (status == null) {
-            status = DeliveryPackage.DeliveryStatus.PENDING;
-        }
-    }
-} 
\ No newline at end of file
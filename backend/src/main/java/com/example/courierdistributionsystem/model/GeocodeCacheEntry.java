@@ -0,0 +1,36 @@
+package com.example.courierdistributionsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+// Persistent side of the geocoding cache; a row without coordinates records an address the provider could not resolve
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "geocode_cache", indexes = @Index(name = "idx_geocode_cache_last_used", columnList = "last_used_at"))
+public class GeocodeCacheEntry {
+    @Id
+    @Column(name = "address_key", length = 1024)
+    private String addressKey;
+
+    @Column
+    private Double latitude;
+
+    @Column
+    private Double longitude;
+
+    @Column(nullable = false)
+    private String provider;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_used_at", nullable = false)
+    private LocalDateTime lastUsedAt;
+}
@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "location_history")
+@Table(name = "location_history", indexes = {
+    @Index(name = "idx_location_history_package_time", columnList = "package_id, timestamp, id"),
+    @Index(name = "idx_location_history_courier_time", columnList = "courier_id, timestamp, id"),
+    @Index(name = "idx_location_history_time", columnList = "timestamp, id")
+})
 @RedisHash("location_history")
 public class LocationHistory {
     
@@ -0,0 +1,67 @@
+package com.example.courierdistributionsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+// One entry of a package's append-only lifecycle stream. The package row is updated alongside it in the same
+// transaction; courier delivery history and the status timeline are projections read or built from these rows.
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "package_events", indexes = {
+        @Index(name = "idx_package_events_package", columnList = "package_id, id")
+})
+public class PackageEvent {
+    public enum Type {
+        CREATED,
+        PICKED_UP,
+        RELEASED,
+        DELIVERED,
+        CANCELLED,
+        ZONE_CHANGED,
+        // Written in bulk by location ingest and geofencing, which bypass the entity
+        MOVED,
+        ARRIVED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "package_id", nullable = false, updatable = false)
+    @ToString.Exclude
+    private DeliveryPackage deliveryPackage;
+
+    // The courier holding the package once the event applied, if any
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "courier_id", updatable = false)
+    @ToString.Exclude
+    private Courier courier;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private Type type;
+
+    // Package status once the event applied
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private DeliveryPackage.DeliveryStatus status;
+
+    @Column(updatable = false)
+    private String notes;
+
+    @Column(name = "location_data", updatable = false)
+    private String locationData;
+
+    @Column(name = "occurred_at", nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,27 @@
+package com.example.courierdistributionsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+// Id of the last package event a projection has applied
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "projection_checkpoints")
+public class ProjectionCheckpoint {
+    @Id
+    @Column(name = "projection_name")
+    private String projectionName;
+
+    @Column(name = "last_event_id", nullable = false)
+    private long lastEventId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,24 @@
+package com.example.courierdistributionsystem.model;
+
+import com.example.courierdistributionsystem.utils.TrackingNumberGenerator;
+import jakarta.persistence.PrePersist;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Hibernate obtains entity listeners from the Spring context, so the node's generator is injected here
+@Component
+public class TrackingNumberListener {
+    private final TrackingNumberGenerator trackingNumberGenerator;
+
+    @Autowired
+    public TrackingNumberListener(TrackingNumberGenerator trackingNumberGenerator) {
+        this.trackingNumberGenerator = trackingNumberGenerator;
+    }
+
+    @PrePersist
+    public void assignTrackingNumber(DeliveryPackage deliveryPackage) {
+        if (deliveryPackage.getTrackingNumber() == null) {
+            deliveryPackage.setTrackingNumber(trackingNumberGenerator.next());
+        }
+    }
+}
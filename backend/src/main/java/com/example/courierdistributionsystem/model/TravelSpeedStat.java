@@ -0,0 +1,30 @@
+package com.example.courierdistributionsystem.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import java.time.LocalDateTime;
+
+// Checkpointed state of one running speed average used for ETAs, keyed by source, zone, hour of day and vehicle type
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "travel_speed_stats")
+public class TravelSpeedStat {
+    @Id
+    @Column(name = "stat_key")
+    private String statKey;
+
+    @Column(nullable = false)
+    private long samples;
+
+    @Column(name = "mean_speed_mps", nullable = false)
+    private double meanSpeedMps;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
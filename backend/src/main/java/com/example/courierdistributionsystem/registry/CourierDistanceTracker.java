@@ -0,0 +1,211 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.example.courierdistributionsystem.dto.LocationPing;
+import com.example.courierdistributionsystem.service.LocationPingListener;
+import com.example.courierdistributionsystem.utils.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Running travelled distance per courier and per in-progress package, accumulated from accepted pings.
+// Totals are in meters; package totals are checkpointed while in progress and finalized on delivery,
+// courier totals are added to couriers.total_distance on each checkpoint.
+@Component
+public class CourierDistanceTracker implements LocationPingListener {
+    private static final Logger logger = LoggerFactory.getLogger(CourierDistanceTracker.class);
+
+    private static final String SELECT_PACKAGE_DISTANCES_SQL =
+            "SELECT package_id, distance_traveled FROM delivery_packages " +
+            "WHERE status = 'IN_PROGRESS' AND distance_traveled IS NOT NULL";
+    private static final String UPDATE_PACKAGE_DISTANCE_SQL =
+            "UPDATE delivery_packages SET distance_traveled = ? WHERE package_id = ?";
+    private static final String ADD_COURIER_DISTANCE_SQL =
+            "UPDATE couriers SET total_distance = COALESCE(total_distance, 0) + ? WHERE user_id = ?";
+
+    // A fix that implies an impossible speed is ignored; after this many in a row the courier is re-anchored
+    private static final int MAX_CONSECUTIVE_SPIKES = 3;
+
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final CourierLiveStateRegistry courierRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final double minStepMeters;
+    private final double maxSpeedMetersPerSecond;
+
+    private final Map<Long, Anchor> anchors = new ConcurrentHashMap<>();
+    private final Map<Long, Double> packageMeters = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyPackages = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Double> unflushedCourierMeters = new ConcurrentHashMap<>();
+
+    private final Counter jitterCounter;
+    private final Counter spikeCounter;
+
+    @Autowired
+    public CourierDistanceTracker(PackageAssignmentTable packageAssignmentTable,
+                                  CourierLiveStateRegistry courierRegistry,
+                                  JdbcTemplate jdbcTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.distance.min-step-meters:15}") double minStepMeters,
+                                  @Value("${app.distance.max-speed-mps:70}") double maxSpeedMetersPerSecond) {
+        this.packageAssignmentTable = packageAssignmentTable;
+        this.courierRegistry = courierRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.minStepMeters = minStepMeters;
+        this.maxSpeedMetersPerSecond = maxSpeedMetersPerSecond;
+
+        this.jitterCounter = Counter.builder("location.distance.jitter")
+                .description("Location fixes within the jitter radius of the last counted position")
+                .register(meterRegistry);
+        this.spikeCounter = Counter.builder("location.distance.spikes")
+                .description("Location fixes rejected for implying an impossible speed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        jdbcTemplate.query(SELECT_PACKAGE_DISTANCES_SQL,
+                rs -> { packageMeters.put(rs.getLong("package_id"), rs.getDouble("distance_traveled")); });
+        logger.info("Loaded travelled distance of {} in-progress packages", packageMeters.size());
+    }
+
+    @Override
+    public void onLocationPing(LocationPing ping) {
+        Long courierId = ping.getCourierId() != null
+                ? ping.getCourierId()
+                : courierRegistry.findCourierId(ping.getCourierUsername()).orElse(null);
+        if (courierId == null) {
+            return;
+        }
+        double meters = advance(anchors.computeIfAbsent(courierId, key -> new Anchor()), ping);
+        if (meters <= 0) {
+            return;
+        }
+        unflushedCourierMeters.merge(courierId, meters, Double::sum);
+        for (Long packageId : packageAssignmentTable.findPackageIds(courierId)) {
+            packageMeters.merge(packageId, meters, Double::sum);
+            dirtyPackages.add(packageId);
+        }
+    }
+
+    public double getPackageDistance(long packageId) {
+        return packageMeters.getOrDefault(packageId, 0.0);
+    }
+
+    public double getUnflushedCourierDistance(long courierId) {
+        return unflushedCourierMeters.getOrDefault(courierId, 0.0);
+    }
+
+    // Writes the final total inside the caller's transaction; the in-memory entry is dropped by release()
+    public double persistPackageDistance(long packageId) {
+        double meters = getPackageDistance(packageId);
+        jdbcTemplate.update(UPDATE_PACKAGE_DISTANCE_SQL, meters, packageId);
+        return meters;
+    }
+
+    public void release(long packageId) {
+        packageMeters.remove(packageId);
+        dirtyPackages.remove(packageId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.distance.checkpoint-interval-ms:10000}")
+    public void checkpoint() {
+        List<Object[]> packageRows = new ArrayList<>();
+        for (Long packageId : dirtyPackages) {
+            dirtyPackages.remove(packageId);
+            Double meters = packageMeters.get(packageId);
+            if (meters != null) {
+                packageRows.add(new Object[] {meters, packageId});
+            }
+        }
+        Map<Long, Double> courierDeltas = new HashMap<>();
+        unflushedCourierMeters.keySet().forEach(courierId -> {
+            Double meters = unflushedCourierMeters.remove(courierId);
+            if (meters != null) {
+                courierDeltas.put(courierId, meters);
+            }
+        });
+
+        try {
+            if (!packageRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_PACKAGE_DISTANCE_SQL, packageRows);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to checkpoint distance of {} packages: {}", packageRows.size(), e.getMessage(), e);
+            packageRows.forEach(row -> dirtyPackages.add((Long) row[1]));
+        }
+        try {
+            if (!courierDeltas.isEmpty()) {
+                jdbcTemplate.batchUpdate(ADD_COURIER_DISTANCE_SQL, courierDeltas.entrySet().stream()
+                        .map(entry -> new Object[] {entry.getValue(), entry.getKey()})
+                        .toList());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to checkpoint distance of {} couriers: {}", courierDeltas.size(), e.getMessage(), e);
+            courierDeltas.forEach((courierId, meters) -> unflushedCourierMeters.merge(courierId, meters, Double::sum));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    private double advance(Anchor anchor, LocationPing ping) {
+        synchronized (anchor) {
+            if (anchor.timestamp == null) {
+                anchor.moveTo(ping);
+                return 0;
+            }
+            if (ping.getTimestamp().isBefore(anchor.timestamp)) {
+                return 0;
+            }
+            double meters = GeoUtils.approximateDistanceMeters(
+                    anchor.latitude, anchor.longitude, ping.getLatitude(), ping.getLongitude());
+            if (meters < minStepMeters) {
+                // The anchor stays put so slow movement still adds up once it leaves the jitter radius
+                jitterCounter.increment();
+                return 0;
+            }
+            double seconds = Duration.between(anchor.timestamp, ping.getTimestamp()).toMillis() / 1000.0;
+            if (meters > maxSpeedMetersPerSecond * Math.max(seconds, 1)) {
+                spikeCounter.increment();
+                if (++anchor.consecutiveSpikes >= MAX_CONSECUTIVE_SPIKES) {
+                    anchor.moveTo(ping);
+                }
+                return 0;
+            }
+            anchor.moveTo(ping);
+            return meters;
+        }
+    }
+
+    private static class Anchor {
+        private double latitude;
+        private double longitude;
+        private LocalDateTime timestamp;
+        private int consecutiveSpikes;
+
+        void moveTo(LocationPing ping) {
+            latitude = ping.getLatitude();
+            longitude = ping.getLongitude();
+            timestamp = ping.getTimestamp();
+            consecutiveSpikes = 0;
+        }
+    }
+}
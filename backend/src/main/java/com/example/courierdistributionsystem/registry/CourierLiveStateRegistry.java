@@ -0,0 +1,365 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.example.courierdistributionsystem.dto.CourierDto;
+import com.example.courierdistributionsystem.dto.LocationPing;
+import com.example.courierdistributionsystem.dto.NearbyCourierDto;
+import com.example.courierdistributionsystem.model.Courier;
+import com.example.courierdistributionsystem.model.User;
+import com.example.courierdistributionsystem.service.LocationPingListener;
+import com.example.courierdistributionsystem.utils.GeoGrid;
+import com.example.courierdistributionsystem.utils.LongIntHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class CourierLiveStateRegistry implements LocationPingListener {
+    private static final int MISSING = -1;
+    private static final int NO_ZONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Couriers live in slots of parallel arrays; ids and usernames map to their slot
+    private final LongIntHashMap slotsById = new LongIntHashMap(INITIAL_CAPACITY, MISSING);
+    private final Map<String, Integer> slotsByUsername = new HashMap<>();
+    private final BitSet occupied = new BitSet();
+    private final BitSet available = new BitSet();
+    private final BitSet positioned = new BitSet();
+    private final BitSet dirty = new BitSet();
+
+    private final Map<String, Integer> zoneIds = new HashMap<>();
+    private final List<String> zoneNames = new ArrayList<>();
+    private final List<BitSet> zoneMembers = new ArrayList<>();
+
+    private long[] courierIds = new long[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private int[] zones = new int[INITIAL_CAPACITY];
+    private String[] usernames = new String[INITIAL_CAPACITY];
+    private String[] emails = new String[INITIAL_CAPACITY];
+    private String[] phoneNumbers = new String[INITIAL_CAPACITY];
+    private String[] vehicleTypes = new String[INITIAL_CAPACITY];
+
+    // Spatial index over slots that are available and have a position
+    private final GeoGrid availableGrid;
+    private final ZoneLoadCounters zoneLoadCounters;
+
+    @Autowired
+    public CourierLiveStateRegistry(ZoneLoadCounters zoneLoadCounters,
+                                    @Value("${app.courier-registry.grid-cell-degrees:0.01}") double gridCellDegrees) {
+        this.zoneLoadCounters = zoneLoadCounters;
+        this.availableGrid = new GeoGrid(gridCellDegrees);
+    }
+
+    @Override
+    public void onLocationPing(LocationPing ping) {
+        updatePosition(ping.getCourierUsername(), ping.getLatitude(), ping.getLongitude(), ping.getZone());
+    }
+
+    public void register(Courier courier) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.get(courier.getId());
+            if (slot == MISSING) {
+                slot = allocateSlot(courier.getId());
+            } else if (!usernames[slot].equals(courier.getUsername())) {
+                slotsByUsername.remove(usernames[slot]);
+            }
+            slotsByUsername.put(courier.getUsername(), slot);
+            usernames[slot] = courier.getUsername();
+            emails[slot] = courier.getEmail();
+            phoneNumbers[slot] = courier.getPhoneNumber();
+            vehicleTypes[slot] = courier.getVehicleType();
+            available.set(slot, courier.isAvailable());
+
+            // A dirty slot holds a newer position than the row that was just read
+            if (!dirty.get(slot)) {
+                boolean hasPosition = courier.getCurrentLatitude() != null && courier.getCurrentLongitude() != null;
+                positioned.set(slot, hasPosition);
+                latitudes[slot] = hasPosition ? courier.getCurrentLatitude() : 0;
+                longitudes[slot] = hasPosition ? courier.getCurrentLongitude() : 0;
+                moveToZone(slot, courier.getCurrentZone());
+            }
+            reindex(slot);
+            zoneLoadCounters.courierUpdated(courier.getId(), zoneName(slot), courier.isAvailable());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long courierId) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.remove(courierId);
+            if (slot == MISSING) {
+                return;
+            }
+            slotsByUsername.remove(usernames[slot]);
+            moveToZone(slot, null);
+            availableGrid.remove(slot);
+            occupied.clear(slot);
+            available.clear(slot);
+            positioned.clear(slot);
+            dirty.clear(slot);
+            usernames[slot] = null;
+            emails[slot] = null;
+            phoneNumbers[slot] = null;
+            vehicleTypes[slot] = null;
+            zoneLoadCounters.courierRemoved(courierId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean updatePosition(String username, double latitude, double longitude, String zone) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsByUsername.get(username);
+            if (slot == null) {
+                return false;
+            }
+            latitudes[slot] = latitude;
+            longitudes[slot] = longitude;
+            positioned.set(slot);
+            if (moveToZone(slot, zone)) {
+                zoneLoadCounters.courierZoneChanged(courierIds[slot], zone);
+            }
+            reindex(slot);
+            dirty.set(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateAvailability(long courierId, boolean isAvailable) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.get(courierId);
+            if (slot != MISSING) {
+                available.set(slot, isAvailable);
+                reindex(slot);
+                zoneLoadCounters.courierAvailabilityChanged(courierId, isAvailable);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Long> findCourierId(String username) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsByUsername.get(username);
+            return slot == null ? Optional.empty() : Optional.of(courierIds[slot]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<CourierDto> findByUsername(String username) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsByUsername.get(username);
+            return slot == null ? Optional.empty() : Optional.of(toDto(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<CourierDto> findById(long courierId) {
+        lock.readLock().lock();
+        try {
+            int slot = slotsById.get(courierId);
+            return slot == MISSING ? Optional.empty() : Optional.of(toDto(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<CourierDto> findAll() {
+        lock.readLock().lock();
+        try {
+            return collect(occupied);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<CourierDto> findAvailable() {
+        lock.readLock().lock();
+        try {
+            return collect(available);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<CourierDto> findByZone(String zone) {
+        lock.readLock().lock();
+        try {
+            Integer zoneId = zoneIds.get(zone);
+            return zoneId == null ? new ArrayList<>() : collect(zoneMembers.get(zoneId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<CourierDto> findAvailableByZone(String zone) {
+        lock.readLock().lock();
+        try {
+            Integer zoneId = zoneIds.get(zone);
+            if (zoneId == null) {
+                return new ArrayList<>();
+            }
+            BitSet matches = (BitSet) zoneMembers.get(zoneId).clone();
+            matches.and(available);
+            return collect(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<NearbyCourierDto> findNearestAvailable(double latitude, double longitude, int limit, double maxRadiusMeters) {
+        lock.readLock().lock();
+        try {
+            return toNearby(availableGrid.nearest(latitude, longitude, limit, maxRadiusMeters));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<NearbyCourierDto> findAvailableWithin(double latitude, double longitude, double radiusMeters) {
+        lock.readLock().lock();
+        try {
+            return toNearby(availableGrid.within(latitude, longitude, radiusMeters));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Hands out positions changed since the last call so they can be written back to the couriers table
+    public List<CourierDto> drainDirtyPositions() {
+        lock.writeLock().lock();
+        try {
+            List<CourierDto> changed = collect(dirty);
+            dirty.clear();
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markDirty(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                int slot = slotsById.get(id);
+                if (slot != MISSING) {
+                    dirty.set(slot);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<CourierDto> collect(BitSet slots) {
+        List<CourierDto> result = new ArrayList<>(slots.cardinality());
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            result.add(toDto(slot));
+        }
+        return result;
+    }
+
+    private List<NearbyCourierDto> toNearby(List<GeoGrid.Neighbor> neighbors) {
+        List<NearbyCourierDto> result = new ArrayList<>(neighbors.size());
+        for (GeoGrid.Neighbor neighbor : neighbors) {
+            result.add(new NearbyCourierDto(toDto(neighbor.getId()), neighbor.getDistanceMeters()));
+        }
+        return result;
+    }
+
+    private void reindex(int slot) {
+        if (available.get(slot) && positioned.get(slot)) {
+            availableGrid.put(slot, latitudes[slot], longitudes[slot]);
+        } else {
+            availableGrid.remove(slot);
+        }
+    }
+
+    private CourierDto toDto(int slot) {
+        boolean hasPosition = positioned.get(slot);
+        return new CourierDto(
+                courierIds[slot],
+                usernames[slot],
+                emails[slot],
+                phoneNumbers[slot],
+                vehicleTypes[slot],
+                available.get(slot),
+                zoneName(slot),
+                hasPosition ? latitudes[slot] : null,
+                hasPosition ? longitudes[slot] : null,
+                User.UserRole.COURIER);
+    }
+
+    private int allocateSlot(long courierId) {
+        int slot = occupied.nextClearBit(0);
+        if (slot >= courierIds.length) {
+            grow(courierIds.length << 1);
+        }
+        occupied.set(slot);
+        courierIds[slot] = courierId;
+        zones[slot] = NO_ZONE;
+        slotsById.put(courierId, slot);
+        return slot;
+    }
+
+    private String zoneName(int slot) {
+        return zones[slot] == NO_ZONE ? null : zoneNames.get(zones[slot]);
+    }
+
+    // Returns whether the courier changed zone
+    private boolean moveToZone(int slot, String zone) {
+        int zoneId = zone == null ? NO_ZONE : zoneIds.computeIfAbsent(zone, name -> {
+            zoneNames.add(name);
+            zoneMembers.add(new BitSet());
+            return zoneNames.size() - 1;
+        });
+        int current = zones[slot];
+        if (current == zoneId) {
+            return false;
+        }
+        if (current != NO_ZONE) {
+            zoneMembers.get(current).clear(slot);
+        }
+        if (zoneId != NO_ZONE) {
+            zoneMembers.get(zoneId).set(slot);
+        }
+        zones[slot] = zoneId;
+        return true;
+    }
+
+    private void grow(int capacity) {
+        courierIds = Arrays.copyOf(courierIds, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        zones = Arrays.copyOf(zones, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        emails = Arrays.copyOf(emails, capacity);
+        phoneNumbers = Arrays.copyOf(phoneNumbers, capacity);
+        vehicleTypes = Arrays.copyOf(vehicleTypes, capacity);
+    }
+}
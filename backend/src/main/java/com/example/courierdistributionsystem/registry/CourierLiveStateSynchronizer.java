@@ -0,0 +1,81 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.example.courierdistributionsystem.dto.CourierDto;
+import com.example.courierdistributionsystem.repository.jpa.CourierRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class CourierLiveStateSynchronizer {
+    private static final Logger logger = LoggerFactory.getLogger(CourierLiveStateSynchronizer.class);
+
+    private static final String UPDATE_COURIER_POSITION_SQL =
+            "UPDATE couriers SET current_latitude = ?, current_longitude = ?, current_zone = ? WHERE user_id = ?";
+
+    private final CourierLiveStateRegistry registry;
+    private final CourierRepository courierRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter syncedRowsCounter;
+
+    @Autowired
+    public CourierLiveStateSynchronizer(CourierLiveStateRegistry registry,
+                                        CourierRepository courierRepository,
+                                        JdbcTemplate jdbcTemplate,
+                                        MeterRegistry meterRegistry) {
+        this.registry = registry;
+        this.courierRepository = courierRepository;
+        this.jdbcTemplate = jdbcTemplate;
+
+        Gauge.builder("courier.registry.size", registry, CourierLiveStateRegistry::size)
+                .description("Couriers held in the live state registry")
+                .register(meterRegistry);
+        this.syncedRowsCounter = Counter.builder("courier.registry.sync.rows")
+                .description("Courier positions written back to the couriers table")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        courierRepository.findAll().forEach(registry::register);
+        logger.info("Loaded {} couriers into the live state registry", registry.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.courier-registry.sync-interval-ms:5000}")
+    public void sync() {
+        List<CourierDto> changed = registry.drainDirtyPositions();
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(changed.size());
+        for (CourierDto courier : changed) {
+            rows.add(new Object[] {
+                    courier.getCurrentLatitude(), courier.getCurrentLongitude(), courier.getCurrentZone(), courier.getId()
+            });
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_COURIER_POSITION_SQL, rows);
+            syncedRowsCounter.increment(rows.size());
+            logger.debug("Synced {} courier positions", rows.size());
+        } catch (Exception e) {
+            logger.error("Failed to sync {} courier positions: {}", rows.size(), e.getMessage(), e);
+            registry.markDirty(changed.stream().map(CourierDto::getId).toList());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sync();
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.example.courierdistributionsystem.utils.GeoGrid;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Pickup and delivery geofences of in-progress packages, indexed on a grid so a ping only looks at
+// fences around its own position. Fence slots are recycled so grid ids stay small.
+@Component
+public class GeofenceIndex {
+
+    public enum FenceType {
+        PICKUP,
+        DELIVERY
+    }
+
+    @Getter
+    public static class Fence {
+        private final long packageId;
+        private final String trackingNumber;
+        private final long courierId;
+        private final String courierUsername;
+        private final FenceType type;
+        private final double latitude;
+        private final double longitude;
+
+        public Fence(long packageId, String trackingNumber, long courierId, String courierUsername, FenceType type,
+                     double latitude, double longitude) {
+            this.packageId = packageId;
+            this.trackingNumber = trackingNumber;
+            this.courierId = courierId;
+            this.courierUsername = courierUsername;
+            this.type = type;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final GeoGrid grid;
+    @Getter
+    private final double radiusMeters;
+    private final List<Fence> fencesBySlot = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<Long, List<Integer>> slotsByPackage = new HashMap<>();
+
+    @Autowired
+    public GeofenceIndex(MeterRegistry meterRegistry,
+                         @Value("${app.geofence.grid-cell-degrees:0.01}") double gridCellDegrees,
+                         @Value("${app.geofence.radius-meters:75}") double radiusMeters) {
+        this.grid = new GeoGrid(gridCellDegrees);
+        this.radiusMeters = radiusMeters;
+
+        Gauge.builder("geofence.active", this, GeofenceIndex::size)
+                .description("Geofences currently watched for arrivals")
+                .register(meterRegistry);
+    }
+
+    // Replaces every fence of the package
+    public void put(long packageId, List<Fence> fences) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(packageId);
+            if (fences.isEmpty()) {
+                return;
+            }
+            List<Integer> slots = new ArrayList<>(fences.size());
+            for (Fence fence : fences) {
+                int slot = allocateSlot();
+                fencesBySlot.set(slot, fence);
+                grid.put(slot, fence.latitude, fence.longitude);
+                slots.add(slot);
+            }
+            slotsByPackage.put(packageId, slots);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long packageId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(packageId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Drops one fence once it has fired, leaving the package's other fence in place
+    public void remove(Fence fence) {
+        lock.writeLock().lock();
+        try {
+            List<Integer> slots = slotsByPackage.get(fence.packageId);
+            if (slots == null) {
+                return;
+            }
+            slots.removeIf(slot -> {
+                if (fencesBySlot.get(slot) != fence) {
+                    return false;
+                }
+                releaseSlot(slot);
+                return true;
+            });
+            if (slots.isEmpty()) {
+                slotsByPackage.remove(fence.packageId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Fences of the courier's own packages that contain the position
+    public List<Fence> containing(long courierId, double latitude, double longitude) {
+        lock.readLock().lock();
+        try {
+            List<Fence> result = new ArrayList<>(2);
+            for (GeoGrid.Neighbor neighbor : grid.within(latitude, longitude, radiusMeters)) {
+                Fence fence = fencesBySlot.get(neighbor.getId());
+                if (fence != null && fence.courierId == courierId) {
+                    result.add(fence);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return grid.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(long packageId) {
+        List<Integer> slots = slotsByPackage.remove(packageId);
+        if (slots != null) {
+            slots.forEach(this::releaseSlot);
+        }
+    }
+
+    private int allocateSlot() {
+        Integer slot = freeSlots.poll();
+        if (slot != null) {
+            return slot;
+        }
+        fencesBySlot.add(null);
+        return fencesBySlot.size() - 1;
+    }
+
+    private void releaseSlot(int slot) {
+        grid.remove(slot);
+        fencesBySlot.set(slot, null);
+        freeSlots.push(slot);
+    }
+}
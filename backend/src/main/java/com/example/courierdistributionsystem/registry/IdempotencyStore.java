@@ -0,0 +1,237 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Responses to requests sent with an Idempotency-Key, kept for a while so retries replay them instead of running
+// again. Completed responses live in a bounded in-memory map that evicts the oldest first; keys whose request is
+// still running are held apart from it, so eviction can never let a retry run alongside the first attempt. When
+// enabled, completed responses are also written to Redis so a retry that lands on another instance is answered the
+// same way.
+@Component
+public class IdempotencyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final String REDIS_KEY_PREFIX = "cds_idempotency:";
+
+    public enum Outcome {
+        // The caller owns the key and must complete or abandon it
+        STARTED,
+        REPLAY,
+        IN_FLIGHT,
+        // The key was first used for a different request
+        MISMATCH
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Claim {
+        private final Outcome outcome;
+        private final StoredResponse response;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StoredResponse {
+        private String fingerprint;
+        private int status;
+        private String contentType;
+        private byte[] body;
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final long ttlMillis;
+    private final boolean redisEnabled;
+    private final long redisRetryMillis;
+    // Both maps are guarded by the completed map's lock. Completed entries are in completion order, which with a
+    // fixed TTL is also expiry order.
+    private final Map<String, Entry> completed;
+    private final Map<String, Entry> inFlight = new HashMap<>();
+
+    private volatile long redisRetryAt;
+
+    @Autowired
+    public IdempotencyStore(StringRedisTemplate redisTemplate,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.idempotency.capacity:10000}") int capacity,
+                            @Value("${app.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${app.idempotency.redis-enabled:false}") boolean redisEnabled,
+                            @Value("${app.idempotency.redis-retry-ms:30000}") long redisRetryMillis) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.redisEnabled = redisEnabled;
+        this.redisRetryMillis = redisRetryMillis;
+        this.completed = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IdempotencyStore.this.capacity;
+            }
+        };
+
+        Gauge.builder("idempotency.entries", this, IdempotencyStore::size)
+                .description("Idempotency keys held in memory, including requests still in flight")
+                .register(meterRegistry);
+    }
+
+    public Claim begin(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        synchronized (completed) {
+            Entry entry = find(key, now);
+            if (entry != null) {
+                return claimOf(entry.fingerprint, entry.response, fingerprint);
+            }
+        }
+        // Checked outside the lock; two instances racing on a fresh key can both run it, as before this store existed
+        StoredResponse shared = readShared(key);
+        synchronized (completed) {
+            Entry entry = find(key, now);
+            if (entry != null) {
+                return claimOf(entry.fingerprint, entry.response, fingerprint);
+            }
+            if (shared != null) {
+                store(key, new Entry(shared.fingerprint, shared, now + ttlMillis));
+                return claimOf(shared.fingerprint, shared, fingerprint);
+            }
+            inFlight.put(key, new Entry(fingerprint, null, now + ttlMillis));
+            return new Claim(Outcome.STARTED, null);
+        }
+    }
+
+    public void complete(String key, StoredResponse response) {
+        synchronized (completed) {
+            inFlight.remove(key);
+            store(key, new Entry(response.fingerprint, response, System.currentTimeMillis() + ttlMillis));
+        }
+        writeShared(key, response);
+    }
+
+    // Frees the key so a retry runs the request again
+    public void abandon(String key) {
+        synchronized (completed) {
+            inFlight.remove(key);
+        }
+    }
+
+    // Expired responses would only be skipped on lookup; dropping them keeps the map to live keys
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int purged = 0;
+        synchronized (completed) {
+            Iterator<Entry> oldest = completed.values().iterator();
+            while (oldest.hasNext() && oldest.next().expiresAt <= now) {
+                oldest.remove();
+                purged++;
+            }
+            // A request that never completed or abandoned its key is given up on after the TTL as well
+            Iterator<Entry> running = inFlight.values().iterator();
+            while (running.hasNext()) {
+                if (running.next().expiresAt <= now) {
+                    running.remove();
+                    purged++;
+                }
+            }
+        }
+        if (purged > 0) {
+            logger.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    public int size() {
+        synchronized (completed) {
+            return completed.size() + inFlight.size();
+        }
+    }
+
+    // Re-inserted rather than overwritten, so a key reused after expiry moves to the young end
+    private void store(String key, Entry entry) {
+        completed.remove(key);
+        completed.put(key, entry);
+    }
+
+    private Entry find(String key, long now) {
+        Entry entry = inFlight.get(key);
+        if (entry == null) {
+            entry = completed.get(key);
+        }
+        return entry != null && entry.expiresAt > now ? entry : null;
+    }
+
+    private static Claim claimOf(String storedFingerprint, StoredResponse response, String fingerprint) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            return new Claim(Outcome.MISMATCH, null);
+        }
+        return response == null ? new Claim(Outcome.IN_FLIGHT, null) : new Claim(Outcome.REPLAY, response);
+    }
+
+    private StoredResponse readShared(String key) {
+        if (!redisAvailable()) {
+            return null;
+        }
+        try {
+            String value = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + key);
+            return value == null ? null : objectMapper.readValue(value, StoredResponse.class);
+        } catch (Exception e) {
+            pauseRedis(e);
+            return null;
+        }
+    }
+
+    private void writeShared(String key, StoredResponse response) {
+        if (!redisAvailable()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + key, objectMapper.writeValueAsString(response),
+                    Duration.ofMillis(ttlMillis));
+        } catch (Exception e) {
+            pauseRedis(e);
+        }
+    }
+
+    private boolean redisAvailable() {
+        return redisEnabled && System.currentTimeMillis() >= redisRetryAt;
+    }
+
+    // Requests keep being served from memory alone while Redis is unreachable
+    private void pauseRedis(Exception e) {
+        redisRetryAt = System.currentTimeMillis() + redisRetryMillis;
+        logger.warn("Idempotency Redis tier unavailable, pausing for {} ms: {}", redisRetryMillis, e.getMessage());
+    }
+
+    private static class Entry {
+        private final String fingerprint;
+        // Null while the first request is still running
+        private final StoredResponse response;
+        private final long expiresAt;
+
+        Entry(String fingerprint, StoredResponse response, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
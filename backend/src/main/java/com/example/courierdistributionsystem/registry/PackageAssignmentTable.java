@@ -0,0 +1,128 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.example.courierdistributionsystem.model.DeliveryPackage;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tracking number -> courier assignment for packages in progress, so live pings are authorized without a query
+@Component
+public class PackageAssignmentTable {
+    private static final Logger logger = LoggerFactory.getLogger(PackageAssignmentTable.class);
+
+    private static final String SELECT_ASSIGNMENTS_SQL =
+            "SELECT p.tracking_number, p.package_id, p.courier_id, u.username FROM delivery_packages p " +
+            "JOIN users u ON u.id = p.courier_id WHERE p.status = 'IN_PROGRESS'";
+
+    @Getter
+    @AllArgsConstructor
+    public static class Assignment {
+        private final String trackingNumber;
+        private final long packageId;
+        private final long courierId;
+        private final String courierUsername;
+
+        public boolean isAssignedTo(String username) {
+            return courierUsername.equals(username);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ZoneLoadCounters zoneLoadCounters;
+    private final Map<String, Assignment> byTrackingNumber = new ConcurrentHashMap<>();
+    private final Map<Long, String> trackingNumbersById = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> packageIdsByCourier = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PackageAssignmentTable(JdbcTemplate jdbcTemplate, ZoneLoadCounters zoneLoadCounters) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.zoneLoadCounters = zoneLoadCounters;
+    }
+
+    @PostConstruct
+    public void load() {
+        jdbcTemplate.query(SELECT_ASSIGNMENTS_SQL, rs -> {
+            put(new Assignment(rs.getString("tracking_number"), rs.getLong("package_id"),
+                    rs.getLong("courier_id"), rs.getString("username")));
+        });
+        logger.info("Loaded {} package assignments", byTrackingNumber.size());
+    }
+
+    public Optional<Assignment> find(String trackingNumber) {
+        return Optional.ofNullable(byTrackingNumber.get(trackingNumber));
+    }
+
+    public Set<Long> findPackageIds(long courierId) {
+        Set<Long> packageIds = packageIdsByCourier.get(courierId);
+        return packageIds == null ? Set.of() : Set.copyOf(packageIds);
+    }
+
+    public int countPackages(long courierId) {
+        Set<Long> packageIds = packageIdsByCourier.get(courierId);
+        return packageIds == null ? 0 : packageIds.size();
+    }
+
+    // Mirrors the package's current state: only in-progress packages with a courier stay in the table
+    public void track(DeliveryPackage deliveryPackage) {
+        if (deliveryPackage.getStatus() == DeliveryPackage.DeliveryStatus.IN_PROGRESS && deliveryPackage.getCourier() != null) {
+            put(new Assignment(deliveryPackage.getTrackingNumber(), deliveryPackage.getPackage_id(),
+                    deliveryPackage.getCourier().getId(), deliveryPackage.getCourier().getUsername()));
+        } else {
+            release(deliveryPackage.getPackage_id());
+        }
+    }
+
+    public void release(long packageId) {
+        String trackingNumber = trackingNumbersById.remove(packageId);
+        if (trackingNumber != null) {
+            Assignment removed = byTrackingNumber.remove(trackingNumber);
+            if (removed != null) {
+                removeFromCourier(removed.getCourierId(), packageId);
+            }
+        }
+    }
+
+    public int size() {
+        return byTrackingNumber.size();
+    }
+
+    private void put(Assignment assignment) {
+        String previous = trackingNumbersById.put(assignment.getPackageId(), assignment.getTrackingNumber());
+        if (previous != null && !previous.equals(assignment.getTrackingNumber())) {
+            byTrackingNumber.remove(previous);
+        }
+        Assignment replaced = byTrackingNumber.put(assignment.getTrackingNumber(), assignment);
+        if (replaced != null && replaced.getCourierId() != assignment.getCourierId()) {
+            removeFromCourier(replaced.getCourierId(), replaced.getPackageId());
+        }
+        // The load is reported inside compute, which holds the courier's entry, so concurrent changes to one courier
+        // reach the zone counters in the order they were made
+        packageIdsByCourier.compute(assignment.getCourierId(), (courierId, packageIds) -> {
+            Set<Long> updated = packageIds != null ? packageIds : ConcurrentHashMap.newKeySet();
+            updated.add(assignment.getPackageId());
+            zoneLoadCounters.courierLoadChanged(courierId, updated.size());
+            return updated;
+        });
+    }
+
+    private void removeFromCourier(long courierId, long packageId) {
+        packageIdsByCourier.compute(courierId, (key, packageIds) -> {
+            if (packageIds != null) {
+                packageIds.remove(packageId);
+            }
+            int remaining = packageIds != null ? packageIds.size() : 0;
+            zoneLoadCounters.courierLoadChanged(key, remaining);
+            return remaining == 0 ? null : packageIds;
+        });
+    }
+}
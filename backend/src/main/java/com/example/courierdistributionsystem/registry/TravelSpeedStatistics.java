@@ -0,0 +1,242 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.example.courierdistributionsystem.dto.LocationPing;
+import com.example.courierdistributionsystem.model.TravelSpeedStat;
+import com.example.courierdistributionsystem.repository.jpa.TravelSpeedStatRepository;
+import com.example.courierdistributionsystem.service.LocationPingListener;
+import com.example.courierdistributionsystem.utils.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Running average travel speeds by zone, hour of day and vehicle type, fed one sample at a time.
+// Delivery samples (travelled distance over pickup-to-completion time) include stops and handovers and are preferred;
+// movement samples between consecutive pings of couriers carrying packages fill in until enough deliveries exist.
+// Every sample also updates coarser aggregates, so a sparse zone or hour falls back to its vehicle-wide average.
+@Component
+public class TravelSpeedStatistics implements LocationPingListener {
+    private static final Logger logger = LoggerFactory.getLogger(TravelSpeedStatistics.class);
+
+    private static final String DELIVERY = "DELIVERY";
+    private static final String MOVEMENT = "MOVEMENT";
+    private static final String ANY = "*";
+
+    // Gaps outside this window say little about speed: GPS noise below it, a parked or offline courier above it
+    private static final long MIN_SAMPLE_SECONDS = 5;
+    private static final long MAX_SAMPLE_SECONDS = 300;
+    private static final long MIN_DELIVERY_SECONDS = 60;
+
+    private final TravelSpeedStatRepository travelSpeedStatRepository;
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final CourierLiveStateRegistry courierRegistry;
+    private final long minSamples;
+    private final double decay;
+    private final double maxSpeedMetersPerSecond;
+    private final double defaultSpeedMetersPerSecond;
+
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Fix> lastFixes = new ConcurrentHashMap<>();
+
+    private final Counter deliverySampleCounter;
+    private final Counter movementSampleCounter;
+
+    @Autowired
+    public TravelSpeedStatistics(TravelSpeedStatRepository travelSpeedStatRepository,
+                                 PackageAssignmentTable packageAssignmentTable,
+                                 CourierLiveStateRegistry courierRegistry,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.eta.min-samples:20}") long minSamples,
+                                 @Value("${app.eta.decay:0.02}") double decay,
+                                 @Value("${app.distance.max-speed-mps:70}") double maxSpeedMetersPerSecond,
+                                 @Value("${app.eta.default-speed-mps:6}") double defaultSpeedMetersPerSecond) {
+        this.travelSpeedStatRepository = travelSpeedStatRepository;
+        this.packageAssignmentTable = packageAssignmentTable;
+        this.courierRegistry = courierRegistry;
+        this.minSamples = minSamples;
+        this.decay = decay;
+        this.maxSpeedMetersPerSecond = maxSpeedMetersPerSecond;
+        this.defaultSpeedMetersPerSecond = defaultSpeedMetersPerSecond;
+
+        Gauge.builder("eta.speed.aggregates", aggregates, Map::size)
+                .description("Speed aggregates maintained for ETA estimation")
+                .register(meterRegistry);
+        this.deliverySampleCounter = Counter.builder("eta.speed.samples")
+                .description("Speed samples folded into the ETA statistics")
+                .tag("source", "delivery")
+                .register(meterRegistry);
+        this.movementSampleCounter = Counter.builder("eta.speed.samples")
+                .description("Speed samples folded into the ETA statistics")
+                .tag("source", "movement")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        for (TravelSpeedStat stat : travelSpeedStatRepository.findAll()) {
+            aggregates.put(stat.getStatKey(), new Aggregate(stat.getSamples(), stat.getMeanSpeedMps()));
+        }
+        logger.info("Loaded {} travel speed aggregates", aggregates.size());
+    }
+
+    @Override
+    public void onLocationPing(LocationPing ping) {
+        Long courierId = ping.getCourierId() != null
+                ? ping.getCourierId()
+                : courierRegistry.findCourierId(ping.getCourierUsername()).orElse(null);
+        if (courierId == null) {
+            return;
+        }
+        Fix fix = new Fix(ping.getLatitude(), ping.getLongitude(), ping.getTimestamp());
+        Fix previous = lastFixes.get(courierId);
+        if (previous != null && fix.timestamp.isBefore(previous.timestamp)) {
+            return;
+        }
+        lastFixes.put(courierId, fix);
+        // Only couriers out on a delivery say anything about delivery speed
+        if (previous == null || packageAssignmentTable.countPackages(courierId) == 0) {
+            return;
+        }
+        long seconds = Duration.between(previous.timestamp, fix.timestamp).getSeconds();
+        if (seconds < MIN_SAMPLE_SECONDS || seconds > MAX_SAMPLE_SECONDS) {
+            return;
+        }
+        double speed = GeoUtils.approximateDistanceMeters(previous.latitude, previous.longitude, fix.latitude, fix.longitude) / seconds;
+        if (speed > maxSpeedMetersPerSecond) {
+            return;
+        }
+        String vehicleType = courierRegistry.findById(courierId).map(courier -> courier.getVehicleType()).orElse(null);
+        record(MOVEMENT, ping.getZone(), fix.timestamp.getHour(), vehicleType, speed);
+        movementSampleCounter.increment();
+    }
+
+    public void recordDelivery(String zone, String vehicleType, LocalDateTime pickedUpAt, LocalDateTime completedAt,
+                               double meters) {
+        if (pickedUpAt == null || completedAt == null || meters <= 0) {
+            return;
+        }
+        long seconds = Duration.between(pickedUpAt, completedAt).getSeconds();
+        if (seconds < MIN_DELIVERY_SECONDS) {
+            return;
+        }
+        double speed = meters / seconds;
+        if (speed > maxSpeedMetersPerSecond) {
+            return;
+        }
+        record(DELIVERY, zone, pickedUpAt.getHour(), vehicleType, speed);
+        deliverySampleCounter.increment();
+    }
+
+    // Most specific aggregate with enough samples, delivery statistics before movement statistics
+    public double speedFor(String zone, int hour, String vehicleType) {
+        for (String source : List.of(DELIVERY, MOVEMENT)) {
+            for (String key : keys(source, zone, hour, vehicleType)) {
+                Aggregate aggregate = aggregates.get(key);
+                if (aggregate != null && aggregate.samples() >= minSamples && aggregate.mean() > 0) {
+                    return aggregate.mean();
+                }
+            }
+        }
+        return defaultSpeedMetersPerSecond;
+    }
+
+    @Scheduled(fixedDelayString = "${app.eta.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        List<TravelSpeedStat> stats = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (String key : Set.copyOf(dirty)) {
+            dirty.remove(key);
+            Aggregate aggregate = aggregates.get(key);
+            if (aggregate != null) {
+                stats.add(new TravelSpeedStat(key, aggregate.samples(), aggregate.mean(), now));
+            }
+        }
+        if (stats.isEmpty()) {
+            return;
+        }
+        try {
+            travelSpeedStatRepository.saveAll(stats);
+        } catch (Exception e) {
+            logger.error("Failed to checkpoint {} travel speed aggregates: {}", stats.size(), e.getMessage(), e);
+            stats.forEach(stat -> dirty.add(stat.getStatKey()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    private void record(String source, String zone, int hour, String vehicleType, double speed) {
+        for (String key : keys(source, zone, hour, vehicleType)) {
+            aggregates.computeIfAbsent(key, k -> new Aggregate(0, 0)).add(speed, decay);
+            dirty.add(key);
+        }
+    }
+
+    private static List<String> keys(String source, String zone, int hour, String vehicleType) {
+        String z = zone == null || zone.isBlank() ? ANY : zone;
+        String h = String.valueOf(hour);
+        String v = vehicleType == null || vehicleType.isBlank() ? ANY : vehicleType;
+        List<String> keys = new ArrayList<>(5);
+        keys.add(String.join("|", source, z, h, v));
+        keys.add(String.join("|", source, z, ANY, v));
+        keys.add(String.join("|", source, ANY, h, v));
+        keys.add(String.join("|", source, ANY, ANY, v));
+        keys.add(String.join("|", source, ANY, ANY, ANY));
+        // Unknown zone or vehicle collapse some levels onto the same key; each key is fed once per sample
+        return keys.stream().distinct().toList();
+    }
+
+    // Exact running mean for the first 1/decay samples, then an exponentially weighted one that follows drift
+    private static class Aggregate {
+        private long samples;
+        private double mean;
+
+        Aggregate(long samples, double mean) {
+            this.samples = samples;
+            this.mean = mean;
+        }
+
+        synchronized void add(double value, double decay) {
+            samples++;
+            mean += Math.max(1.0 / samples, decay) * (value - mean);
+        }
+
+        synchronized long samples() {
+            return samples;
+        }
+
+        synchronized double mean() {
+            return mean;
+        }
+    }
+
+    private static class Fix {
+        private final double latitude;
+        private final double longitude;
+        private final LocalDateTime timestamp;
+
+        Fix(double latitude, double longitude, LocalDateTime timestamp) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.timestamp = timestamp;
+        }
+    }
+}
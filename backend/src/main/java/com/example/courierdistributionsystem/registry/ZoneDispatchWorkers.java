@@ -0,0 +1,204 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.example.courierdistributionsystem.dto.CourierDto;
+import com.example.courierdistributionsystem.model.DeliveryPackage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Dispatch state partitioned by zone. Each zone has its own mailbox and is pinned to one single-threaded shard,
+// so everything a zone owns (its pending packages and available couriers) is only ever touched by that thread
+// and claims inside a zone need no locks. Zones are placed on the shard holding the fewest zones.
+@Component
+public class ZoneDispatchWorkers {
+    private static final Logger logger = LoggerFactory.getLogger(ZoneDispatchWorkers.class);
+
+    public static final String UNZONED = "UNZONED";
+
+    // Messages a zone runs before yielding its shard to other zones
+    private static final int DRAIN_BATCH = 64;
+
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService[] shards;
+    private final int[] zonesPerShard;
+    private final Map<String, Zone> zones = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ZoneDispatchWorkers(MeterRegistry meterRegistry,
+                               @Value("${app.dispatch.shards:0}") int shardCount) {
+        this.meterRegistry = meterRegistry;
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new ExecutorService[count];
+        this.zonesPerShard = new int[count];
+        for (int i = 0; i < count; i++) {
+            int shard = i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "zone-dispatch-" + shard);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        // 1.0 when every zone holds the same backlog; the busiest zone's multiple of the mean otherwise
+        Gauge.builder("dispatch.zone.skew", this, ZoneDispatchWorkers::skew)
+                .description("Deepest zone queue relative to the mean zone queue depth")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdownNow();
+        }
+    }
+
+    // Runs the task on the zone's worker; tasks for one zone run one at a time, in submission order
+    public <T> CompletableFuture<T> submit(String zoneName, Function<Zone, T> task) {
+        Zone zone = zones.computeIfAbsent(zoneName == null ? UNZONED : zoneName, this::createZone);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        zone.mailbox.add(() -> {
+            try {
+                result.complete(task.apply(zone));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        zone.mailboxDepth.incrementAndGet();
+        schedule(zone);
+        return result;
+    }
+
+    public Collection<String> zoneNames() {
+        return List.copyOf(zones.keySet());
+    }
+
+    private Zone createZone(String name) {
+        int shard;
+        synchronized (zonesPerShard) {
+            shard = 0;
+            for (int i = 1; i < zonesPerShard.length; i++) {
+                if (zonesPerShard[i] < zonesPerShard[shard]) {
+                    shard = i;
+                }
+            }
+            zonesPerShard[shard]++;
+        }
+        Zone zone = new Zone(name, shard);
+        Gauge.builder("dispatch.zone.queue.depth", zone, Zone::depth)
+                .description("Pending packages held by a zone worker plus messages waiting in its mailbox")
+                .tag("zone", name)
+                .register(meterRegistry);
+        logger.info("Zone {} assigned to dispatch shard {}", name, shard);
+        return zone;
+    }
+
+    private void schedule(Zone zone) {
+        if (zone.scheduled.compareAndSet(false, true)) {
+            shards[zone.shard].execute(() -> drain(zone));
+        }
+    }
+
+    private void drain(Zone zone) {
+        for (int i = 0; i < DRAIN_BATCH; i++) {
+            Runnable message = zone.mailbox.poll();
+            if (message == null) {
+                break;
+            }
+            zone.mailboxDepth.decrementAndGet();
+            message.run();
+        }
+        zone.scheduled.set(false);
+        // A message may have arrived after the last poll but before the flag was cleared
+        if (!zone.mailbox.isEmpty()) {
+            schedule(zone);
+        }
+    }
+
+    private double skew() {
+        if (zones.isEmpty()) {
+            return 1.0;
+        }
+        long total = 0;
+        int max = 0;
+        for (Zone zone : zones.values()) {
+            int depth = zone.depth();
+            total += depth;
+            max = Math.max(max, depth);
+        }
+        return total == 0 ? 1.0 : max / ((double) total / zones.size());
+    }
+
+    public static class Zone {
+        @Getter
+        private final String name;
+        private final int shard;
+        private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger mailboxDepth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // Owned by the zone's worker thread
+        private final Map<Long, DeliveryPackage> pendingPackages = new LinkedHashMap<>();
+        private final Map<Long, CourierDto> availableCouriers = new LinkedHashMap<>();
+        // Published for metrics only
+        private volatile int pendingDepth;
+
+        Zone(String name, int shard) {
+            this.name = name;
+            this.shard = shard;
+        }
+
+        // Replaces the zone's view with a fresh snapshot
+        public void reset(List<DeliveryPackage> packages, List<CourierDto> couriers) {
+            pendingPackages.clear();
+            packages.forEach(deliveryPackage -> pendingPackages.put(deliveryPackage.getPackage_id(), deliveryPackage));
+            availableCouriers.clear();
+            couriers.forEach(courier -> availableCouriers.put(courier.getId(), courier));
+            pendingDepth = pendingPackages.size();
+        }
+
+        public List<DeliveryPackage> pendingPackages() {
+            return new ArrayList<>(pendingPackages.values());
+        }
+
+        public List<CourierDto> availableCouriers() {
+            return new ArrayList<>(availableCouriers.values());
+        }
+
+        // A claim takes the package out of the zone's queue and the courier out of its pool for this round
+        public void claim(long packageId, long courierId) {
+            pendingPackages.remove(packageId);
+            availableCouriers.remove(courierId);
+            pendingDepth = pendingPackages.size();
+        }
+
+        public void drop(long packageId) {
+            pendingPackages.remove(packageId);
+            pendingDepth = pendingPackages.size();
+        }
+
+        int depth() {
+            return pendingDepth + mailboxDepth.get();
+        }
+    }
+}
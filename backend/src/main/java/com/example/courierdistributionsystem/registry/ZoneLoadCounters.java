@@ -0,0 +1,130 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.example.courierdistributionsystem.dto.ZoneLoadDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-zone supply and demand, kept current by the courier registry, the assignment table and package lifecycle events.
+// Each courier and pending package remembers what it last contributed, so an event only moves that contribution
+// between zones and reading a snapshot never touches the database.
+// A courier with packages is busy; an available courier without packages is free. In-progress packages count
+// towards their courier's zone.
+@Component
+public class ZoneLoadCounters {
+    private static final int AVAILABLE_COURIERS = 0;
+    private static final int BUSY_COURIERS = 1;
+    private static final int PENDING_PACKAGES = 2;
+    private static final int IN_PROGRESS_PACKAGES = 3;
+
+    private final Map<String, long[]> totals = new TreeMap<>();
+    private final Map<Long, CourierState> couriers = new HashMap<>();
+    private final Map<Long, String> pendingPackages = new HashMap<>();
+
+    public synchronized void courierUpdated(long courierId, String zone, boolean available) {
+        CourierState state = couriers.computeIfAbsent(courierId, id -> new CourierState());
+        apply(state, -1);
+        state.zone = zoneOf(zone);
+        state.available = available;
+        state.registered = true;
+        apply(state, 1);
+    }
+
+    public synchronized void courierZoneChanged(long courierId, String zone) {
+        CourierState state = couriers.get(courierId);
+        if (state != null) {
+            courierUpdated(courierId, zone, state.available);
+        }
+    }
+
+    public synchronized void courierAvailabilityChanged(long courierId, boolean available) {
+        CourierState state = couriers.get(courierId);
+        if (state != null) {
+            courierUpdated(courierId, state.zone, available);
+        }
+    }
+
+    public synchronized void courierRemoved(long courierId) {
+        CourierState state = couriers.remove(courierId);
+        if (state != null) {
+            apply(state, -1);
+        }
+    }
+
+    // Packages may be assigned before the courier is registered; the load is kept and counted once it is
+    public synchronized void courierLoadChanged(long courierId, int activePackages) {
+        CourierState state = couriers.computeIfAbsent(courierId, id -> new CourierState());
+        apply(state, -1);
+        state.activePackages = activePackages;
+        apply(state, 1);
+        if (!state.registered && activePackages == 0) {
+            couriers.remove(courierId);
+        }
+    }
+
+    public synchronized void packagePending(long packageId, String zone) {
+        String previous = pendingPackages.put(packageId, zoneOf(zone));
+        if (previous != null) {
+            add(previous, PENDING_PACKAGES, -1);
+        }
+        add(zoneOf(zone), PENDING_PACKAGES, 1);
+    }
+
+    // Any status other than pending, or deletion
+    public synchronized void packageNotPending(long packageId) {
+        String previous = pendingPackages.remove(packageId);
+        if (previous != null) {
+            add(previous, PENDING_PACKAGES, -1);
+        }
+    }
+
+    public synchronized boolean isPending(long packageId) {
+        return pendingPackages.containsKey(packageId);
+    }
+
+    public synchronized List<ZoneLoadDto> snapshot() {
+        List<ZoneLoadDto> zones = new ArrayList<>(totals.size());
+        totals.forEach((zone, counts) -> zones.add(new ZoneLoadDto(zone,
+                counts[AVAILABLE_COURIERS], counts[BUSY_COURIERS], counts[PENDING_PACKAGES], counts[IN_PROGRESS_PACKAGES])));
+        return zones;
+    }
+
+    private void apply(CourierState state, int sign) {
+        if (!state.registered) {
+            return;
+        }
+        if (state.activePackages > 0) {
+            add(state.zone, BUSY_COURIERS, sign);
+            add(state.zone, IN_PROGRESS_PACKAGES, sign * state.activePackages);
+        } else if (state.available) {
+            add(state.zone, AVAILABLE_COURIERS, sign);
+        }
+    }
+
+    private void add(String zone, int counter, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        long[] counts = totals.computeIfAbsent(zone, key -> new long[4]);
+        counts[counter] += delta;
+        // Zones nobody is in any more drop out of the snapshot
+        if (counts[0] == 0 && counts[1] == 0 && counts[2] == 0 && counts[3] == 0) {
+            totals.remove(zone);
+        }
+    }
+
+    private static String zoneOf(String zone) {
+        return zone == null || zone.isBlank() ? ZoneDispatchWorkers.UNZONED : zone;
+    }
+
+    private static class CourierState {
+        private String zone = ZoneDispatchWorkers.UNZONED;
+        private boolean available;
+        private boolean registered;
+        private int activePackages;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.courierdistributionsystem.repository;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Routes location history into one table per local day (location_history_dYYYYMMDD).
+// Partitions are disjoint in time, so readers walk them in order and stop once a page is full,
+// and retention drops a whole day with a single DROP TABLE instead of deleting rows.
+@Repository
+@DependsOn("entityManagerFactory")
+public class LocationHistoryPartitions {
+    private static final Logger logger = LoggerFactory.getLogger(LocationHistoryPartitions.class);
+
+    public static final String LEGACY_TABLE = "location_history";
+
+    private static final String PREFIX = "location_history_d";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String SEQUENCE = "location_history_seq";
+    private static final String COLUMNS = "id, package_id, courier_id, courier_username, latitude, longitude, zone, timestamp";
+
+    private static final String SELECT_PARTITIONS_SQL =
+            "SELECT table_name FROM information_schema.tables WHERE LOWER(table_name) LIKE '" + PREFIX + "%'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate ddlTransaction;
+    private final int precreateDays;
+    private final int rawDays;
+    private final long maxFutureSkewMillis;
+    private final NavigableSet<LocalDate> days = new ConcurrentSkipListSet<>();
+
+    @Autowired
+    public LocationHistoryPartitions(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.location-retention.precreate-days:2}") int precreateDays,
+                                     @Value("${app.location-retention.raw-days:7}") int rawDays,
+                                     @Value("${app.location-retention.max-future-skew-ms:300000}") long maxFutureSkewMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // DDL commits implicitly, so it runs on its own connection instead of inside a caller's transaction
+        this.ddlTransaction = new TransactionTemplate(transactionManager);
+        this.ddlTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.precreateDays = precreateDays;
+        this.rawDays = rawDays;
+        this.maxFutureSkewMillis = maxFutureSkewMillis;
+    }
+
+    @PostConstruct
+    public void load() {
+        for (String table : jdbcTemplate.queryForList(SELECT_PARTITIONS_SQL, String.class)) {
+            days.add(LocalDate.parse(table.toLowerCase().substring(PREFIX.length()), SUFFIX_FORMAT));
+            ddlTransaction.executeWithoutResult(status -> createIndexes(table));
+        }
+        Long maxLegacyId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + LEGACY_TABLE, Long.class);
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE + " START WITH "
+                + ((maxLegacyId != null ? maxLegacyId : 0) + 1));
+        migrateLegacyRows();
+        precreate();
+        logger.info("Loaded {} location history partitions", days.size());
+    }
+
+    @Scheduled(cron = "${app.location-retention.precreate-cron:0 0 * * * *}")
+    public void precreate() {
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i <= precreateDays; i++) {
+            ensure(today.plusDays(i));
+        }
+    }
+
+    // Rows are (package_id, courier_id, courier_username, latitude, longitude, zone, timestamp). Timestamps come
+    // from devices, so one outside the retained days or too far ahead is stored at server time instead; otherwise
+    // any client could create a table for any day, and future days would never be reached by retention.
+    public void insert(List<Object[]> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime earliest = now.toLocalDate().minusDays(rawDays).atStartOfDay();
+        LocalDateTime latest = now.plusNanos(maxFutureSkewMillis * 1_000_000);
+        Map<LocalDate, List<Object[]>> byDay = new TreeMap<>();
+        int clamped = 0;
+        for (Object[] row : rows) {
+            LocalDateTime timestamp = ((Timestamp) row[6]).toLocalDateTime();
+            if (timestamp.isBefore(earliest) || timestamp.isAfter(latest)) {
+                row = row.clone();
+                row[6] = Timestamp.valueOf(now);
+                timestamp = now;
+                clamped++;
+            }
+            byDay.computeIfAbsent(timestamp.toLocalDate(), key -> new ArrayList<>()).add(row);
+        }
+        if (clamped > 0) {
+            logger.warn("Stored {} location points at server time: device timestamps outside {} .. {}", clamped, earliest, latest);
+        }
+        byDay.forEach((day, dayRows) -> jdbcTemplate.batchUpdate(
+                "INSERT INTO " + ensure(day) + " (package_id, courier_id, courier_username, latitude, longitude, zone, timestamp) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", dayRows));
+    }
+
+    // Oldest first; bounds are optional and may fall on any time of day
+    public List<String> tables(LocalDateTime from, LocalDateTime to) {
+        NavigableSet<LocalDate> range = days;
+        if (from != null) {
+            range = range.tailSet(from.toLocalDate(), true);
+        }
+        if (to != null) {
+            range = range.headSet(to.toLocalDate(), !to.toLocalTime().equals(LocalTime.MIDNIGHT));
+        }
+        return range.stream().map(LocationHistoryPartitions::tableName).toList();
+    }
+
+    // Packages have no points from before they were created, which bounds the walk for package lookups;
+    // a day of slack covers device clocks running behind the server
+    public List<String> tablesForPackage(long packageId, LocalDateTime from, LocalDateTime to) {
+        List<Timestamp> createdAt = jdbcTemplate.queryForList(
+                "SELECT created_at FROM delivery_packages WHERE package_id = ?", Timestamp.class, packageId);
+        LocalDateTime floor = createdAt.isEmpty() || createdAt.get(0) == null
+                ? null
+                : createdAt.get(0).toLocalDateTime().minusDays(1);
+        if (floor == null || (from != null && from.isAfter(floor))) {
+            floor = from;
+        }
+        return tables(floor, to);
+    }
+
+    public List<LocalDate> daysBefore(LocalDate cutoff) {
+        return List.copyOf(days.headSet(cutoff, false));
+    }
+
+    public void drop(LocalDate day) {
+        String table = tableName(day);
+        synchronized (days) {
+            days.remove(day);
+            ddlTransaction.executeWithoutResult(status -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + table));
+        }
+        logger.info("Dropped location history partition {}", table);
+    }
+
+    public static String tableName(LocalDate day) {
+        return PREFIX + day.format(SUFFIX_FORMAT);
+    }
+
+    private String ensure(LocalDate day) {
+        String table = tableName(day);
+        if (days.contains(day)) {
+            return table;
+        }
+        synchronized (days) {
+            if (!days.contains(day)) {
+                ddlTransaction.executeWithoutResult(status -> createTable(table));
+                days.add(day);
+            }
+        }
+        return table;
+    }
+
+    private void createTable(String table) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                "id BIGINT DEFAULT NEXT VALUE FOR " + SEQUENCE + " PRIMARY KEY, " +
+                "package_id BIGINT NOT NULL, " +
+                "courier_id BIGINT NOT NULL, " +
+                "courier_username VARCHAR(255), " +
+                "latitude DOUBLE PRECISION NOT NULL, " +
+                "longitude DOUBLE PRECISION NOT NULL, " +
+                "zone VARCHAR(255), " +
+                "timestamp TIMESTAMP(6) NOT NULL)");
+        createIndexes(table);
+        logger.info("Created location history partition {}", table);
+    }
+
+    // Indexes follow the history page order (timestamp, package_id, id); partitions created before that order was
+    // introduced swap their (timestamp, id) indexes for these when loaded
+    private void createIndexes(String table) {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + table + "_courier");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + table + "_time");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_package ON " + table + " (package_id, timestamp, id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_courier_key ON " + table + " (courier_id, timestamp, package_id, id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + table + "_time_key ON " + table + " (timestamp, package_id, id)");
+    }
+
+    // Rows written before partitioning keep their ids and move into the partition of their day
+    private void migrateLegacyRows() {
+        List<java.sql.Date> legacyDays = jdbcTemplate.queryForList(
+                "SELECT DISTINCT CAST(timestamp AS DATE) FROM " + LEGACY_TABLE, java.sql.Date.class);
+        for (java.sql.Date legacyDay : legacyDays) {
+            LocalDate day = legacyDay.toLocalDate();
+            String table = ensure(day);
+            Timestamp start = Timestamp.valueOf(day.atStartOfDay());
+            Timestamp end = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+            Integer moved = transactionTemplate.execute(status -> {
+                int inserted = jdbcTemplate.update("INSERT INTO " + table + " (" + COLUMNS + ") SELECT " + COLUMNS +
+                        " FROM " + LEGACY_TABLE + " WHERE timestamp >= ? AND timestamp < ?", start, end);
+                jdbcTemplate.update("DELETE FROM " + LEGACY_TABLE + " WHERE timestamp >= ? AND timestamp < ?", start, end);
+                return inserted;
+            });
+            logger.info("Moved {} legacy location history rows into {}", moved, table);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.courierdistributionsystem.repository.jpa;
+
+import com.example.courierdistributionsystem.model.CompressedTrack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CompressedTrackRepository extends JpaRepository<CompressedTrack, Long> {
+}
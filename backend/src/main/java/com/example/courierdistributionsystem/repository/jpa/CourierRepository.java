@@ -17,14 +17,6 @@ public interface CourierRepository extends JpaRepository<Courier, Long> {
     Optional<Courier> findByEmail(String email);
     List<Courier> findByCurrentZone(String zone);
     
-    @Query("SELECT c FROM Courier c WHERE c.available = true AND " +
-           "ST_Distance_Sphere(point(c.currentLongitude, c.currentLatitude), " +
-           "point(:longitude, :latitude)) <= :radiusMeters")
-    List<Courier> findAvailableCouriersNearby(
-            @Param("latitude") Double latitude,
-            @Param("longitude") Double longitude,
-            @Param("radiusMeters") Double radiusMeters);
-    
     @Query("SELECT c FROM Courier c WHERE c.available = true AND c.currentZone = :zone")
     List<Courier> findAvailableCouriersByZone(@Param("zone") String zone);
 } 
\ No newline at end of file
@@ -4,7 +4,12 @@ import com.example.courierdistributionsystem.model.DeliveryPackage;
 import com.example.courierdistributionsystem.model.Customer;
 import com.example.courierdistributionsystem.model.Courier;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,4 +33,14 @@ public interface DeliveryPackageRepository extends JpaRepository<DeliveryPackage
     Optional<DeliveryPackage> findByIdAndCustomer_Username(Long id, String username);
     Optional<DeliveryPackage> findByIdAndCourier_Username(Long id, String username);
     List<DeliveryPackage> findByDescriptionContainingIgnoreCase(String query);
-} 
\ No newline at end of file
+
+    // Only packages still pending and unassigned are claimed; callers compare the count to what they asked for.
+    // The row locks taken here hold off competing claims until the caller's transaction ends.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE DeliveryPackage p SET p.courier = :courier, p.updatedAt = :now, p.version = p.version + 1 " +
+           "WHERE p.package_id IN :packageIds AND p.status = :pending AND p.courier IS NULL")
+    int claimPending(@Param("packageIds") Collection<Long> packageIds,
+                     @Param("courier") Courier courier,
+                     @Param("pending") DeliveryPackage.DeliveryStatus pending,
+                     @Param("now") LocalDateTime now);
+}
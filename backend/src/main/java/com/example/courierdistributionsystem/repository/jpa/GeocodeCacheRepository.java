@@ -0,0 +1,13 @@
+package com.example.courierdistributionsystem.repository.jpa;
+
+import com.example.courierdistributionsystem.model.GeocodeCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GeocodeCacheRepository extends JpaRepository<GeocodeCacheEntry, String> {
+    List<GeocodeCacheEntry> findAllByOrderByLastUsedAtDesc(Pageable pageable);
+}
@@ -0,0 +1,15 @@
+package com.example.courierdistributionsystem.repository.jpa;
+
+import com.example.courierdistributionsystem.model.PackageEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PackageEventRepository extends JpaRepository<PackageEvent, Long> {
+    @Query("SELECT e FROM PackageEvent e LEFT JOIN FETCH e.courier WHERE e.deliveryPackage.package_id = :packageId ORDER BY e.id")
+    List<PackageEvent> findTimeline(@Param("packageId") Long packageId);
+}
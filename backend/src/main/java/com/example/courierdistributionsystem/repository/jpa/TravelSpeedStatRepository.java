@@ -0,0 +1,9 @@
+package com.example.courierdistributionsystem.repository.jpa;
+
+import com.example.courierdistributionsystem.model.TravelSpeedStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TravelSpeedStatRepository extends JpaRepository<TravelSpeedStat, String> {
+}
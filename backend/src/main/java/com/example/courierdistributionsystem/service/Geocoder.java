@@ -0,0 +1,13 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.GeocodeResult;
+
+import java.util.Optional;
+
+// Geocoding provider SPI; the active implementation is selected with app.geocoding.provider.
+// Addresses arrive already normalized, and results are cached by the caller.
+public interface Geocoder {
+    String getName();
+
+    Optional<GeocodeResult> geocode(String normalizedAddress);
+}
@@ -0,0 +1,17 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.BulkImportSummaryDto;
+import com.example.courierdistributionsystem.dto.BulkPackageRowDto;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface IBulkPackageImportService {
+    enum Format {
+        NDJSON,
+        CSV
+    }
+
+    // Reads the upload as a stream and hands each row's outcome to the sink, in row order, once its batch is stored
+    BulkImportSummaryDto importPackages(Long customerId, Format format, InputStream input, Consumer<BulkPackageRowDto> sink);
+}
@@ -2,6 +2,7 @@ package com.example.courierdistributionsystem.service;
 
 import com.example.courierdistributionsystem.dto.CourierDto;
 import com.example.courierdistributionsystem.dto.LocationUpdateDto;
+import com.example.courierdistributionsystem.dto.NearbyCourierDto;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -12,6 +13,8 @@ public interface ICourierService {
     CourierDto updateCourierLocation(String username, LocationUpdateDto location);
     CourierDto updateCourierAvailability(String username, boolean available);
     List<CourierDto> getCouriersByZone(String zone);
+    List<NearbyCourierDto> findNearestAvailableCouriers(double latitude, double longitude, int limit, double maxRadiusMeters);
+    List<NearbyCourierDto> findAvailableCouriersWithin(double latitude, double longitude, double radiusMeters);
     Map<String, Object> getCourierStats(String username);
     CourierDto updateCourierProfile(String username, Map<String, String> updates);
     void deleteCourier(String username);
@@ -25,6 +25,7 @@ public interface IDeliveryPackageService {
     List<DeliveryPackageDto> getCourierActiveDeliveryPackages(String username);
     List<DeliveryPackageDto> getCustomerDeliveryPackages(String username);
     DeliveryPackageDto takeDeliveryPackage(Long packageId, String username);
+    List<DeliveryPackageDto> claimDeliveryPackages(List<Long> packageIds, String username);
     DeliveryPackageDto dropDeliveryPackage(Long packageId, String username);
     DeliveryPackageDto updateDeliveryStatus(Long packageId, String username, DeliveryPackage.DeliveryStatus status);
 } 
\ No newline at end of file
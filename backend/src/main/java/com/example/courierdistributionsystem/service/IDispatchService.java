@@ -0,0 +1,5 @@
+package com.example.courierdistributionsystem.service;
+
+public interface IDispatchService {
+    int dispatch();
+}
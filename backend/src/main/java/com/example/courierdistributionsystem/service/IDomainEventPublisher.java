@@ -0,0 +1,13 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.event.PackageLifecycleEvent;
+
+public interface IDomainEventPublisher {
+    // Held until the surrounding transaction commits and dropped if it rolls back; never blocks the caller
+    void publishAfterCommit(PackageLifecycleEvent event);
+
+    int getQueueDepth();
+
+    // Publishes everything already queued on the calling thread
+    void flush();
+}
@@ -0,0 +1,10 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.EtaDto;
+
+import java.util.Optional;
+
+public interface IEtaService {
+    Optional<EtaDto> estimate(String trackingNumber);
+    void release(long packageId);
+}
@@ -0,0 +1,13 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.GeocodeResult;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface IGeocodingService {
+    Optional<GeocodeResult> geocode(String address);
+    void geocodePackage(Long packageId);
+    void geocodePackages(List<Long> packageIds);
+    int backfillPackages();
+}
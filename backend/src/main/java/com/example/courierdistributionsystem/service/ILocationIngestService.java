@@ -0,0 +1,11 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.LocationPing;
+
+public interface ILocationIngestService {
+    boolean offer(LocationPing ping);
+    void submit(LocationPing ping);
+    int getQueueDepth();
+    void flush();
+    void forgetCourier(String username);
+}
@@ -0,0 +1,12 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.DeliveryPackageDto;
+import com.example.courierdistributionsystem.dto.PackageBundleDto;
+
+import java.util.List;
+
+public interface IPackageBundlingService {
+    List<PackageBundleDto> getAvailableBundles(String username);
+
+    List<DeliveryPackageDto> claimBundle(String username, List<Long> packageIds);
+}
@@ -0,0 +1,16 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.PackageEventDto;
+
+import java.util.List;
+
+public interface IPackageEventService {
+    // Status timeline of one package, oldest first, read straight from its event stream
+    List<PackageEventDto> getTimeline(Long packageId);
+
+    // Applies events recorded since the last run to the courier delivery history; returns how many were read
+    int project();
+
+    // Replays the whole stream into the courier delivery history
+    int rebuildProjections();
+}
@@ -0,0 +1,9 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.RouteStopDto;
+
+import java.util.List;
+
+public interface IRouteSequencingService {
+    List<RouteStopDto> getRoute(String username);
+}
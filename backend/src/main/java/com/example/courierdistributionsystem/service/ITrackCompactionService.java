@@ -0,0 +1,12 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.model.LocationHistory;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ITrackCompactionService {
+    void requestCompaction(Long packageId);
+    int compact(Long packageId);
+    int rollUpPartition(LocalDate day);
+    List<LocationHistory> loadTrack(Long packageId);
+}
@@ -0,0 +1,15 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.ZoneLoadSnapshotDto;
+
+import java.util.Collection;
+
+public interface IZoneLoadService {
+    ZoneLoadSnapshotDto snapshot();
+
+    // Called after a package is created, changes status or location, or is deleted
+    void refreshPackage(Long packageId);
+
+    // Bulk-created packages have no position yet, so they are counted without a database round trip
+    void packagesCreated(Collection<Long> packageIds);
+}
@@ -1,10 +1,19 @@
 package com.example.courierdistributionsystem.service;
 
+import com.example.courierdistributionsystem.dto.LocationHistoryPageDto;
 import com.example.courierdistributionsystem.dto.LocationUpdateDto;
+import com.example.courierdistributionsystem.dto.PackageLocationDto;
 import com.example.courierdistributionsystem.model.LocationHistory;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface LocationHistoryService {
     LocationHistory saveLocationUpdate(LocationUpdateDto locationUpdate, String courierUsername);
+    PackageLocationDto recordLocationUpdate(LocationUpdateDto locationUpdate, String courierUsername);
     List<LocationHistory> getLocationHistory(String trackingNumber);
+    List<LocationHistory> getPackageLocationHistory(Long packageId);
+    LocationHistoryPageDto getLocationHistoryPage(String trackingNumber, LocalDateTime from, LocalDateTime to, String cursor, int limit);
+    LocationHistoryPageDto getPackageLocationHistoryPage(Long packageId, LocalDateTime from, LocalDateTime to, String cursor, int limit);
+    LocationHistoryPageDto getCourierLocationHistoryPage(Long courierId, LocalDateTime from, LocalDateTime to, String cursor, int limit);
+    LocationHistoryPageDto getAllLocationHistoryPage(LocalDateTime from, LocalDateTime to, String cursor, int limit);
 } 
\ No newline at end of file
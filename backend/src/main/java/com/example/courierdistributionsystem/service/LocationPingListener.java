@@ -0,0 +1,7 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.dto.LocationPing;
+
+public interface LocationPingListener {
+    void onLocationPing(LocationPing ping);
+}
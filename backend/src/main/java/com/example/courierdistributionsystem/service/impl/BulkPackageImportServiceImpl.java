@@ -0,0 +1,395 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.BulkImportSummaryDto;
+import com.example.courierdistributionsystem.dto.BulkPackageRowDto;
+import com.example.courierdistributionsystem.dto.CreatePackageDto;
+import com.example.courierdistributionsystem.exception.BulkImportException;
+import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
+import com.example.courierdistributionsystem.repository.jpa.CustomerRepository;
+import com.example.courierdistributionsystem.service.IBulkPackageImportService;
+import com.example.courierdistributionsystem.service.IGeocodingService;
+import com.example.courierdistributionsystem.service.IZoneLoadService;
+import com.example.courierdistributionsystem.utils.CsvRecordReader;
+import com.example.courierdistributionsystem.utils.TrackingNumberGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Creates packages from NDJSON or CSV uploads without going through JPA. Identity keys rule out Hibernate insert
+// batching, so rows are written as JDBC batches and the driver returns the generated keys of a whole batch in one
+// round trip. Only one batch of rows is held at a time and each batch commits on its own, so a bad row is
+// reported and skipped instead of failing the upload.
+@Service
+public class BulkPackageImportServiceImpl implements IBulkPackageImportService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkPackageImportServiceImpl.class);
+
+    private static final String INSERT_PACKAGE_SQL =
+            "INSERT INTO delivery_packages (tracking_number, customer_id, pickup_address, delivery_address, weight, " +
+            "description, special_instructions, status, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 'PENDING', ?, ?, 0)";
+    private static final String INSERT_CREATED_EVENT_SQL =
+            "INSERT INTO package_events (package_id, type, status, notes, occurred_at) " +
+            "VALUES (?, 'CREATED', 'PENDING', 'Package created', ?)";
+    // Width of the text columns Hibernate created for delivery_packages
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final Set<String> REQUIRED_CSV_COLUMNS = Set.of("pickupaddress", "deliveryaddress", "weight", "description");
+
+    private final CustomerRepository customerRepository;
+    private final IZoneLoadService zoneLoadService;
+    private final IGeocodingService geocodingService;
+    private final TrackingNumberGenerator trackingNumberGenerator;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter createdCounter;
+    private final Counter rejectedCounter;
+    private final Timer batchTimer;
+
+    @Value("${app.bulk-import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.bulk-import.max-row-chars:16384}")
+    private int maxRowChars;
+
+    @Autowired
+    public BulkPackageImportServiceImpl(CustomerRepository customerRepository,
+                                        IZoneLoadService zoneLoadService,
+                                        IGeocodingService geocodingService,
+                                        TrackingNumberGenerator trackingNumberGenerator,
+                                        ObjectMapper objectMapper,
+                                        Validator validator,
+                                        JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.zoneLoadService = zoneLoadService;
+        this.geocodingService = geocodingService;
+        this.trackingNumberGenerator = trackingNumberGenerator;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.createdCounter = Counter.builder("packages.bulk.rows")
+                .description("Rows of bulk package uploads, by outcome")
+                .tag("outcome", "created")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("packages.bulk.rows")
+                .description("Rows of bulk package uploads, by outcome")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("packages.bulk.batch.latency")
+                .description("Time taken to store one batch of bulk-created packages")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public BulkImportSummaryDto importPackages(Long customerId, Format format, InputStream input,
+                                               Consumer<BulkPackageRowDto> sink) {
+        if (!customerRepository.existsById(customerId)) {
+            throw new ResourceNotFoundException("Customer not found with id: " + customerId);
+        }
+        long started = System.nanoTime();
+        Import upload = new Import(customerId, sink);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            if (format == Format.CSV) {
+                readCsv(reader, upload);
+            } else {
+                readNdjson(reader, upload);
+            }
+        } catch (IOException e) {
+            // Rows already read are still stored and reported; the rest of the upload is lost
+            upload.flush();
+            throw new UncheckedIOException("Bulk upload aborted after " + upload.rows + " rows", e);
+        }
+        upload.flush();
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        logger.info("Bulk upload for customer {}: {} created, {} rejected in {} ms",
+                customerId, upload.created, upload.rejected, elapsedMs);
+        return new BulkImportSummaryDto(upload.created + upload.rejected, upload.created, upload.rejected, elapsedMs);
+    }
+
+    // One JSON object per line; blank lines are skipped but still count towards row numbers
+    private void readNdjson(BufferedReader reader, Import upload) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            long row = upload.rows + 1;
+            if (line.isBlank()) {
+                upload.skip();
+            } else if (line.length() > maxRowChars) {
+                upload.reject(row, "Row is longer than " + maxRowChars + " characters");
+            } else {
+                try {
+                    upload.accept(row, objectMapper.readValue(line, CreatePackageDto.class));
+                } catch (JsonProcessingException e) {
+                    upload.reject(row, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    // The header names the columns, in any order and case, with or without separators (pickup_address)
+    private void readCsv(BufferedReader reader, Import upload) throws IOException {
+        CsvRecordReader records = new CsvRecordReader(reader, maxRowChars);
+        List<String> header;
+        try {
+            header = records.next();
+        } catch (CsvRecordReader.MalformedRecordException e) {
+            throw new BulkImportException("Unreadable CSV header: " + e.getMessage());
+        }
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replaceAll("[^A-Za-z]", "").toLowerCase(Locale.ROOT);
+            columns.putIfAbsent(name.equals("destinationaddress") ? "deliveryaddress" : name, i);
+        }
+        List<String> missing = REQUIRED_CSV_COLUMNS.stream()
+                .filter(column -> !columns.containsKey(column))
+                .sorted()
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new BulkImportException("CSV header is missing columns: " + String.join(", ", missing));
+        }
+
+        while (true) {
+            long row = upload.rows + 1;
+            List<String> record;
+            try {
+                record = records.next();
+            } catch (CsvRecordReader.MalformedRecordException e) {
+                upload.reject(row, e.getMessage());
+                continue;
+            }
+            if (record == null) {
+                return;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                upload.skip();
+                continue;
+            }
+            CreatePackageDto packageDto = new CreatePackageDto();
+            packageDto.setPickupAddress(field(record, columns, "pickupaddress"));
+            packageDto.setDeliveryAddress(field(record, columns, "deliveryaddress"));
+            packageDto.setDescription(field(record, columns, "description"));
+            packageDto.setSpecialInstructions(field(record, columns, "specialinstructions"));
+            String weight = field(record, columns, "weight");
+            if (weight != null) {
+                try {
+                    packageDto.setWeight(Double.valueOf(weight));
+                } catch (NumberFormatException e) {
+                    upload.reject(row, "weight: not a number");
+                    continue;
+                }
+            }
+            upload.accept(row, packageDto);
+        }
+    }
+
+    // Blank cells read as missing so they fail the same checks as absent JSON properties
+    private static String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private String validate(CreatePackageDto packageDto) {
+        Set<ConstraintViolation<CreatePackageDto>> violations = validator.validate(packageDto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (tooLong(packageDto.getPickupAddress()) || tooLong(packageDto.getDeliveryAddress())
+                || tooLong(packageDto.getDescription()) || tooLong(packageDto.getSpecialInstructions())) {
+            return "Text fields may not be longer than " + MAX_TEXT_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static boolean tooLong(String value) {
+        return value != null && value.length() > MAX_TEXT_LENGTH;
+    }
+
+    private List<Long> insertPackages(Long customerId, List<Row> rows, Timestamp now) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PACKAGE_SQL, new String[] {"package_id"})) {
+                for (Row row : rows) {
+                    CreatePackageDto packageDto = row.packageDto;
+                    statement.setString(1, row.trackingNumber);
+                    statement.setLong(2, customerId);
+                    statement.setString(3, packageDto.getPickupAddress());
+                    statement.setString(4, packageDto.getDeliveryAddress());
+                    statement.setDouble(5, packageDto.getWeight());
+                    statement.setString(6, packageDto.getDescription());
+                    if (packageDto.getSpecialInstructions() != null) {
+                        statement.setString(7, packageDto.getSpecialInstructions());
+                    } else {
+                        statement.setNull(7, Types.VARCHAR);
+                    }
+                    statement.setTimestamp(8, now);
+                    statement.setTimestamp(9, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                List<Long> ids = new ArrayList<>(rows.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                if (ids.size() != rows.size()) {
+                    throw new IllegalStateException("Expected " + rows.size() + " generated keys but got " + ids.size());
+                }
+                return ids;
+            }
+        });
+    }
+
+    private static class Row {
+        private final long number;
+        private final CreatePackageDto packageDto;
+        private String trackingNumber;
+        private Long packageId;
+        private String error;
+
+        Row(long number, CreatePackageDto packageDto, String error) {
+            this.number = number;
+            this.packageDto = packageDto;
+            this.error = error;
+        }
+    }
+
+    // State of one upload: the rows read since the last flush and the running totals
+    private class Import {
+        private final Long customerId;
+        private final Consumer<BulkPackageRowDto> sink;
+        private final List<Row> window = new ArrayList<>();
+        // Rows read so far, blank ones included, so row numbers match the upload's lines
+        private long rows;
+        private long created;
+        private long rejected;
+
+        Import(Long customerId, Consumer<BulkPackageRowDto> sink) {
+            this.customerId = customerId;
+            this.sink = sink;
+        }
+
+        void skip() {
+            rows++;
+        }
+
+        void accept(long row, CreatePackageDto packageDto) {
+            add(new Row(row, packageDto, validate(packageDto)));
+        }
+
+        void reject(long row, String error) {
+            add(new Row(row, null, error));
+        }
+
+        private void add(Row row) {
+            rows++;
+            window.add(row);
+            if (window.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (window.isEmpty()) {
+                return;
+            }
+            List<Row> valid = window.stream().filter(row -> row.error == null).collect(Collectors.toList());
+            if (!valid.isEmpty()) {
+                store(valid);
+            }
+            for (Row row : window) {
+                if (row.error == null) {
+                    created++;
+                    createdCounter.increment();
+                    sink.accept(BulkPackageRowDto.created(row.number, row.packageId, row.trackingNumber));
+                } else {
+                    rejected++;
+                    rejectedCounter.increment();
+                    sink.accept(BulkPackageRowDto.rejected(row.number, row.error));
+                }
+            }
+            window.clear();
+        }
+
+        private void store(List<Row> valid) {
+            valid.forEach(row -> row.trackingNumber = trackingNumberGenerator.next());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try {
+                List<Long> ids = batchTimer.record(() -> transactionTemplate.execute(status -> {
+                    List<Long> packageIds = insertPackages(customerId, valid, now);
+                    jdbcTemplate.batchUpdate(INSERT_CREATED_EVENT_SQL, packageIds.stream()
+                            .map(packageId -> new Object[] {packageId, now})
+                            .collect(Collectors.toList()));
+                    return packageIds;
+                }));
+                for (int i = 0; i < valid.size(); i++) {
+                    valid.get(i).packageId = ids.get(i);
+                }
+                zoneLoadService.packagesCreated(ids);
+                requestGeocoding(ids);
+            } catch (DataAccessException | IllegalStateException e) {
+                logger.error("Failed to store a batch of {} bulk packages: {}", valid.size(), e.getMessage(), e);
+                valid.forEach(row -> row.error = "Could not be stored, retry the row");
+            }
+        }
+
+        // The committed batch is geocoded as one async task rather than one per row; if the executor is saturated
+        // the backfill sweep catches up
+        private void requestGeocoding(List<Long> packageIds) {
+            try {
+                geocodingService.geocodePackages(packageIds);
+            } catch (TaskRejectedException e) {
+                logger.warn("Geocoding of {} bulk packages deferred to backfill: {}", packageIds.size(), e.getMessage());
+            }
+        }
+    }
+}
@@ -1,21 +1,28 @@
 package com.example.courierdistributionsystem.service.impl;
 
 import com.example.courierdistributionsystem.dto.CourierDto;
+import com.example.courierdistributionsystem.dto.LocationPing;
 import com.example.courierdistributionsystem.dto.LocationUpdateDto;
+import com.example.courierdistributionsystem.dto.NearbyCourierDto;
+import com.example.courierdistributionsystem.exception.PackageClaimException;
 import com.example.courierdistributionsystem.model.Courier;
 import com.example.courierdistributionsystem.model.DeliveryPackage;
-import com.example.courierdistributionsystem.model.LocationHistory;
+import com.example.courierdistributionsystem.registry.CourierDistanceTracker;
+import com.example.courierdistributionsystem.registry.CourierLiveStateRegistry;
+import com.example.courierdistributionsystem.registry.PackageAssignmentTable;
 import com.example.courierdistributionsystem.repository.jpa.CourierRepository;
 import com.example.courierdistributionsystem.repository.jpa.DeliveryPackageRepository;
-import com.example.courierdistributionsystem.repository.jpa.LocationHistoryRepository;
 import com.example.courierdistributionsystem.service.ICourierService;
+import com.example.courierdistributionsystem.service.ILocationIngestService;
+import com.example.courierdistributionsystem.service.IZoneLoadService;
 import com.example.courierdistributionsystem.mapper.CourierMapper;
+import com.example.courierdistributionsystem.utils.TransactionUtils;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,80 +35,92 @@ public class CourierServiceImpl implements ICourierService {
     private static final Logger logger = LoggerFactory.getLogger(CourierServiceImpl.class);
 
     private final CourierRepository courierRepository;
-    private final LocationHistoryRepository locationHistoryRepository;
     private final DeliveryPackageRepository deliveryPackageRepository;
     private final CourierMapper courierMapper;
+    private final ILocationIngestService locationIngestService;
+    private final CourierLiveStateRegistry courierRegistry;
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final CourierDistanceTracker courierDistanceTracker;
+    private final IZoneLoadService zoneLoadService;
+
+    private final Counter assignClaims;
+    private final Counter assignConflicts;
 
     @Autowired
     public CourierServiceImpl(
             CourierRepository courierRepository,
-            LocationHistoryRepository locationHistoryRepository,
             DeliveryPackageRepository deliveryPackageRepository,
-            CourierMapper courierMapper) {
+            CourierMapper courierMapper,
+            ILocationIngestService locationIngestService,
+            CourierLiveStateRegistry courierRegistry,
+            PackageAssignmentTable packageAssignmentTable,
+            CourierDistanceTracker courierDistanceTracker,
+            IZoneLoadService zoneLoadService,
+            MeterRegistry meterRegistry) {
         this.courierRepository = courierRepository;
-        this.locationHistoryRepository = locationHistoryRepository;
         this.deliveryPackageRepository = deliveryPackageRepository;
         this.courierMapper = courierMapper;
+        this.locationIngestService = locationIngestService;
+        this.courierRegistry = courierRegistry;
+        this.packageAssignmentTable = packageAssignmentTable;
+        this.courierDistanceTracker = courierDistanceTracker;
+        this.zoneLoadService = zoneLoadService;
+
+        this.assignClaims = Counter.builder("package.claims")
+                .description("Attempts to claim pending packages, by claim path and whether the claim won")
+                .tag("path", "assign")
+                .tag("outcome", "won")
+                .register(meterRegistry);
+        this.assignConflicts = Counter.builder("package.claims")
+                .description("Attempts to claim pending packages, by claim path and whether the claim won")
+                .tag("path", "assign")
+                .tag("outcome", "conflict")
+                .register(meterRegistry);
     }
 
     @Override
-    @Cacheable(value = "couriers", key = "'available'")
     public List<CourierDto> getAllAvailableCouriers() {
         logger.debug("Fetching all available couriers");
-        return courierRepository.findByAvailableTrue().stream()
-                .map(courierMapper::toDto)
-                .collect(Collectors.toList());
+        return courierRegistry.findAvailable();
     }
 
     @Override
-    @Cacheable(value = "couriers", key = "#username")
     public Optional<CourierDto> getCourierByUsername(String username) {
         logger.debug("Fetching courier by username: {}", username);
+        Optional<CourierDto> live = courierRegistry.findByUsername(username);
+        if (live.isPresent()) {
+            return live;
+        }
         return courierRepository.findByUsername(username)
-                .map(courierMapper::toDto);
+                .map(this::registerAndConvert);
     }
 
     @Override
-    @CacheEvict(value = "couriers", allEntries = true)
-    @Transactional
     public CourierDto updateCourierLocation(String username, LocationUpdateDto location) {
         logger.debug("Updating location for courier: {}", username);
-        Courier courier = courierRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Courier not found"));
-
-        courier.setCurrentLatitude(location.getLatitude());
-        courier.setCurrentLongitude(location.getLongitude());
-        courier.setCurrentZone(location.getZone());
-
-        // Find current active delivery package
-        DeliveryPackage activeDelivery = deliveryPackageRepository.findByCourierAndStatus(
-            courier, DeliveryPackage.DeliveryStatus.IN_PROGRESS)
-            .stream()
-            .findFirst()
-            .orElse(null);
-
-        LocationHistory locationHistory = LocationHistory.builder()
-                .courier(courier)
-                .deliveryPackage(activeDelivery)
+        Long courierId = courierRegistry.findCourierId(username)
+                .orElseGet(() -> courierRepository.findByUsername(username)
+                        .map(courier -> {
+                            courierRegistry.register(courier);
+                            return courier.getId();
+                        })
+                        .orElseThrow(() -> new RuntimeException("Courier not found")));
+
+        // The registry picks the position up on submit; history rows are written by the batched ingest pipeline
+        locationIngestService.submit(LocationPing.builder()
+                .courierUsername(username)
+                .courierId(courierId)
                 .latitude(location.getLatitude())
                 .longitude(location.getLongitude())
                 .zone(location.getZone())
-                .timestamp(LocalDateTime.now())
-                .build();
-
-        locationHistoryRepository.save(locationHistory);
-        
-        // Update package location if there's an active delivery
-        if (activeDelivery != null) {
-            activeDelivery.updateLocation(location.getLatitude(), location.getLongitude(), location.getZone());
-            deliveryPackageRepository.save(activeDelivery);
-        }
+                .timestamp(location.getTimestamp() != null ? location.getTimestamp() : LocalDateTime.now())
+                .build());
 
-        return courierMapper.toDto(courierRepository.save(courier));
+        return courierRegistry.findById(courierId)
+                .orElseThrow(() -> new RuntimeException("Courier not found"));
     }
 
     @Override
-    @CacheEvict(value = "couriers", allEntries = true)
     @Transactional
     public CourierDto updateCourierAvailability(String username, boolean available) {
         logger.debug("Updating availability for courier: {} to {}", username, available);
@@ -109,16 +128,27 @@ public class CourierServiceImpl implements ICourierService {
                 .orElseThrow(() -> new RuntimeException("Courier not found"));
 
         courier.setAvailable(available);
-        return courierMapper.toDto(courierRepository.save(courier));
+        Courier saved = courierRepository.save(courier);
+        TransactionUtils.afterCommit(() -> courierRegistry.updateAvailability(saved.getId(), available));
+        return courierMapper.toDto(saved);
     }
 
     @Override
-    @Cacheable(value = "couriers", key = "'zone_' + #zone")
     public List<CourierDto> getCouriersByZone(String zone) {
         logger.debug("Fetching couriers in zone: {}", zone);
-        return courierRepository.findByCurrentZone(zone).stream()
-                .map(courierMapper::toDto)
-                .collect(Collectors.toList());
+        return courierRegistry.findByZone(zone);
+    }
+
+    @Override
+    public List<NearbyCourierDto> findNearestAvailableCouriers(double latitude, double longitude, int limit, double maxRadiusMeters) {
+        logger.debug("Finding {} nearest available couriers to ({}, {})", limit, latitude, longitude);
+        return courierRegistry.findNearestAvailable(latitude, longitude, limit, maxRadiusMeters);
+    }
+
+    @Override
+    public List<NearbyCourierDto> findAvailableCouriersWithin(double latitude, double longitude, double radiusMeters) {
+        logger.debug("Finding available couriers within {} m of ({}, {})", radiusMeters, latitude, longitude);
+        return courierRegistry.findAvailableWithin(latitude, longitude, radiusMeters);
     }
 
     @Override
@@ -142,7 +172,6 @@ public class CourierServiceImpl implements ICourierService {
     }
 
     @Override
-    @CacheEvict(value = "couriers", allEntries = true)
     @Transactional
     public CourierDto updateCourierProfile(String username, Map<String, String> updates) {
         logger.debug("Updating profile for courier: {}", username);
@@ -156,11 +185,12 @@ public class CourierServiceImpl implements ICourierService {
             courier.setVehicleType(updates.get("vehicleType"));
         }
 
-        return courierMapper.toDto(courierRepository.save(courier));
+        Courier saved = courierRepository.save(courier);
+        TransactionUtils.afterCommit(() -> courierRegistry.register(saved));
+        return courierMapper.toDto(saved);
     }
 
     @Override
-    @CacheEvict(value = "couriers", allEntries = true)
     @Transactional
     public void deleteCourier(String username) {
         logger.debug("Deleting courier: {}", username);
@@ -168,44 +198,49 @@ public class CourierServiceImpl implements ICourierService {
                 .orElseThrow(() -> new RuntimeException("Courier not found"));
 
         courierRepository.delete(courier);
+        TransactionUtils.afterCommit(() -> {
+            courierRegistry.remove(courier.getId());
+            locationIngestService.forgetCourier(username);
+        });
     }
 
     @Override
-    @Cacheable(value = "couriers", key = "'all'")
     public List<CourierDto> getAllCouriers() {
         logger.debug("Fetching all couriers");
-        return courierRepository.findAll().stream()
-                .map(courierMapper::toDto)
-                .collect(Collectors.toList());
+        return courierRegistry.findAll();
     }
 
     @Override
-    @Cacheable(value = "couriers", key = "'id_' + #id")
     public Optional<CourierDto> getCourierById(Long id) {
         logger.debug("Fetching courier by ID: {}", id);
+        Optional<CourierDto> live = courierRegistry.findById(id);
+        if (live.isPresent()) {
+            return live;
+        }
         return courierRepository.findById(id)
-                .map(courierMapper::toDto);
+                .map(this::registerAndConvert);
     }
 
     @Override
-    @CacheEvict(value = "couriers", allEntries = true)
     @Transactional
     public CourierDto createCourier(CourierDto courierDto) {
         logger.debug("Creating new courier: {}", courierDto.getUsername());
-        Courier courier = courierMapper.toEntity(courierDto);
-        return courierMapper.toDto(courierRepository.save(courier));
+        Courier courier = courierRepository.save(courierMapper.toEntity(courierDto));
+        TransactionUtils.afterCommit(() -> courierRegistry.register(courier));
+        return courierMapper.toDto(courier);
     }
 
     @Override
-    @CacheEvict(value = "couriers", allEntries = true)
     @Transactional
     public void updateCourierStatus(String username, String status) {
         logger.debug("Updating status for courier: {} to {}", username, status);
         Courier courier = courierRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Courier not found"));
 
-        courier.setAvailable("AVAILABLE".equalsIgnoreCase(status));
-        courierRepository.save(courier);
+        boolean available = "AVAILABLE".equalsIgnoreCase(status);
+        courier.setAvailable(available);
+        Courier saved = courierRepository.save(courier);
+        TransactionUtils.afterCommit(() -> courierRegistry.updateAvailability(saved.getId(), available));
     }
 
     @Override
@@ -252,16 +287,25 @@ public class CourierServiceImpl implements ICourierService {
         Courier courier = courierRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("Courier not found"));
 
-        DeliveryPackage deliveryPackage = deliveryPackageRepository.findById(deliveryId)
-                .orElseThrow(() -> new RuntimeException("Delivery package not found"));
-
-        if (deliveryPackage.getCourier() != null) {
-            throw new RuntimeException("Delivery package already assigned to a courier");
+        // Only one of several concurrent assignments can match the pending, unassigned row
+        if (deliveryPackageRepository.claimPending(List.of(deliveryId), courier,
+                DeliveryPackage.DeliveryStatus.PENDING, LocalDateTime.now()) == 0) {
+            if (!deliveryPackageRepository.existsById(deliveryId)) {
+                throw new RuntimeException("Delivery package not found");
+            }
+            assignConflicts.increment();
+            throw new PackageClaimException("Delivery package already assigned to a courier");
         }
+        assignClaims.increment();
 
-        deliveryPackage.setCourier(courier);
+        DeliveryPackage deliveryPackage = deliveryPackageRepository.findById(deliveryId)
+                .orElseThrow(() -> new RuntimeException("Delivery package not found"));
         deliveryPackage.setStatus(DeliveryPackage.DeliveryStatus.IN_PROGRESS);
-        deliveryPackageRepository.save(deliveryPackage);
+        DeliveryPackage saved = deliveryPackageRepository.save(deliveryPackage);
+        TransactionUtils.afterCommit(() -> {
+            packageAssignmentTable.track(saved);
+            zoneLoadService.refreshPackage(saved.getPackage_id());
+        });
     }
 
     @Override
@@ -277,7 +321,17 @@ public class CourierServiceImpl implements ICourierService {
 
         deliveryPackage.setCourier(null);
         deliveryPackage.setStatus(DeliveryPackage.DeliveryStatus.PENDING);
-        deliveryPackageRepository.save(deliveryPackage);
+        DeliveryPackage saved = deliveryPackageRepository.save(deliveryPackage);
+        TransactionUtils.afterCommit(() -> {
+            packageAssignmentTable.track(saved);
+            zoneLoadService.refreshPackage(saved.getPackage_id());
+        });
+    }
+
+    private CourierDto registerAndConvert(Courier courier) {
+        courierRegistry.register(courier);
+        return courierRegistry.findById(courier.getId())
+                .orElseGet(() -> courierMapper.toDto(courier));
     }
 
     private Map<String, Object> convertDeliveryToMap(DeliveryPackage delivery) {
@@ -309,14 +363,7 @@ public class CourierServiceImpl implements ICourierService {
     }
 
     private double calculateTotalDistance(Courier courier) {
-        return locationHistoryRepository.findByCourier(courier).stream()
-                .mapToDouble(this::calculateDistanceBetweenPoints)
-                .sum();
-    }
-
-    private double calculateDistanceBetweenPoints(LocationHistory location) {
-        // Implement distance calculation logic here
-        // This is a simplified version, you might want to implement actual distance calculation
-        return 0.0;
+        double persisted = courier.getTotalDistance() != null ? courier.getTotalDistance() : 0;
+        return persisted + courierDistanceTracker.getUnflushedCourierDistance(courier.getId());
     }
 } 
\ No newline at end of file
@@ -2,25 +2,47 @@ package com.example.courierdistributionsystem.service.impl;
 
 import com.example.courierdistributionsystem.dto.CreatePackageDto;
 import com.example.courierdistributionsystem.dto.DeliveryPackageDto;
+import com.example.courierdistributionsystem.dto.RouteStopDto;
+import com.example.courierdistributionsystem.event.PackageLifecycleEvent;
+import com.example.courierdistributionsystem.exception.PackageClaimException;
 import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
 import com.example.courierdistributionsystem.mapper.DeliveryPackageMapper;
 import com.example.courierdistributionsystem.model.DeliveryPackage;
+import com.example.courierdistributionsystem.model.Courier;
 import com.example.courierdistributionsystem.model.Customer;
-import com.example.courierdistributionsystem.model.DeliveryHistory;
+import com.example.courierdistributionsystem.model.PackageEvent;
+import com.example.courierdistributionsystem.registry.CourierDistanceTracker;
+import com.example.courierdistributionsystem.registry.PackageAssignmentTable;
+import com.example.courierdistributionsystem.registry.TravelSpeedStatistics;
 import com.example.courierdistributionsystem.repository.jpa.DeliveryPackageRepository;
 import com.example.courierdistributionsystem.repository.jpa.CourierRepository;
-import com.example.courierdistributionsystem.repository.jpa.DeliveryHistoryRepository;
 import com.example.courierdistributionsystem.service.IDeliveryPackageService;
+import com.example.courierdistributionsystem.service.IDomainEventPublisher;
+import com.example.courierdistributionsystem.service.IEtaService;
+import com.example.courierdistributionsystem.service.IGeofenceService;
+import com.example.courierdistributionsystem.service.IGeocodingService;
+import com.example.courierdistributionsystem.service.IRouteSequencingService;
+import com.example.courierdistributionsystem.service.ITrackCompactionService;
+import com.example.courierdistributionsystem.service.IZoneLoadService;
+import com.example.courierdistributionsystem.utils.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,17 +53,63 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
     private final DeliveryPackageRepository deliveryPackageRepository;
     private final DeliveryPackageMapper deliveryPackageMapper;
     private final CourierRepository courierRepository;
-    private final DeliveryHistoryRepository deliveryHistoryRepository;
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final ITrackCompactionService trackCompactionService;
+    private final CourierDistanceTracker courierDistanceTracker;
+    private final IGeocodingService geocodingService;
+    private final IRouteSequencingService routeSequencingService;
+    private final IEtaService etaService;
+    private final TravelSpeedStatistics travelSpeedStatistics;
+    private final IGeofenceService geofenceService;
+    private final IZoneLoadService zoneLoadService;
+    private final IDomainEventPublisher domainEventPublisher;
+
+    private final Counter takeClaims;
+    private final Counter takeConflicts;
+    private final Counter bundleClaims;
+    private final Counter bundleConflicts;
 
     @Autowired
     public DeliveryPackageServiceImpl(DeliveryPackageRepository deliveryPackageRepository,
                                     DeliveryPackageMapper deliveryPackageMapper,
                                     CourierRepository courierRepository,
-                                    DeliveryHistoryRepository deliveryHistoryRepository) {
+                                    PackageAssignmentTable packageAssignmentTable,
+                                    ITrackCompactionService trackCompactionService,
+                                    CourierDistanceTracker courierDistanceTracker,
+                                    IGeocodingService geocodingService,
+                                    IRouteSequencingService routeSequencingService,
+                                    IEtaService etaService,
+                                    TravelSpeedStatistics travelSpeedStatistics,
+                                    IGeofenceService geofenceService,
+                                    IZoneLoadService zoneLoadService,
+                                    IDomainEventPublisher domainEventPublisher,
+                                    MeterRegistry meterRegistry) {
         this.deliveryPackageRepository = deliveryPackageRepository;
         this.deliveryPackageMapper = deliveryPackageMapper;
         this.courierRepository = courierRepository;
-        this.deliveryHistoryRepository = deliveryHistoryRepository;
+        this.packageAssignmentTable = packageAssignmentTable;
+        this.trackCompactionService = trackCompactionService;
+        this.courierDistanceTracker = courierDistanceTracker;
+        this.geocodingService = geocodingService;
+        this.routeSequencingService = routeSequencingService;
+        this.etaService = etaService;
+        this.travelSpeedStatistics = travelSpeedStatistics;
+        this.geofenceService = geofenceService;
+        this.zoneLoadService = zoneLoadService;
+        this.domainEventPublisher = domainEventPublisher;
+
+        this.takeClaims = claimCounter(meterRegistry, "take", "won");
+        this.takeConflicts = claimCounter(meterRegistry, "take", "conflict");
+        this.bundleClaims = claimCounter(meterRegistry, "bundle", "won");
+        this.bundleConflicts = claimCounter(meterRegistry, "bundle", "conflict");
+    }
+
+    private static Counter claimCounter(MeterRegistry meterRegistry, String path, String outcome) {
+        return Counter.builder("package.claims")
+                .description("Attempts to claim pending packages, by claim path and whether the claim won")
+                .tag("path", path)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
@@ -58,6 +126,8 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
         deliveryPackage.setCreatedAt(LocalDateTime.now());
         
         DeliveryPackage savedPackage = deliveryPackageRepository.save(deliveryPackage);
+        requestGeocoding(savedPackage.getPackage_id());
+        TransactionUtils.afterCommit(() -> zoneLoadService.refreshPackage(savedPackage.getPackage_id()));
         return deliveryPackageMapper.toDto(savedPackage);
     }
 
@@ -87,12 +157,14 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
         }
         if (updates.containsKey("deliveryAddress")) {
             deliveryPackage.setDeliveryAddress(updates.get("deliveryAddress"));
+            requestGeocoding(id);
         }
         if (updates.containsKey("status")) {
             deliveryPackage.setStatus(DeliveryPackage.DeliveryStatus.valueOf(updates.get("status")));
         }
 
         DeliveryPackage updatedPackage = deliveryPackageRepository.save(deliveryPackage);
+        onStatusChanged(updatedPackage);
         return deliveryPackageMapper.toDto(updatedPackage);
     }
 
@@ -103,6 +175,10 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
             throw new ResourceNotFoundException("Delivery package not found with id: " + id);
         }
         deliveryPackageRepository.deleteById(id);
+        TransactionUtils.afterCommit(() -> {
+            packageAssignmentTable.release(id);
+            zoneLoadService.refreshPackage(id);
+        });
     }
 
     @Override
@@ -126,9 +202,13 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
     @Override
     public DeliveryPackageDto trackDeliveryPackage(Long packageId, String username) {
         logger.debug("Tracking package {} for customer: {}", packageId, username);
-        return deliveryPackageRepository.findByIdAndCustomer_Username(packageId, username)
+        DeliveryPackageDto dto = deliveryPackageRepository.findByIdAndCustomer_Username(packageId, username)
                 .map(deliveryPackageMapper::toDto)
                 .orElseThrow(() -> new ResourceNotFoundException("Package not found"));
+        if (dto.getStatus() == DeliveryPackage.DeliveryStatus.IN_PROGRESS) {
+            etaService.estimate(dto.getTrackingNumber()).ifPresent(dto::setEta);
+        }
+        return dto;
     }
 
     @Override
@@ -143,6 +223,8 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
 
         deliveryPackage.setStatus(DeliveryPackage.DeliveryStatus.CANCELLED);
         deliveryPackageRepository.save(deliveryPackage);
+        publishLifecycle(deliveryPackage, PackageEvent.Type.CANCELLED);
+        TransactionUtils.afterCommit(() -> zoneLoadService.refreshPackage(packageId));
     }
 
     @Override
@@ -166,9 +248,20 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
     @Override
     public List<DeliveryPackageDto> getCourierActiveDeliveryPackages(String username) {
         logger.debug("Fetching active delivery packages for courier: {}", username);
-        return deliveryPackageRepository.findByCourier_UsernameAndStatusIn(username, 
-                List.of(DeliveryPackage.DeliveryStatus.IN_PROGRESS))
-                .stream()
+        List<DeliveryPackage> packages = deliveryPackageRepository.findByCourier_UsernameAndStatusIn(username, 
+                List.of(DeliveryPackage.DeliveryStatus.IN_PROGRESS));
+        if (packages.size() < 2) {
+            return packages.stream().map(deliveryPackageMapper::toDto).collect(Collectors.toList());
+        }
+
+        // Packages come back in the order of their first stop on the courier's route
+        Map<Long, Integer> firstStop = new HashMap<>();
+        for (RouteStopDto stop : routeSequencingService.getRoute(username)) {
+            firstStop.putIfAbsent(stop.getPackageId(), stop.getSequence());
+        }
+        return packages.stream()
+                .sorted(Comparator.comparingInt(deliveryPackage ->
+                        firstStop.getOrDefault(deliveryPackage.getPackage_id(), Integer.MAX_VALUE)))
                 .map(deliveryPackageMapper::toDto)
                 .collect(Collectors.toList());
     }
@@ -182,37 +275,60 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
                 .collect(Collectors.toList());
     }
 
+    // The conditional update decides the winner; losers fail fast instead of overwriting each other's assignment
     @Override
     public DeliveryPackageDto takeDeliveryPackage(Long packageId, String username) {
         logger.debug("Courier {} taking delivery package with ID: {}", username, packageId);
-        DeliveryPackage deliveryPackage = deliveryPackageRepository.findById(packageId)
-                .orElseThrow(() -> new ResourceNotFoundException("Delivery package not found with id: " + packageId));
+        var courier = courierRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Courier not found"));
 
-        if (deliveryPackage.getStatus() != DeliveryPackage.DeliveryStatus.PENDING) {
-            throw new IllegalStateException("Package is not available for pickup");
+        LocalDateTime now = LocalDateTime.now();
+        if (deliveryPackageRepository.claimPending(List.of(packageId), courier, DeliveryPackage.DeliveryStatus.PENDING, now) == 0) {
+            if (!deliveryPackageRepository.existsById(packageId)) {
+                throw new ResourceNotFoundException("Delivery package not found with id: " + packageId);
+            }
+            takeConflicts.increment();
+            throw new PackageClaimException("Package is not available for pickup");
         }
+        takeClaims.increment();
+        return deliveryPackageMapper.toDto(markClaimed(List.of(packageId), now).get(0));
+    }
 
+    // All or nothing: one conditional update claims every package, and a partial claim rolls the transaction back
+    @Override
+    public List<DeliveryPackageDto> claimDeliveryPackages(List<Long> packageIds, String username) {
+        logger.debug("Courier {} claiming delivery packages {}", username, packageIds);
+        Set<Long> ids = new LinkedHashSet<>(packageIds);
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("No packages to claim");
+        }
         var courier = courierRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("Courier not found"));
-        
-        deliveryPackage.setCourier(courier);
-        deliveryPackage.setStatus(DeliveryPackage.DeliveryStatus.IN_PROGRESS);
-        deliveryPackage.setPickedUpAt(LocalDateTime.now());
-        DeliveryPackage updatedPackage = deliveryPackageRepository.save(deliveryPackage);
 
-        // Create delivery history entry
-        DeliveryHistory history = DeliveryHistory.builder()
-                .courier(courier)
-                .deliveryPackage(updatedPackage)
-                .status(DeliveryPackage.DeliveryStatus.IN_PROGRESS)
-                .pickupLocation(updatedPackage.getPickupAddress())
-                .deliveryLocation(updatedPackage.getDeliveryAddress())
-                .pickedUpAt(LocalDateTime.now())
-                .build();
-        
-        deliveryHistoryRepository.save(history);
+        LocalDateTime now = LocalDateTime.now();
+        if (deliveryPackageRepository.claimPending(ids, courier, DeliveryPackage.DeliveryStatus.PENDING, now) != ids.size()) {
+            bundleConflicts.increment();
+            throw new PackageClaimException("Packages are no longer available for pickup");
+        }
+        bundleClaims.increment();
+        return markClaimed(ids, now).stream()
+                .map(deliveryPackageMapper::toDto)
+                .collect(Collectors.toList());
+    }
 
-        return deliveryPackageMapper.toDto(updatedPackage);
+    // Runs after a successful claim, while its row locks are held, so the usual status bookkeeping cannot race
+    private List<DeliveryPackage> markClaimed(Collection<Long> packageIds, LocalDateTime now) {
+        List<DeliveryPackage> claimedPackages = deliveryPackageRepository.findAllById(packageIds);
+        for (DeliveryPackage deliveryPackage : claimedPackages) {
+            deliveryPackage.setStatus(DeliveryPackage.DeliveryStatus.IN_PROGRESS);
+            deliveryPackage.setPickedUpAt(now);
+        }
+        claimedPackages = deliveryPackageRepository.saveAll(claimedPackages);
+        for (DeliveryPackage deliveryPackage : claimedPackages) {
+            onStatusChanged(deliveryPackage);
+            publishLifecycle(deliveryPackage, PackageEvent.Type.PICKED_UP);
+        }
+        return claimedPackages;
     }
 
     @Override
@@ -228,19 +344,8 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
         deliveryPackage.setStatus(DeliveryPackage.DeliveryStatus.DELIVERED);
         deliveryPackage.setDeliveredAt(LocalDateTime.now());
         DeliveryPackage updatedPackage = deliveryPackageRepository.save(deliveryPackage);
-
-        // Create delivery history entry
-        DeliveryHistory history = DeliveryHistory.builder()
-                .courier(deliveryPackage.getCourier())
-                .deliveryPackage(updatedPackage)
-                .status(DeliveryPackage.DeliveryStatus.DELIVERED)
-                .pickupLocation(updatedPackage.getPickupAddress())
-                .deliveryLocation(updatedPackage.getDeliveryAddress())
-                .pickedUpAt(deliveryPackage.getPickedUpAt())
-                .completedAt(LocalDateTime.now())
-                .build();
-        
-        deliveryHistoryRepository.save(history);
+        onStatusChanged(updatedPackage);
+        publishLifecycle(updatedPackage, PackageEvent.Type.DELIVERED);
 
         return deliveryPackageMapper.toDto(updatedPackage);
     }
@@ -261,26 +366,67 @@ public class DeliveryPackageServiceImpl implements IDeliveryPackageService {
         }
 
         DeliveryPackage updatedPackage = deliveryPackageRepository.save(deliveryPackage);
+        onStatusChanged(updatedPackage);
 
-        // Create delivery history entry
-        DeliveryHistory history = DeliveryHistory.builder()
-                .courier(deliveryPackage.getCourier())
-                .deliveryPackage(updatedPackage)
-                .status(status)
-                .pickupLocation(updatedPackage.getPickupAddress())
-                .deliveryLocation(updatedPackage.getDeliveryAddress())
-                .pickedUpAt(deliveryPackage.getPickedUpAt())
-                .build();
-
-        // Set appropriate timestamps based on status
-        switch (status) {
-            case IN_PROGRESS -> history.setPickedUpAt(now);
-            case DELIVERED -> history.setCompletedAt(now);
-            case CANCELLED -> history.setCancelledAt(now);
+        return deliveryPackageMapper.toDto(updatedPackage);
+    }
+
+    // Coordinates are filled in off the request thread; if the executor is saturated the backfill sweep catches up
+    private void requestGeocoding(Long packageId) {
+        TransactionUtils.afterCommit(() -> {
+            try {
+                geocodingService.geocodePackage(packageId);
+            } catch (TaskRejectedException e) {
+                logger.warn("Geocoding of package {} deferred to backfill: {}", packageId, e.getMessage());
+            }
+        });
+    }
+
+    private void onStatusChanged(DeliveryPackage deliveryPackage) {
+        if (deliveryPackage.getStatus() == DeliveryPackage.DeliveryStatus.DELIVERED) {
+            deliveryPackage.setDistanceTraveled(
+                    courierDistanceTracker.persistPackageDistance(deliveryPackage.getPackage_id()));
+            recordDeliverySpeed(deliveryPackage);
         }
-        
-        deliveryHistoryRepository.save(history);
+        TransactionUtils.afterCommit(() -> {
+            packageAssignmentTable.track(deliveryPackage);
+            geofenceService.refresh(deliveryPackage.getPackage_id());
+            zoneLoadService.refreshPackage(deliveryPackage.getPackage_id());
+            if (deliveryPackage.getStatus() != DeliveryPackage.DeliveryStatus.IN_PROGRESS) {
+                courierDistanceTracker.release(deliveryPackage.getPackage_id());
+                etaService.release(deliveryPackage.getPackage_id());
+            }
+            if (deliveryPackage.getStatus() == DeliveryPackage.DeliveryStatus.DELIVERED) {
+                trackCompactionService.requestCompaction(deliveryPackage.getPackage_id());
+            }
+        });
+    }
 
-        return deliveryPackageMapper.toDto(updatedPackage);
+    // Captured while the transaction is open so the publisher never touches lazy associations
+    private void publishLifecycle(DeliveryPackage deliveryPackage, PackageEvent.Type type) {
+        domainEventPublisher.publishAfterCommit(PackageLifecycleEvent.builder()
+                .packageId(deliveryPackage.getPackage_id())
+                .trackingNumber(deliveryPackage.getTrackingNumber())
+                .type(type)
+                .status(deliveryPackage.getStatus())
+                .courierUsername(deliveryPackage.getCourierUsername())
+                .customerUsername(deliveryPackage.getCustomerUsername())
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+
+    // Courier fields are read inside the transaction; the sample only counts once the delivery is committed
+    private void recordDeliverySpeed(DeliveryPackage deliveryPackage) {
+        Courier courier = deliveryPackage.getCourier();
+        Double meters = deliveryPackage.getDistanceTraveled();
+        if (courier == null || meters == null) {
+            return;
+        }
+        String zone = courier.getCurrentZone();
+        String vehicleType = courier.getVehicleType();
+        LocalDateTime pickedUpAt = deliveryPackage.getPickedUpAt();
+        LocalDateTime deliveredAt = deliveryPackage.getDeliveredAt();
+        TransactionUtils.afterCommit(() ->
+                travelSpeedStatistics.recordDelivery(zone, vehicleType, pickedUpAt, deliveredAt, meters));
     }
-} 
\ No newline at end of file
+}
@@ -55,6 +55,7 @@ public class DeliveryReportServiceImpl implements IDeliveryReportService {
         report.setDeliveryPackage(deliveryPackage);
         report.setCourier(deliveryPackage.getCourier());
         report.setCustomer(deliveryPackage.getCustomer());
+        report.setDistanceTraveled(deliveryPackage.getDistanceTraveled());
         report.setDeliveryTime(LocalDateTime.now());
         report.setCreatedAt(LocalDateTime.now());
 
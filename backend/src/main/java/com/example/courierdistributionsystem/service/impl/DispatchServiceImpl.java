@@ -0,0 +1,401 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.CourierDto;
+import com.example.courierdistributionsystem.dto.NearbyCourierDto;
+import com.example.courierdistributionsystem.exception.PackageClaimException;
+import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
+import com.example.courierdistributionsystem.model.DeliveryPackage;
+import com.example.courierdistributionsystem.registry.CourierLiveStateRegistry;
+import com.example.courierdistributionsystem.registry.PackageAssignmentTable;
+import com.example.courierdistributionsystem.registry.ZoneDispatchWorkers;
+import com.example.courierdistributionsystem.repository.jpa.DeliveryPackageRepository;
+import com.example.courierdistributionsystem.service.IDeliveryPackageService;
+import com.example.courierdistributionsystem.service.IDispatchService;
+import com.example.courierdistributionsystem.utils.AuctionAssignment;
+import com.example.courierdistributionsystem.utils.GeoGrid;
+import com.example.courierdistributionsystem.utils.GeoUtils;
+import com.example.courierdistributionsystem.utils.PackageBundler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// Batch dispatch: each tick matches every unassigned pending package against the available couriers in one
+// assignment solve per zone instead of letting couriers race for packages. Zones are matched in parallel on their
+// own single-writer workers. Costs are in meters: pickup distance, plus a penalty per package the courier already
+// carries and for spare vehicle capacity left unused. Nearby packages heading the same way are bundled first and a
+// bundle is claimed whole; bundles nobody could take are split and offered again one package at a time.
+@Service
+public class DispatchServiceImpl implements IDispatchService {
+    private static final Logger logger = LoggerFactory.getLogger(DispatchServiceImpl.class);
+
+    // Auction precision; the matching is within this many meters per package of the optimum
+    private static final double MIN_EPSILON_METERS = 1.0;
+
+    private final DeliveryPackageRepository deliveryPackageRepository;
+    private final IDeliveryPackageService deliveryPackageService;
+    private final CourierLiveStateRegistry courierRegistry;
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final ZoneDispatchWorkers zoneWorkers;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int candidatesPerPackage;
+    private final double maxRadiusMeters;
+    private final int maxLoad;
+    private final double loadPenaltyMeters;
+    private final double spareCapacityPenaltyMeters;
+    private final double unknownDistanceMeters;
+    private final double gridCellDegrees;
+    private final long roundTimeoutMillis;
+    private final int bundleMaxPackages;
+    private final double bundlePickupRadiusMeters;
+    private final double bundleMaxHeadingDifferenceDegrees;
+    // Upper bound on any cost, so every benefit handed to the auction is positive
+    private final double costCeiling;
+
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final Timer tickTimer;
+    private final Counter assignedCounter;
+    private final Counter conflictCounter;
+    private final DistributionSummary pickupDistanceSummary;
+    private final DistributionSummary bundleSizeSummary;
+
+    @Autowired
+    public DispatchServiceImpl(DeliveryPackageRepository deliveryPackageRepository,
+                               IDeliveryPackageService deliveryPackageService,
+                               CourierLiveStateRegistry courierRegistry,
+                               PackageAssignmentTable packageAssignmentTable,
+                               ZoneDispatchWorkers zoneWorkers,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.dispatch.enabled:false}") boolean enabled,
+                               @Value("${app.dispatch.candidates-per-package:8}") int candidatesPerPackage,
+                               @Value("${app.dispatch.max-radius-meters:20000}") double maxRadiusMeters,
+                               @Value("${app.dispatch.max-load:3}") int maxLoad,
+                               @Value("${app.dispatch.load-penalty-meters:1500}") double loadPenaltyMeters,
+                               @Value("${app.dispatch.spare-capacity-penalty-meters:500}") double spareCapacityPenaltyMeters,
+                               @Value("${app.dispatch.unknown-distance-meters:10000}") double unknownDistanceMeters,
+                               @Value("${app.dispatch.round-timeout-ms:30000}") long roundTimeoutMillis,
+                               @Value("${app.dispatch.bundle.max-packages:3}") int bundleMaxPackages,
+                               @Value("${app.dispatch.bundle.pickup-radius-meters:1000}") double bundlePickupRadiusMeters,
+                               @Value("${app.dispatch.bundle.max-heading-difference-degrees:45}") double bundleMaxHeadingDifferenceDegrees,
+                               @Value("${app.courier-registry.grid-cell-degrees:0.01}") double gridCellDegrees) {
+        this.deliveryPackageRepository = deliveryPackageRepository;
+        this.deliveryPackageService = deliveryPackageService;
+        this.courierRegistry = courierRegistry;
+        this.packageAssignmentTable = packageAssignmentTable;
+        this.zoneWorkers = zoneWorkers;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.candidatesPerPackage = candidatesPerPackage;
+        this.maxRadiusMeters = maxRadiusMeters;
+        this.maxLoad = maxLoad;
+        this.loadPenaltyMeters = loadPenaltyMeters;
+        this.spareCapacityPenaltyMeters = spareCapacityPenaltyMeters;
+        this.unknownDistanceMeters = unknownDistanceMeters;
+        this.roundTimeoutMillis = roundTimeoutMillis;
+        this.bundleMaxPackages = bundleMaxPackages;
+        this.bundlePickupRadiusMeters = bundlePickupRadiusMeters;
+        this.bundleMaxHeadingDifferenceDegrees = bundleMaxHeadingDifferenceDegrees;
+        this.gridCellDegrees = gridCellDegrees;
+        this.costCeiling = Math.max(maxRadiusMeters, unknownDistanceMeters)
+                + loadPenaltyMeters * maxLoad + spareCapacityPenaltyMeters + 1;
+
+        Gauge.builder("dispatch.backlog", backlog, AtomicInteger::get)
+                .description("Pending packages left unassigned by the last dispatch tick")
+                .register(meterRegistry);
+        this.tickTimer = Timer.builder("dispatch.tick.latency")
+                .description("Time taken by one dispatch tick, from snapshot until every zone round finished")
+                .register(meterRegistry);
+        this.assignedCounter = Counter.builder("dispatch.packages.assigned")
+                .description("Packages assigned to couriers by the dispatch engine")
+                .register(meterRegistry);
+        this.conflictCounter = Counter.builder("dispatch.packages.conflicts")
+                .description("Dispatch matches dropped because the package was taken after the snapshot")
+                .register(meterRegistry);
+        this.pickupDistanceSummary = DistributionSummary.builder("dispatch.match.pickup.distance")
+                .description("Distance from the matched courier to the package pickup")
+                .baseUnit("meters")
+                .register(meterRegistry);
+        this.bundleSizeSummary = DistributionSummary.builder("dispatch.bundle.size")
+                .description("Packages claimed together by one courier in a single dispatch match")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.dispatch.interval-ms:5000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            dispatch();
+        } catch (Exception e) {
+            logger.error("Dispatch tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int dispatch() {
+        long start = System.nanoTime();
+        List<DeliveryPackage> pending = deliveryPackageRepository.findByStatusAndCourierIsNull(DeliveryPackage.DeliveryStatus.PENDING);
+        List<CourierDto> couriers = courierRegistry.findAvailable();
+
+        Map<String, List<CourierDto>> couriersByZone = new HashMap<>();
+        for (CourierDto courier : couriers) {
+            couriersByZone.computeIfAbsent(zoneOf(courier.getCurrentZone()), key -> new ArrayList<>()).add(courier);
+        }
+        // Packages that cannot be placed go to the zone with the most couriers to offer
+        String fallbackZone = couriersByZone.entrySet().stream()
+                .max(Comparator.comparingInt(entry -> entry.getValue().size()))
+                .map(Map.Entry::getKey)
+                .orElse(ZoneDispatchWorkers.UNZONED);
+        Map<String, List<DeliveryPackage>> packagesByZone = new HashMap<>();
+        for (DeliveryPackage deliveryPackage : pending) {
+            packagesByZone.computeIfAbsent(resolveZone(deliveryPackage, couriersByZone, fallbackZone),
+                    key -> new ArrayList<>()).add(deliveryPackage);
+        }
+
+        // Zones known from earlier ticks are reset too, so a zone that emptied stops reporting stale depth
+        Set<String> zoneNames = new HashSet<>(zoneWorkers.zoneNames());
+        zoneNames.addAll(couriersByZone.keySet());
+        zoneNames.addAll(packagesByZone.keySet());
+        List<CompletableFuture<Integer>> rounds = new ArrayList<>();
+        for (String zoneName : zoneNames) {
+            List<DeliveryPackage> zonePackages = packagesByZone.getOrDefault(zoneName, List.of());
+            List<CourierDto> zoneCouriers = couriersByZone.getOrDefault(zoneName, List.of());
+            rounds.add(zoneWorkers.submit(zoneName, zone -> {
+                zone.reset(zonePackages, zoneCouriers);
+                return matchZone(zone);
+            }));
+        }
+
+        // One deadline covers every round, so a tick waits at most the round timeout however many zones lag
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(roundTimeoutMillis);
+        int assigned = 0;
+        for (CompletableFuture<Integer> round : rounds) {
+            try {
+                assigned += round.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // The round keeps running on its worker; its assignments are simply not counted in this tick
+                logger.warn("Zone dispatch round did not finish within {} ms", roundTimeoutMillis);
+            } catch (ExecutionException e) {
+                logger.error("Zone dispatch round failed: {}", e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        tickTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        backlog.set(pending.size() - assigned);
+        if (!pending.isEmpty()) {
+            logger.info("Dispatched {} of {} pending packages to {} available couriers across {} zones in {} ms",
+                    assigned, pending.size(), couriers.size(), zoneNames.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        return assigned;
+    }
+
+    // Runs on the zone's worker thread, which is the only thread touching the zone's packages and couriers
+    private int matchZone(ZoneDispatchWorkers.Zone zone) {
+        List<DeliveryPackage> pending = zone.pendingPackages();
+        List<CourierDto> couriers = zone.availableCouriers();
+        if (pending.isEmpty() || couriers.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+
+        int[] loads = new int[couriers.size()];
+        GeoGrid grid = new GeoGrid(gridCellDegrees);
+        List<Integer> byLoad = new ArrayList<>(couriers.size());
+        double largestCapacity = 0;
+        int largestSpareLoad = 0;
+        for (int i = 0; i < couriers.size(); i++) {
+            CourierDto courier = couriers.get(i);
+            loads[i] = packageAssignmentTable.countPackages(courier.getId());
+            if (courier.getCurrentLatitude() != null && courier.getCurrentLongitude() != null) {
+                grid.put(i, courier.getCurrentLatitude(), courier.getCurrentLongitude());
+            }
+            byLoad.add(i);
+            if (loads[i] < maxLoad) {
+                largestCapacity = Math.max(largestCapacity, PackageBundler.capacityOf(courier.getVehicleType()));
+                largestSpareLoad = Math.max(largestSpareLoad, maxLoad - loads[i]);
+            }
+        }
+        // Packages without a pickup position are offered to the least loaded couriers, spread round-robin
+        byLoad.sort(Comparator.comparingInt(index -> loads[index]));
+
+        // Oldest packages seed the bundles
+        pending.sort(Comparator.comparing(DeliveryPackage::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        List<List<DeliveryPackage>> bundles = bundle(pending, largestCapacity, Math.min(bundleMaxPackages, largestSpareLoad));
+
+        boolean[] matched = new boolean[couriers.size()];
+        List<List<DeliveryPackage>> unmatched = new ArrayList<>();
+        int assigned = assignRound(zone, bundles, couriers, loads, matched, grid, byLoad, unmatched);
+        // Bundles no free courier could carry whole are offered again package by package
+        List<List<DeliveryPackage>> singles = new ArrayList<>();
+        for (List<DeliveryPackage> bundle : unmatched) {
+            if (bundle.size() > 1) {
+                bundle.forEach(deliveryPackage -> singles.add(List.of(deliveryPackage)));
+            }
+        }
+        if (!singles.isEmpty()) {
+            assigned += assignRound(zone, singles, couriers, loads, matched, grid, byLoad, new ArrayList<>());
+        }
+        Timer.builder("dispatch.zone.round.latency")
+                .description("Time taken by one zone worker to match and assign its packages")
+                .tag("zone", zone.getName())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return assigned;
+    }
+
+    // One auction over the bundles; every courier wins at most one bundle per zone round
+    private int assignRound(ZoneDispatchWorkers.Zone zone, List<List<DeliveryPackage>> bundles, List<CourierDto> couriers,
+                            int[] loads, boolean[] matched, GeoGrid grid, List<Integer> byLoad,
+                            List<List<DeliveryPackage>> unmatched) {
+        AuctionAssignment auction = new AuctionAssignment(couriers.size(), bundles.size() * candidatesPerPackage);
+        int unlocated = 0;
+        for (List<DeliveryPackage> bundle : bundles) {
+            auction.addBidder();
+            double weight = bundle.stream().mapToDouble(DeliveryPackage::getWeight).sum();
+            Double latitude = bundle.get(0).getPickupLatitude();
+            Double longitude = bundle.get(0).getPickupLongitude();
+            if (latitude != null && longitude != null) {
+                for (GeoGrid.Neighbor nearby : grid.nearest(latitude, longitude, candidatesPerPackage, maxRadiusMeters)) {
+                    int index = nearby.getId();
+                    if (!matched[index]) {
+                        offer(auction, bundle, weight, couriers.get(index), index, loads[index], nearby.getDistanceMeters());
+                    }
+                }
+            } else {
+                int offset = (unlocated++ * candidatesPerPackage) % byLoad.size();
+                for (int n = 0; n < Math.min(candidatesPerPackage, byLoad.size()); n++) {
+                    int index = byLoad.get((offset + n) % byLoad.size());
+                    if (!matched[index]) {
+                        offer(auction, bundle, weight, couriers.get(index), index, loads[index], unknownDistanceMeters);
+                    }
+                }
+            }
+        }
+        int[] matches = auction.solve(MIN_EPSILON_METERS);
+
+        int assigned = 0;
+        for (int i = 0; i < matches.length; i++) {
+            List<DeliveryPackage> bundle = bundles.get(i);
+            if (matches[i] == AuctionAssignment.UNASSIGNED) {
+                unmatched.add(bundle);
+                continue;
+            }
+            CourierDto courier = couriers.get(matches[i]);
+            try {
+                claim(bundle, courier);
+                bundle.forEach(deliveryPackage -> zone.claim(deliveryPackage.getPackage_id(), courier.getId()));
+                matched[matches[i]] = true;
+                loads[matches[i]] += bundle.size();
+                assigned += bundle.size();
+                assignedCounter.increment(bundle.size());
+                bundleSizeSummary.record(bundle.size());
+                recordPickupDistance(bundle.get(0), courier);
+            } catch (PackageClaimException | IllegalStateException | ResourceNotFoundException e) {
+                bundle.forEach(deliveryPackage -> zone.drop(deliveryPackage.getPackage_id()));
+                conflictCounter.increment();
+                logger.debug("Dropped dispatch of {} packages to {}: {}", bundle.size(), courier.getUsername(), e.getMessage());
+            }
+        }
+        return assigned;
+    }
+
+    // A bundle is claimed in one transaction, so either the courier gets all of it or none
+    private void claim(List<DeliveryPackage> bundle, CourierDto courier) {
+        if (bundle.size() == 1) {
+            deliveryPackageService.takeDeliveryPackage(bundle.get(0).getPackage_id(), courier.getUsername());
+        } else {
+            deliveryPackageService.claimDeliveryPackages(
+                    bundle.stream().map(DeliveryPackage::getPackage_id).collect(Collectors.toList()), courier.getUsername());
+        }
+    }
+
+    private List<List<DeliveryPackage>> bundle(List<DeliveryPackage> pending, double capacityKg, int maxPackages) {
+        List<PackageBundler.Parcel> parcels = new ArrayList<>(pending.size());
+        for (DeliveryPackage deliveryPackage : pending) {
+            parcels.add(new PackageBundler.Parcel(deliveryPackage.getPackage_id(), deliveryPackage.getWeight(),
+                    deliveryPackage.getPickupLatitude(), deliveryPackage.getPickupLongitude(),
+                    deliveryPackage.getDeliveryLatitude(), deliveryPackage.getDeliveryLongitude()));
+        }
+        Map<Long, DeliveryPackage> byId = new HashMap<>();
+        pending.forEach(deliveryPackage -> byId.put(deliveryPackage.getPackage_id(), deliveryPackage));
+        List<List<DeliveryPackage>> bundles = new ArrayList<>();
+        for (PackageBundler.Bundle bundle : PackageBundler.bundle(parcels, capacityKg, Math.max(1, maxPackages),
+                bundlePickupRadiusMeters, bundleMaxHeadingDifferenceDegrees, gridCellDegrees)) {
+            bundles.add(bundle.getParcels().stream()
+                    .map(parcel -> byId.get(parcel.getPackageId()))
+                    .collect(Collectors.toList()));
+        }
+        return bundles;
+    }
+
+    private String resolveZone(DeliveryPackage deliveryPackage, Map<String, List<CourierDto>> couriersByZone,
+                               String fallbackZone) {
+        if (deliveryPackage.getCurrentLocation() != null) {
+            return deliveryPackage.getCurrentLocation();
+        }
+        Double latitude = deliveryPackage.getPickupLatitude();
+        Double longitude = deliveryPackage.getPickupLongitude();
+        if (latitude != null && longitude != null) {
+            // A pending package belongs to the zone its nearest available courier is working
+            List<NearbyCourierDto> nearest = courierRegistry.findNearestAvailable(latitude, longitude, 1, maxRadiusMeters);
+            if (!nearest.isEmpty()) {
+                return zoneOf(nearest.get(0).getCourier().getCurrentZone());
+            }
+        }
+        return couriersByZone.containsKey(ZoneDispatchWorkers.UNZONED) ? ZoneDispatchWorkers.UNZONED : fallbackZone;
+    }
+
+    private static String zoneOf(String zone) {
+        return zone == null ? ZoneDispatchWorkers.UNZONED : zone;
+    }
+
+    private void offer(AuctionAssignment auction, List<DeliveryPackage> bundle, double weight, CourierDto courier,
+                       int index, int load, double distanceMeters) {
+        double capacity = PackageBundler.capacityOf(courier.getVehicleType());
+        if (load + bundle.size() > maxLoad || weight > capacity) {
+            return;
+        }
+        double cost = distanceMeters
+                + load * loadPenaltyMeters
+                + (1 - weight / capacity) * spareCapacityPenaltyMeters;
+        // A bundle is worth as much as its packages taken one at a time, less the cost of fetching it
+        auction.addCandidate(index, bundle.size() * costCeiling - cost);
+    }
+
+    private void recordPickupDistance(DeliveryPackage deliveryPackage, CourierDto courier) {
+        Double latitude = deliveryPackage.getPickupLatitude();
+        Double longitude = deliveryPackage.getPickupLongitude();
+        if (latitude != null && longitude != null
+                && courier.getCurrentLatitude() != null && courier.getCurrentLongitude() != null) {
+            pickupDistanceSummary.record(GeoUtils.distanceMeters(
+                    courier.getCurrentLatitude(), courier.getCurrentLongitude(), latitude, longitude));
+        }
+    }
+}
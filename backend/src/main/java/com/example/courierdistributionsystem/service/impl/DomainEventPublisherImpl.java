@@ -0,0 +1,257 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.event.PackageLifecycleEvent;
+import com.example.courierdistributionsystem.service.IDomainEventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Publishes package lifecycle events once the transaction that produced them has committed. Events are collected
+// per transaction and handed to a single publisher thread on commit, which sends each to
+// /topic/package/{trackingNumber}/status, the whole batch to /topic/packages/lifecycle, and the affected package
+// ids to the Redis cache invalidation channel. A rolled back transaction publishes nothing.
+@Service
+public class DomainEventPublisherImpl implements IDomainEventPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventPublisherImpl.class);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final BlockingQueue<PackageLifecycleEvent> queue;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final long shutdownTimeoutMillis;
+    private final boolean redisEnabled;
+    private final String cacheChannel;
+    private final long redisRetryMillis;
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter publishedCounter;
+    private final Counter droppedCounter;
+    private final Timer publishTimer;
+
+    private volatile boolean running = true;
+    private Thread publisher;
+    // Only touched while holding the flush lock
+    private long redisRetryAt;
+
+    @Autowired
+    public DomainEventPublisherImpl(SimpMessagingTemplate messagingTemplate,
+                                    RedisTemplate<String, Object> redisTemplate,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.domain-events.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${app.domain-events.batch-size:200}") int batchSize,
+                                    @Value("${app.domain-events.linger-ms:50}") long lingerMillis,
+                                    @Value("${app.domain-events.shutdown-timeout-ms:5000}") long shutdownTimeoutMillis,
+                                    @Value("${app.domain-events.redis-enabled:true}") boolean redisEnabled,
+                                    @Value("${app.domain-events.cache-channel:cds_packages_invalidated}") String cacheChannel,
+                                    @Value("${app.domain-events.redis-retry-ms:30000}") long redisRetryMillis) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.redisEnabled = redisEnabled;
+        this.cacheChannel = cacheChannel;
+        this.redisRetryMillis = redisRetryMillis;
+
+        Gauge.builder("domain.events.queue.depth", queue, BlockingQueue::size)
+                .description("Committed package lifecycle events waiting to be published")
+                .register(meterRegistry);
+        this.publishedCounter = Counter.builder("domain.events.published")
+                .description("Package lifecycle events sent to WebSocket subscribers")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("domain.events.dropped")
+                .description("Package lifecycle events lost because the publish queue was full")
+                .register(meterRegistry);
+        this.publishTimer = Timer.builder("domain.events.publish.latency")
+                .description("Time taken to publish one batch of package lifecycle events")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        publisher = new Thread(this::runPublishLoop, "domain-event-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            publisher.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @Override
+    public void publishAfterCommit(PackageLifecycleEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(List.of(event));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<PackageLifecycleEvent> pending = (List<PackageLifecycleEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<PackageLifecycleEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new PendingEvents(events));
+            pending = events;
+        }
+        pending.add(event);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<PackageLifecycleEvent> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                publish(batch);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void enqueue(List<PackageLifecycleEvent> events) {
+        for (PackageLifecycleEvent event : events) {
+            if (!queue.offer(event)) {
+                droppedCounter.increment();
+                logger.warn("Dropping {} event of package {}: publish queue is full", event.getType(), event.getPackageId());
+            }
+        }
+    }
+
+    // Each round holds the flush lock, so a flush never overtakes a batch the loop has already taken off the queue
+    private void runPublishLoop() {
+        List<PackageLifecycleEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            flushLock.lock();
+            try {
+                PackageLifecycleEvent first = queue.poll(lingerMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PackageLifecycleEvent next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                if (!batch.isEmpty()) {
+                    publish(batch);
+                    batch.clear();
+                }
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private void publish(List<PackageLifecycleEvent> batch) {
+        long start = System.nanoTime();
+        Set<Long> packageIds = new LinkedHashSet<>();
+        for (PackageLifecycleEvent event : batch) {
+            packageIds.add(event.getPackageId());
+            if (event.getTrackingNumber() == null) {
+                continue;
+            }
+            try {
+                messagingTemplate.convertAndSend("/topic/package/" + event.getTrackingNumber() + "/status", event);
+            } catch (Exception e) {
+                logger.error("Failed to publish {} event of package {}: {}", event.getType(), event.getPackageId(), e.getMessage());
+            }
+        }
+        try {
+            messagingTemplate.convertAndSend("/topic/packages/lifecycle", batch);
+            publishedCounter.increment(batch.size());
+        } catch (Exception e) {
+            logger.error("Failed to publish batch of {} package lifecycle events: {}", batch.size(), e.getMessage());
+        }
+        invalidateCaches(packageIds);
+        publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Cached entries expire on their own, so invalidations missed while Redis is down are not replayed
+    private void invalidateCaches(Set<Long> packageIds) {
+        if (!redisEnabled || System.currentTimeMillis() < redisRetryAt) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(cacheChannel, new ArrayList<>(packageIds));
+        } catch (Exception e) {
+            redisRetryAt = System.currentTimeMillis() + redisRetryMillis;
+            logger.warn("Cache invalidation channel unavailable, pausing for {} ms: {}", redisRetryMillis, e.getMessage());
+        }
+    }
+
+    // Holds one transaction's events; they reach the queue only on commit and are discarded otherwise
+    private class PendingEvents implements TransactionSynchronization {
+        private final List<PackageLifecycleEvent> events;
+
+        PendingEvents(List<PackageLifecycleEvent> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(DomainEventPublisherImpl.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(DomainEventPublisherImpl.this, events);
+        }
+
+        @Override
+        public void afterCommit() {
+            enqueue(events);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DomainEventPublisherImpl.this);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.CourierDto;
+import com.example.courierdistributionsystem.dto.EtaDto;
+import com.example.courierdistributionsystem.dto.LocationPing;
+import com.example.courierdistributionsystem.registry.CourierLiveStateRegistry;
+import com.example.courierdistributionsystem.registry.PackageAssignmentTable;
+import com.example.courierdistributionsystem.registry.TravelSpeedStatistics;
+import com.example.courierdistributionsystem.service.IEtaService;
+import com.example.courierdistributionsystem.service.LocationPingListener;
+import com.example.courierdistributionsystem.utils.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Estimates arrival from the remaining straight-line distance, a road detour factor and the learned travel speed.
+// Estimates are refreshed on every location ping of the carrying courier, but only pushed to
+// /topic/package/{trackingNumber}/eta when the predicted arrival moves by more than the push threshold.
+@Service
+public class EtaServiceImpl implements IEtaService, LocationPingListener {
+    private static final Logger logger = LoggerFactory.getLogger(EtaServiceImpl.class);
+
+    private static final String SELECT_TARGET_SQL =
+            "SELECT tracking_number, latitude, longitude, delivery_latitude, delivery_longitude, current_latitude " +
+            "FROM delivery_packages WHERE package_id = ?";
+
+    // Packages still waiting for geocoding are looked up again at most this often
+    private static final Duration UNLOCATED_RELOAD_INTERVAL = Duration.ofSeconds(30);
+
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final CourierLiveStateRegistry courierRegistry;
+    private final TravelSpeedStatistics travelSpeedStatistics;
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final double routeFactor;
+    private final long pushThresholdSeconds;
+
+    private final Map<Long, Target> targets = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> pushedArrivals = new ConcurrentHashMap<>();
+
+    private final Counter pushCounter;
+    private final Counter suppressedCounter;
+
+    @Autowired
+    public EtaServiceImpl(PackageAssignmentTable packageAssignmentTable,
+                          CourierLiveStateRegistry courierRegistry,
+                          TravelSpeedStatistics travelSpeedStatistics,
+                          JdbcTemplate jdbcTemplate,
+                          SimpMessagingTemplate messagingTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.eta.route-factor:1.3}") double routeFactor,
+                          @Value("${app.eta.push-threshold-seconds:60}") long pushThresholdSeconds) {
+        this.packageAssignmentTable = packageAssignmentTable;
+        this.courierRegistry = courierRegistry;
+        this.travelSpeedStatistics = travelSpeedStatistics;
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.routeFactor = routeFactor;
+        this.pushThresholdSeconds = pushThresholdSeconds;
+
+        this.pushCounter = Counter.builder("eta.pushes")
+                .description("ETA updates pushed to package subscribers")
+                .register(meterRegistry);
+        this.suppressedCounter = Counter.builder("eta.suppressed")
+                .description("Recomputed ETAs not pushed because the arrival moved less than the threshold")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<EtaDto> estimate(String trackingNumber) {
+        Optional<PackageAssignmentTable.Assignment> assignment = packageAssignmentTable.find(trackingNumber);
+        if (assignment.isEmpty()) {
+            return Optional.empty();
+        }
+        long packageId = assignment.get().getPackageId();
+        // Read fresh, since geocoding or the first ping may have changed the stops since the target was cached
+        Target target = loadTarget(packageId);
+        if (target == null) {
+            return Optional.empty();
+        }
+        // Pings seen here may not have reached the package row yet
+        Target cached = targets.put(packageId, target);
+        if (cached != null && !cached.pickupPending) {
+            target.pickupPending = false;
+        }
+        Optional<CourierDto> courier = courierRegistry.findById(assignment.get().getCourierId());
+        Double latitude = courier.map(CourierDto::getCurrentLatitude).orElse(null);
+        Double longitude = courier.map(CourierDto::getCurrentLongitude).orElse(null);
+        if (latitude == null || longitude == null) {
+            // Without a courier position the best guess is that the trip starts at the pickup
+            latitude = target.pickupLatitude;
+            longitude = target.pickupLongitude;
+        }
+        if (latitude == null || longitude == null) {
+            return Optional.empty();
+        }
+        return compute(target, latitude, longitude, target.pickupPending,
+                courier.map(CourierDto::getCurrentZone).orElse(null),
+                courier.map(CourierDto::getVehicleType).orElse(null),
+                LocalDateTime.now());
+    }
+
+    @Override
+    public void onLocationPing(LocationPing ping) {
+        Long courierId = ping.getCourierId() != null
+                ? ping.getCourierId()
+                : courierRegistry.findCourierId(ping.getCourierUsername()).orElse(null);
+        if (courierId == null) {
+            return;
+        }
+        String vehicleType = null;
+        for (Long packageId : packageAssignmentTable.findPackageIds(courierId)) {
+            Target target = target(packageId);
+            if (target == null) {
+                continue;
+            }
+            if (vehicleType == null) {
+                vehicleType = courierRegistry.findById(courierId).map(CourierDto::getVehicleType).orElse("");
+            }
+            // A courier reporting positions for the package is carrying it, so only the drop remains
+            target.pickupPending = false;
+            compute(target, ping.getLatitude(), ping.getLongitude(), false, ping.getZone(), vehicleType, ping.getTimestamp())
+                    .ifPresent(eta -> publishIfChanged(packageId, eta));
+        }
+    }
+
+    @Override
+    public void release(long packageId) {
+        targets.remove(packageId);
+        pushedArrivals.remove(packageId);
+    }
+
+    private Optional<EtaDto> compute(Target target, double latitude, double longitude, boolean viaPickup,
+                                     String zone, String vehicleType, LocalDateTime at) {
+        if (target.dropLatitude == null || target.dropLongitude == null) {
+            return Optional.empty();
+        }
+        double meters;
+        if (viaPickup && target.pickupLatitude != null && target.pickupLongitude != null) {
+            meters = GeoUtils.approximateDistanceMeters(latitude, longitude, target.pickupLatitude, target.pickupLongitude)
+                    + GeoUtils.approximateDistanceMeters(target.pickupLatitude, target.pickupLongitude,
+                            target.dropLatitude, target.dropLongitude);
+        } else {
+            meters = GeoUtils.approximateDistanceMeters(latitude, longitude, target.dropLatitude, target.dropLongitude);
+        }
+        double speed = travelSpeedStatistics.speedFor(zone, at.getHour(), vehicleType);
+        long seconds = Math.round(meters * routeFactor / speed);
+        return Optional.of(EtaDto.builder()
+                .trackingNumber(target.trackingNumber)
+                .etaSeconds(seconds)
+                .remainingMeters(meters)
+                .speedMetersPerSecond(speed)
+                .estimatedArrival(at.plusSeconds(seconds))
+                .build());
+    }
+
+    // Comparing arrival times rather than remaining seconds keeps a steady countdown from triggering pushes
+    private void publishIfChanged(long packageId, EtaDto eta) {
+        LocalDateTime previous = pushedArrivals.get(packageId);
+        if (previous != null
+                && Math.abs(Duration.between(previous, eta.getEstimatedArrival()).getSeconds()) <= pushThresholdSeconds) {
+            suppressedCounter.increment();
+            return;
+        }
+        pushedArrivals.put(packageId, eta.getEstimatedArrival());
+        messagingTemplate.convertAndSend("/topic/package/" + eta.getTrackingNumber() + "/eta", eta);
+        pushCounter.increment();
+    }
+
+    private Target target(long packageId) {
+        Target target = targets.get(packageId);
+        if (target != null && (target.located() || target.loadedAt.plus(UNLOCATED_RELOAD_INTERVAL).isAfter(LocalDateTime.now()))) {
+            return target;
+        }
+        try {
+            target = loadTarget(packageId);
+        } catch (Exception e) {
+            logger.warn("Failed to load ETA target of package {}: {}", packageId, e.getMessage());
+            return null;
+        }
+        if (target != null) {
+            targets.put(packageId, target);
+        }
+        return target;
+    }
+
+    private Target loadTarget(long packageId) {
+        List<Target> rows = jdbcTemplate.query(SELECT_TARGET_SQL, (rs, rowNum) -> {
+            Target target = new Target();
+            target.trackingNumber = rs.getString("tracking_number");
+            target.pickupLatitude = rs.getObject("latitude", Double.class);
+            target.pickupLongitude = rs.getObject("longitude", Double.class);
+            target.dropLatitude = rs.getObject("delivery_latitude", Double.class);
+            target.dropLongitude = rs.getObject("delivery_longitude", Double.class);
+            target.pickupPending = rs.getObject("current_latitude") == null;
+            target.loadedAt = LocalDateTime.now();
+            return target;
+        }, packageId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static class Target {
+        private String trackingNumber;
+        private Double pickupLatitude;
+        private Double pickupLongitude;
+        private Double dropLatitude;
+        private Double dropLongitude;
+        private volatile boolean pickupPending;
+        private LocalDateTime loadedAt;
+
+        boolean located() {
+            return dropLatitude != null && dropLongitude != null;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.GeocodeResult;
+import com.example.courierdistributionsystem.model.GeocodeCacheEntry;
+import com.example.courierdistributionsystem.repository.jpa.GeocodeCacheRepository;
+import com.example.courierdistributionsystem.service.Geocoder;
+import com.example.courierdistributionsystem.service.IGeofenceService;
+import com.example.courierdistributionsystem.service.IZoneLoadService;
+import com.example.courierdistributionsystem.service.IGeocodingService;
+import com.example.courierdistributionsystem.utils.AddressUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Geocodes package addresses through the configured provider behind a bounded LRU cache keyed by normalized address.
+// The cache is backed by the geocode_cache table: misses are written through, recency is flushed periodically,
+// and the most recently used entries are reloaded on startup.
+@Service
+public class GeocodingServiceImpl implements IGeocodingService {
+    private static final Logger logger = LoggerFactory.getLogger(GeocodingServiceImpl.class);
+
+    private static final String SELECT_ADDRESSES_SQL =
+            "SELECT pickup_address, delivery_address FROM delivery_packages WHERE package_id = ?";
+    private static final String UPDATE_COORDINATES_SQL =
+            "UPDATE delivery_packages SET latitude = ?, longitude = ?, delivery_latitude = ?, delivery_longitude = ?, " +
+            "geocoded_at = ? WHERE package_id = ?";
+    private static final String SELECT_UNGEOCODED_SQL =
+            "SELECT package_id FROM delivery_packages WHERE geocoded_at IS NULL " +
+            "AND status IN ('PENDING', 'IN_PROGRESS') ORDER BY package_id LIMIT ?";
+    private static final String TOUCH_SQL = "UPDATE geocode_cache SET last_used_at = ? WHERE address_key = ?";
+    private static final String SELECT_EVICTION_CUTOFF_SQL =
+            "SELECT last_used_at FROM geocode_cache ORDER BY last_used_at DESC LIMIT 1 OFFSET ?";
+    private static final String DELETE_OLDER_THAN_SQL = "DELETE FROM geocode_cache WHERE last_used_at < ?";
+
+    private final Geocoder geocoder;
+    private final GeocodeCacheRepository geocodeCacheRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final IGeofenceService geofenceService;
+    private final IZoneLoadService zoneLoadService;
+    private final TaskExecutor taskExecutor;
+    private final int cacheSize;
+    private final int backfillBatchSize;
+
+    private final Map<String, Optional<GeocodeResult>> cache;
+    private final Map<String, LocalDateTime> touched = new ConcurrentHashMap<>();
+    // Backfilled packages still waiting on the executor, so the next sweep does not queue them twice
+    private final Set<Long> backfilling = ConcurrentHashMap.newKeySet();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter unresolvedCounter;
+
+    @Autowired
+    public GeocodingServiceImpl(Geocoder geocoder,
+                                GeocodeCacheRepository geocodeCacheRepository,
+                                JdbcTemplate jdbcTemplate,
+                                IGeofenceService geofenceService,
+                                IZoneLoadService zoneLoadService,
+                                @Qualifier("taskExecutor") TaskExecutor taskExecutor,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.geocoding.cache-size:10000}") int cacheSize,
+                                @Value("${app.geocoding.backfill-batch-size:200}") int backfillBatchSize) {
+        this.geocoder = geocoder;
+        this.geocodeCacheRepository = geocodeCacheRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.geofenceService = geofenceService;
+        this.zoneLoadService = zoneLoadService;
+        this.taskExecutor = taskExecutor;
+        this.cacheSize = cacheSize;
+        this.backfillBatchSize = backfillBatchSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<GeocodeResult>> eldest) {
+                return size() > GeocodingServiceImpl.this.cacheSize;
+            }
+        };
+
+        Gauge.builder("geocoding.cache.size", this, service -> service.cachedEntries())
+                .description("Addresses held in the in-memory geocoding cache")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("geocoding.cache.hits")
+                .description("Address lookups answered from the geocoding cache")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("geocoding.cache.misses")
+                .description("Address lookups sent to the geocoding provider")
+                .register(meterRegistry);
+        this.unresolvedCounter = Counter.builder("geocoding.unresolved")
+                .description("Addresses the geocoding provider could not resolve")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        List<GeocodeCacheEntry> entries = geocodeCacheRepository.findAllByOrderByLastUsedAtDesc(PageRequest.of(0, cacheSize));
+        synchronized (cache) {
+            // Oldest first, so the access order ends up matching last use
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                GeocodeCacheEntry entry = entries.get(i);
+                if (entry.getLatitude() != null && entry.getLongitude() != null) {
+                    cache.put(entry.getAddressKey(), Optional.of(new GeocodeResult(entry.getLatitude(), entry.getLongitude())));
+                } else if (geocoder.getName().equals(entry.getProvider())) {
+                    // Another provider may resolve what this one could not
+                    cache.put(entry.getAddressKey(), Optional.empty());
+                }
+            }
+        }
+        logger.info("Loaded {} geocoding cache entries (provider: {})", cachedEntries(), geocoder.getName());
+    }
+
+    @Override
+    public Optional<GeocodeResult> geocode(String address) {
+        String key = AddressUtils.normalize(address);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<GeocodeResult> cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            hitCounter.increment();
+            touched.put(key, LocalDateTime.now());
+            return cached;
+        }
+
+        missCounter.increment();
+        Optional<GeocodeResult> result = geocoder.geocode(key);
+        if (result.isEmpty()) {
+            unresolvedCounter.increment();
+        }
+        synchronized (cache) {
+            cache.put(key, result);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            geocodeCacheRepository.save(GeocodeCacheEntry.builder()
+                    .addressKey(key)
+                    .latitude(result.map(GeocodeResult::getLatitude).orElse(null))
+                    .longitude(result.map(GeocodeResult::getLongitude).orElse(null))
+                    .provider(geocoder.getName())
+                    .createdAt(now)
+                    .lastUsedAt(now)
+                    .build());
+        } catch (Exception e) {
+            // Only costs a provider call after the next restart
+            logger.warn("Failed to persist geocoding cache entry for '{}': {}", key, e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    @Async
+    public void geocodePackage(Long packageId) {
+        resolvePackage(packageId);
+    }
+
+    // One task for a whole batch of new packages; addresses repeated within the batch are answered by the cache
+    @Override
+    @Async
+    public void geocodePackages(List<Long> packageIds) {
+        packageIds.forEach(this::resolvePackage);
+    }
+
+    private void resolvePackage(Long packageId) {
+        try {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_ADDRESSES_SQL, packageId);
+            if (rows.isEmpty()) {
+                return;
+            }
+            Optional<GeocodeResult> pickup = geocode((String) rows.get(0).get("pickup_address"));
+            Optional<GeocodeResult> delivery = geocode((String) rows.get(0).get("delivery_address"));
+            jdbcTemplate.update(UPDATE_COORDINATES_SQL,
+                    pickup.map(GeocodeResult::getLatitude).orElse(null),
+                    pickup.map(GeocodeResult::getLongitude).orElse(null),
+                    delivery.map(GeocodeResult::getLatitude).orElse(null),
+                    delivery.map(GeocodeResult::getLongitude).orElse(null),
+                    Timestamp.valueOf(LocalDateTime.now()),
+                    packageId);
+            // Packages already out for delivery get their geofences as soon as coordinates are known
+            geofenceService.refresh(packageId);
+            // Pending packages without a zone of their own are placed by their pickup coordinates
+            zoneLoadService.refreshPackage(packageId);
+        } catch (Exception e) {
+            // geocoded_at stays empty, so the backfill sweep retries the package
+            logger.error("Failed to geocode package {}: {}", packageId, e.getMessage(), e);
+        }
+    }
+
+    // Picks up packages created before geocoding existed or whose async task was rejected or failed. Lookups run on
+    // the async executor rather than the scheduler thread; whatever the executor turns away waits for the next sweep.
+    @Override
+    @Scheduled(fixedDelayString = "${app.geocoding.backfill-interval-ms:60000}")
+    public int backfillPackages() {
+        List<Long> packageIds = jdbcTemplate.queryForList(SELECT_UNGEOCODED_SQL, Long.class, backfillBatchSize);
+        int queued = 0;
+        for (Long packageId : packageIds) {
+            if (!backfilling.add(packageId)) {
+                continue;
+            }
+            try {
+                taskExecutor.execute(() -> {
+                    try {
+                        resolvePackage(packageId);
+                    } finally {
+                        backfilling.remove(packageId);
+                    }
+                });
+                queued++;
+            } catch (TaskRejectedException e) {
+                backfilling.remove(packageId);
+                logger.debug("Geocoding executor saturated, {} packages left for the next backfill", packageIds.size() - queued);
+                break;
+            }
+        }
+        if (queued > 0) {
+            logger.info("Queued {} packages for coordinate backfill", queued);
+        }
+        return queued;
+    }
+
+    @Scheduled(fixedDelayString = "${app.geocoding.cache-flush-interval-ms:60000}")
+    public void flushCache() {
+        List<Object[]> rows = new ArrayList<>();
+        for (String key : Set.copyOf(touched.keySet())) {
+            LocalDateTime lastUsed = touched.remove(key);
+            if (lastUsed != null) {
+                rows.add(new Object[] {Timestamp.valueOf(lastUsed), key});
+            }
+        }
+        try {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(TOUCH_SQL, rows);
+            }
+            List<Timestamp> cutoff = jdbcTemplate.queryForList(SELECT_EVICTION_CUTOFF_SQL, Timestamp.class, cacheSize);
+            if (!cutoff.isEmpty()) {
+                jdbcTemplate.update(DELETE_OLDER_THAN_SQL, cutoff.get(0));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to flush geocoding cache: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushCache();
+    }
+
+    private int cachedEntries() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
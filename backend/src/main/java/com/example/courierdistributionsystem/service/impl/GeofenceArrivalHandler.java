@@ -0,0 +1,88 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.GeofenceArrivalDto;
+import com.example.courierdistributionsystem.event.GeofenceArrivalEvent;
+import com.example.courierdistributionsystem.registry.GeofenceIndex.Fence;
+import com.example.courierdistributionsystem.registry.GeofenceIndex.FenceType;
+import com.example.courierdistributionsystem.service.IDeliveryPackageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Acts on geofence arrivals off the ingest path: records them in the package's event stream, notifies subscribers of
+// /topic/package/{trackingNumber}/arrival and, when enabled, marks the package delivered on arrival at the drop.
+@Component
+public class GeofenceArrivalHandler {
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceArrivalHandler.class);
+
+    private static final String INSERT_ARRIVED_EVENT_SQL =
+            "INSERT INTO package_events (package_id, courier_id, type, status, notes, location_data, occurred_at) " +
+            "SELECT package_id, courier_id, 'ARRIVED', status, ?, ?, ? FROM delivery_packages WHERE package_id = ?";
+
+    private final IDeliveryPackageService deliveryPackageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final boolean autoDeliver;
+
+    @Autowired
+    public GeofenceArrivalHandler(IDeliveryPackageService deliveryPackageService,
+                                  JdbcTemplate jdbcTemplate,
+                                  SimpMessagingTemplate messagingTemplate,
+                                  @Value("${app.geofence.auto-deliver:false}") boolean autoDeliver) {
+        this.deliveryPackageService = deliveryPackageService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.autoDeliver = autoDeliver;
+    }
+
+    @Async
+    @EventListener
+    public void onArrival(GeofenceArrivalEvent event) {
+        Fence fence = event.getFence();
+        boolean pickup = fence.getType() == FenceType.PICKUP;
+        logger.info("Courier {} arrived at {} of package {}", fence.getCourierUsername(),
+                pickup ? "pickup" : "delivery", fence.getTrackingNumber());
+        try {
+            // occurred_at is server time like every other event; the device clock is kept with the position
+            jdbcTemplate.update(INSERT_ARRIVED_EVENT_SQL,
+                    pickup ? "Arrived at pickup location" : "Arrived at delivery location",
+                    String.format("Lat: %f, Long: %f, Reported: %s", event.getLatitude(), event.getLongitude(),
+                            event.getTimestamp()),
+                    Timestamp.valueOf(LocalDateTime.now()),
+                    fence.getPackageId());
+        } catch (Exception e) {
+            logger.error("Failed to record arrival of package {}: {}", fence.getTrackingNumber(), e.getMessage(), e);
+        }
+
+        boolean statusUpdated = false;
+        if (!pickup && autoDeliver) {
+            try {
+                deliveryPackageService.dropDeliveryPackage(fence.getPackageId(), fence.getCourierUsername());
+                statusUpdated = true;
+            } catch (Exception e) {
+                // The courier may have completed or handed over the package in the meantime
+                logger.warn("Automatic delivery of package {} skipped: {}", fence.getTrackingNumber(), e.getMessage());
+            }
+        }
+
+        messagingTemplate.convertAndSend("/topic/package/" + fence.getTrackingNumber() + "/arrival",
+                GeofenceArrivalDto.builder()
+                        .trackingNumber(fence.getTrackingNumber())
+                        .courierUsername(fence.getCourierUsername())
+                        .type(fence.getType().name())
+                        .latitude(event.getLatitude())
+                        .longitude(event.getLongitude())
+                        .statusUpdated(statusUpdated)
+                        .timestamp(event.getTimestamp())
+                        .build());
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.LocationPing;
+import com.example.courierdistributionsystem.event.GeofenceArrivalEvent;
+import com.example.courierdistributionsystem.registry.CourierLiveStateRegistry;
+import com.example.courierdistributionsystem.registry.GeofenceIndex;
+import com.example.courierdistributionsystem.registry.GeofenceIndex.Fence;
+import com.example.courierdistributionsystem.registry.GeofenceIndex.FenceType;
+import com.example.courierdistributionsystem.service.IGeofenceService;
+import com.example.courierdistributionsystem.service.LocationPingListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Watches the location stream for couriers reaching their packages' pickup or delivery points.
+// Fences are kept in GeofenceIndex in step with package state; a fence fires once, after the courier has been
+// inside it for a few consecutive pings so a single noisy fix does not count as an arrival.
+@Service
+public class GeofenceServiceImpl implements IGeofenceService, LocationPingListener {
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceServiceImpl.class);
+
+    private static final String SELECT_FENCES_SQL =
+            "SELECT p.package_id, p.tracking_number, p.courier_id, u.username, p.latitude, p.longitude, " +
+            "p.delivery_latitude, p.delivery_longitude, p.current_latitude FROM delivery_packages p " +
+            "JOIN users u ON u.id = p.courier_id WHERE p.status = 'IN_PROGRESS'";
+    private static final String SELECT_PACKAGE_FENCES_SQL = SELECT_FENCES_SQL + " AND p.package_id = ?";
+
+    private final GeofenceIndex geofenceIndex;
+    private final CourierLiveStateRegistry courierRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int minInsidePings;
+
+    // Consecutive pings each courier has spent inside the fences it is currently in
+    private final Map<Long, Map<Fence, Integer>> insideCounts = new ConcurrentHashMap<>();
+
+    private final Counter pickupArrivalCounter;
+    private final Counter deliveryArrivalCounter;
+
+    @Autowired
+    public GeofenceServiceImpl(GeofenceIndex geofenceIndex,
+                               CourierLiveStateRegistry courierRegistry,
+                               JdbcTemplate jdbcTemplate,
+                               ApplicationEventPublisher eventPublisher,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.geofence.min-inside-pings:2}") int minInsidePings) {
+        this.geofenceIndex = geofenceIndex;
+        this.courierRegistry = courierRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.minInsidePings = Math.max(1, minInsidePings);
+
+        this.pickupArrivalCounter = Counter.builder("geofence.arrivals")
+                .description("Couriers detected arriving at a package's geofence")
+                .tag("type", "pickup")
+                .register(meterRegistry);
+        this.deliveryArrivalCounter = Counter.builder("geofence.arrivals")
+                .description("Couriers detected arriving at a package's geofence")
+                .tag("type", "delivery")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<Long, List<Fence>> fences = new HashMap<>();
+        jdbcTemplate.query(SELECT_FENCES_SQL, rs -> {
+            fences.put(rs.getLong("package_id"), toFences(rs));
+        });
+        fences.forEach(geofenceIndex::put);
+        logger.info("Loaded {} geofences of {} in-progress packages", geofenceIndex.size(), fences.size());
+    }
+
+    // Called after a package's status or coordinates change
+    @Override
+    public void refresh(Long packageId) {
+        List<List<Fence>> rows = jdbcTemplate.query(SELECT_PACKAGE_FENCES_SQL, (rs, rowNum) -> toFences(rs), packageId);
+        if (rows.isEmpty()) {
+            geofenceIndex.remove(packageId);
+        } else {
+            geofenceIndex.put(packageId, rows.get(0));
+        }
+    }
+
+    @Override
+    public void onLocationPing(LocationPing ping) {
+        Long courierId = ping.getCourierId() != null
+                ? ping.getCourierId()
+                : courierRegistry.findCourierId(ping.getCourierUsername()).orElse(null);
+        if (courierId == null) {
+            return;
+        }
+        List<Fence> inside = geofenceIndex.containing(courierId, ping.getLatitude(), ping.getLongitude());
+        if (inside.isEmpty()) {
+            insideCounts.remove(courierId);
+            return;
+        }
+
+        Map<Fence, Integer> previous = insideCounts.getOrDefault(courierId, Map.of());
+        Map<Fence, Integer> current = new HashMap<>();
+        List<Fence> arrived = new ArrayList<>();
+        for (Fence fence : inside) {
+            int count = previous.getOrDefault(fence, 0) + 1;
+            if (count >= minInsidePings) {
+                arrived.add(fence);
+            } else {
+                current.put(fence, count);
+            }
+        }
+        if (current.isEmpty()) {
+            insideCounts.remove(courierId);
+        } else {
+            insideCounts.put(courierId, current);
+        }
+
+        for (Fence fence : arrived) {
+            geofenceIndex.remove(fence);
+            (fence.getType() == FenceType.PICKUP ? pickupArrivalCounter : deliveryArrivalCounter).increment();
+            eventPublisher.publishEvent(
+                    new GeofenceArrivalEvent(fence, ping.getLatitude(), ping.getLongitude(), ping.getTimestamp()));
+        }
+    }
+
+    // The pickup fence only exists until the package has reported a position of its own
+    private List<Fence> toFences(ResultSet rs) throws SQLException {
+        long packageId = rs.getLong("package_id");
+        String trackingNumber = rs.getString("tracking_number");
+        long courierId = rs.getLong("courier_id");
+        String username = rs.getString("username");
+        Double pickupLatitude = rs.getObject("latitude", Double.class);
+        Double pickupLongitude = rs.getObject("longitude", Double.class);
+        Double dropLatitude = rs.getObject("delivery_latitude", Double.class);
+        Double dropLongitude = rs.getObject("delivery_longitude", Double.class);
+        boolean pickupPending = rs.getObject("current_latitude") == null;
+
+        List<Fence> fences = new ArrayList<>(2);
+        if (pickupPending && pickupLatitude != null && pickupLongitude != null) {
+            fences.add(new Fence(packageId, trackingNumber, courierId, username, FenceType.PICKUP,
+                    pickupLatitude, pickupLongitude));
+        }
+        if (dropLatitude != null && dropLongitude != null) {
+            fences.add(new Fence(packageId, trackingNumber, courierId, username, FenceType.DELIVERY,
+                    dropLatitude, dropLongitude));
+        }
+        return fences;
+    }
+}
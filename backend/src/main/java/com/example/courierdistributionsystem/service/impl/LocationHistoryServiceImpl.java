@@ -1,29 +1,59 @@
 package com.example.courierdistributionsystem.service.impl;
 
+import com.example.courierdistributionsystem.dto.LocationHistoryPageDto;
+import com.example.courierdistributionsystem.dto.LocationPing;
+import com.example.courierdistributionsystem.dto.LocationPointDto;
 import com.example.courierdistributionsystem.dto.LocationUpdateDto;
+import com.example.courierdistributionsystem.dto.PackageLocationDto;
 import com.example.courierdistributionsystem.model.LocationHistory;
 import com.example.courierdistributionsystem.model.DeliveryPackage;
 import com.example.courierdistributionsystem.model.Courier;
-import com.example.courierdistributionsystem.repository.jpa.LocationHistoryRepository;
+import com.example.courierdistributionsystem.repository.LocationHistoryPartitions;
 import com.example.courierdistributionsystem.repository.jpa.DeliveryPackageRepository;
 import com.example.courierdistributionsystem.repository.jpa.CourierRepository;
+import com.example.courierdistributionsystem.registry.PackageAssignmentTable;
+import com.example.courierdistributionsystem.service.ILocationIngestService;
+import com.example.courierdistributionsystem.service.ITrackCompactionService;
 import com.example.courierdistributionsystem.service.LocationHistoryService;
 import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
+import com.example.courierdistributionsystem.utils.TrackCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LocationHistoryServiceImpl implements LocationHistoryService {
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int TRACK_BATCH_SIZE = 20;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final Comparator<PageKey> KEYSET_ORDER = Comparator
+        .comparing((PageKey key) -> key.timestamp)
+        .thenComparingLong(key -> key.packageId)
+        .thenComparingInt(key -> key.source)
+        .thenComparingLong(key -> key.sequence);
+    private static final int TRACK_SOURCE = 0;
+    private static final int ROW_SOURCE = 1;
 
-    private final LocationHistoryRepository locationHistoryRepository;
+    private final LocationHistoryPartitions locationHistoryPartitions;
     private final DeliveryPackageRepository deliveryPackageRepository;
     private final CourierRepository courierRepository;
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final ILocationIngestService locationIngestService;
+    private final ITrackCompactionService trackCompactionService;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     @Transactional
@@ -65,13 +95,285 @@ public class LocationHistoryServiceImpl implements LocationHistoryService {
             .build();
 
         log.debug("Saving location history for package {}: {}", trackingNumber, history);
-        return locationHistoryRepository.save(history);
+        locationHistoryPartitions.insert(List.<Object[]>of(new Object[] {
+            deliveryPackage.getPackage_id(), courier.getId(), courierUsername,
+            history.getLatitude(), history.getLongitude(), history.getZone(), Timestamp.valueOf(history.getTimestamp())
+        }));
+        return history;
+    }
+
+    @Override
+    public PackageLocationDto recordLocationUpdate(LocationUpdateDto locationUpdate, String courierUsername) {
+        String trackingNumber = locationUpdate.getTrackingNumber();
+        PackageAssignmentTable.Assignment assignment = packageAssignmentTable.find(trackingNumber)
+            .orElseThrow(() -> new ResourceNotFoundException(
+                "No delivery in progress with tracking number: " + trackingNumber));
+
+        if (!assignment.isAssignedTo(courierUsername)) {
+            String errorMsg = String.format("Courier %s is not assigned to package %s",
+                                          courierUsername, trackingNumber);
+            log.error(errorMsg);
+            throw new IllegalStateException(errorMsg);
+        }
+
+        LocalDateTime timestamp = locationUpdate.getTimestamp() != null ? locationUpdate.getTimestamp() : LocalDateTime.now();
+        locationIngestService.submit(LocationPing.builder()
+            .courierUsername(courierUsername)
+            .courierId(assignment.getCourierId())
+            .packageId(assignment.getPackageId())
+            .latitude(locationUpdate.getLatitude())
+            .longitude(locationUpdate.getLongitude())
+            .zone(locationUpdate.getZone())
+            .timestamp(timestamp)
+            .build());
+
+        return PackageLocationDto.builder()
+            .trackingNumber(trackingNumber)
+            .courierUsername(courierUsername)
+            .latitude(locationUpdate.getLatitude())
+            .longitude(locationUpdate.getLongitude())
+            .zone(locationUpdate.getZone())
+            .timestamp(timestamp)
+            .build();
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<LocationHistory> getLocationHistory(String trackingNumber) {
         log.debug("Retrieving location history for package {}", trackingNumber);
-        return locationHistoryRepository.findByTrackingNumberOrderByTimestampDesc(trackingNumber);
+        DeliveryPackage deliveryPackage = deliveryPackageRepository.findByTrackingNumber(trackingNumber)
+            .orElseThrow(() -> new ResourceNotFoundException(
+                "Package not found with tracking number: " + trackingNumber));
+        List<LocationHistory> history = getPackageLocationHistory(deliveryPackage.getPackage_id());
+        Collections.reverse(history);
+        return history;
+    }
+
+    @Override
+    public List<LocationHistory> getPackageLocationHistory(Long packageId) {
+        // Delivered routes live in a compressed track; the codec is lossless so callers see the original points
+        return trackCompactionService.loadTrack(packageId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LocationHistoryPageDto getLocationHistoryPage(String trackingNumber, LocalDateTime from, LocalDateTime to,
+                                                         String cursor, int limit) {
+        List<Long> packageIds = jdbcTemplate.queryForList(
+            "SELECT package_id FROM delivery_packages WHERE tracking_number = ?", Long.class, trackingNumber);
+        if (packageIds.isEmpty()) {
+            throw new ResourceNotFoundException("Package not found with tracking number: " + trackingNumber);
+        }
+        return page("package_id", packageIds.get(0), from, to, cursor, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LocationHistoryPageDto getPackageLocationHistoryPage(Long packageId, LocalDateTime from, LocalDateTime to,
+                                                                String cursor, int limit) {
+        return page("package_id", packageId, from, to, cursor, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LocationHistoryPageDto getCourierLocationHistoryPage(Long courierId, LocalDateTime from, LocalDateTime to,
+                                                                String cursor, int limit) {
+        return page("courier_id", courierId, from, to, cursor, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LocationHistoryPageDto getAllLocationHistoryPage(LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        return page(null, null, from, to, cursor, limit);
+    }
+
+    // Keyset page over (timestamp, package, source, sequence) that merges live rows with compressed tracks of
+    // delivered packages. Compressed points carry no row id; they sort before the package's rows at the same
+    // timestamp and are told apart by their position in the track, so every point has a distinct key.
+    private LocationHistoryPageDto page(String column, Long value, LocalDateTime from, LocalDateTime to,
+                                        String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PageKey after = decodeCursor(cursor);
+
+        StringBuilder rowSql = new StringBuilder(" WHERE 1 = 1");
+        StringBuilder trackSql = new StringBuilder(
+            "SELECT package_id, courier_username, started_at, data FROM compressed_tracks WHERE 1 = 1");
+        List<Object> rowArgs = new ArrayList<>();
+        List<Object> trackArgs = new ArrayList<>();
+        if (column != null) {
+            rowSql.append(" AND ").append(column).append(" = ?");
+            trackSql.append(" AND ").append(column).append(" = ?");
+            rowArgs.add(value);
+            trackArgs.add(value);
+        }
+        if (from != null) {
+            rowSql.append(" AND timestamp >= ?");
+            trackSql.append(" AND ended_at >= ?");
+            rowArgs.add(Timestamp.valueOf(from));
+            trackArgs.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            rowSql.append(" AND timestamp < ?");
+            trackSql.append(" AND started_at < ?");
+            rowArgs.add(Timestamp.valueOf(to));
+            trackArgs.add(Timestamp.valueOf(to));
+        }
+        if (after != null) {
+            rowSql.append(" AND (timestamp > ? OR (timestamp = ? AND (package_id > ? OR (package_id = ? AND id > ?))))");
+            trackSql.append(" AND ended_at >= ?");
+            Timestamp afterTimestamp = Timestamp.valueOf(after.timestamp);
+            rowArgs.add(afterTimestamp);
+            rowArgs.add(afterTimestamp);
+            rowArgs.add(after.packageId);
+            rowArgs.add(after.packageId);
+            // After a compressed point every row of that package and timestamp is still to come
+            rowArgs.add(after.source == ROW_SOURCE ? after.sequence : -1L);
+            trackArgs.add(afterTimestamp);
+        }
+        rowSql.append(" ORDER BY timestamp, package_id, id LIMIT ?");
+        rowArgs.add(0);
+
+        // Partitions are disjoint days, so walking them in order yields rows already in keyset order
+        LocalDateTime floor = after != null && (from == null || after.timestamp.isAfter(from)) ? after.timestamp : from;
+        List<String> tables = "package_id".equals(column)
+            ? locationHistoryPartitions.tablesForPackage(value, floor, to)
+            : locationHistoryPartitions.tables(floor, to);
+        List<PageKey> candidates = new ArrayList<>();
+        for (String table : tables) {
+            if (candidates.size() > size) {
+                break;
+            }
+            rowArgs.set(rowArgs.size() - 1, size + 1 - candidates.size());
+            candidates.addAll(jdbcTemplate.query(
+                "SELECT id, package_id, courier_username, latitude, longitude, zone, timestamp FROM " + table + rowSql,
+                (rs, rowNum) -> new PageKey(ROW_SOURCE, rs.getLong("id"), LocationPointDto.builder()
+                    .id(rs.getLong("id"))
+                    .packageId(rs.getLong("package_id"))
+                    .courierUsername(rs.getString("courier_username"))
+                    .latitude(rs.getDouble("latitude"))
+                    .longitude(rs.getDouble("longitude"))
+                    .zone(rs.getString("zone"))
+                    .timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+                    .build()),
+                rowArgs.toArray()));
+        }
+
+        // Tracks are read in (started_at, package_id) batches. Once the candidates fill a page, a track starting after
+        // the last of them cannot contribute, so the query is cut off there and the scan ends with the first such track.
+        LocalDateTime lastStartedAt = null;
+        long lastPackageId = 0;
+        boolean pageFull = false;
+        while (!pageFull) {
+            StringBuilder batchSql = new StringBuilder(trackSql);
+            List<Object> batchArgs = new ArrayList<>(trackArgs);
+            if (lastStartedAt != null) {
+                batchSql.append(" AND (started_at > ? OR (started_at = ? AND package_id > ?))");
+                batchArgs.add(Timestamp.valueOf(lastStartedAt));
+                batchArgs.add(Timestamp.valueOf(lastStartedAt));
+                batchArgs.add(lastPackageId);
+            }
+            if (candidates.size() > size) {
+                candidates.sort(KEYSET_ORDER);
+                batchSql.append(" AND started_at <= ?");
+                batchArgs.add(Timestamp.valueOf(candidates.get(size).timestamp));
+            }
+            batchSql.append(" ORDER BY started_at, package_id LIMIT ?");
+            batchArgs.add(TRACK_BATCH_SIZE);
+            List<Object[]> tracks = jdbcTemplate.query(batchSql.toString(),
+                (rs, rowNum) -> new Object[] {
+                    rs.getLong("package_id"), rs.getString("courier_username"),
+                    rs.getTimestamp("started_at").toLocalDateTime(), rs.getBytes("data")
+                },
+                batchArgs.toArray());
+            for (Object[] track : tracks) {
+                if (candidates.size() > size) {
+                    candidates.sort(KEYSET_ORDER);
+                    // Only the first size + 1 candidates can make it onto the page or decide hasMore
+                    candidates.subList(size + 1, candidates.size()).clear();
+                    if (((LocalDateTime) track[2]).isAfter(candidates.get(size).timestamp)) {
+                        pageFull = true;
+                        break;
+                    }
+                }
+                Long packageId = (Long) track[0];
+                String courierUsername = (String) track[1];
+                List<TrackCodec.Point> points = TrackCodec.decode((byte[]) track[3]);
+                for (int ordinal = 0; ordinal < points.size(); ordinal++) {
+                    TrackCodec.Point point = points.get(ordinal);
+                    PageKey key = new PageKey(TRACK_SOURCE, ordinal, LocationPointDto.builder()
+                        .packageId(packageId)
+                        .courierUsername(courierUsername)
+                        .latitude(point.getLatitude())
+                        .longitude(point.getLongitude())
+                        .zone(point.getZone())
+                        .timestamp(point.getTimestamp())
+                        .build());
+                    if (inWindow(point.getTimestamp(), from, to) && (after == null || KEYSET_ORDER.compare(key, after) > 0)) {
+                        candidates.add(key);
+                    }
+                }
+            }
+            if (tracks.size() < TRACK_BATCH_SIZE) {
+                break;
+            }
+            Object[] last = tracks.get(tracks.size() - 1);
+            lastStartedAt = (LocalDateTime) last[2];
+            lastPackageId = (Long) last[0];
+        }
+
+        candidates.sort(KEYSET_ORDER);
+        boolean hasMore = candidates.size() > size;
+        List<PageKey> page = hasMore ? candidates.subList(0, size) : candidates;
+        List<LocationPointDto> items = new ArrayList<>(page.size());
+        page.forEach(key -> items.add(key.point));
+        return LocationHistoryPageDto.builder()
+            .items(items)
+            .hasMore(hasMore)
+            .nextCursor(hasMore ? encodeCursor(page.get(page.size() - 1)) : null)
+            .build();
+    }
+
+    private static boolean inWindow(LocalDateTime timestamp, LocalDateTime from, LocalDateTime to) {
+        return (from == null || !timestamp.isBefore(from)) && (to == null || timestamp.isBefore(to));
+    }
+
+    private static String encodeCursor(PageKey last) {
+        long micros = ChronoUnit.MICROS.between(EPOCH, last.timestamp);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(
+            (micros + ":" + last.packageId + ":" + last.source + ":" + last.sequence).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static PageKey decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            return new PageKey(EPOCH.plus(Long.parseLong(parts[0]), ChronoUnit.MICROS), Long.parseLong(parts[1]),
+                Integer.parseInt(parts[2]), Long.parseLong(parts[3]), null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor: " + cursor);
+        }
+    }
+
+    // Position of a point in the page order: row points use their row id, compressed points their track ordinal
+    private static class PageKey {
+        private final LocalDateTime timestamp;
+        private final long packageId;
+        private final int source;
+        private final long sequence;
+        private final LocationPointDto point;
+
+        PageKey(int source, long sequence, LocationPointDto point) {
+            this(point.getTimestamp(), point.getPackageId(), source, sequence, point);
+        }
+
+        PageKey(LocalDateTime timestamp, long packageId, int source, long sequence, LocationPointDto point) {
+            this.timestamp = timestamp;
+            this.packageId = packageId;
+            this.source = source;
+            this.sequence = sequence;
+            this.point = point;
+        }
     }
-} 
\ No newline at end of file
+}
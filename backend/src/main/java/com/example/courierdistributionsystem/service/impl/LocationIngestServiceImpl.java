@@ -0,0 +1,415 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.LocationPing;
+import com.example.courierdistributionsystem.exception.LocationIngestException;
+import com.example.courierdistributionsystem.repository.LocationHistoryPartitions;
+import com.example.courierdistributionsystem.service.ILocationIngestService;
+import com.example.courierdistributionsystem.service.LocationPingListener;
+import com.example.courierdistributionsystem.utils.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class LocationIngestServiceImpl implements ILocationIngestService {
+    private static final Logger logger = LoggerFactory.getLogger(LocationIngestServiceImpl.class);
+
+    private static final String UPDATE_PACKAGE_POSITION_SQL =
+            "UPDATE delivery_packages SET current_latitude = ?, current_longitude = ?, current_location = ?, updated_at = ? " +
+            "WHERE package_id = ?";
+    private static final String INSERT_MOVED_EVENT_SQL =
+            "INSERT INTO package_events (package_id, courier_id, type, status, notes, location_data, occurred_at) " +
+            "SELECT package_id, courier_id, 'MOVED', status, ?, ?, ? FROM delivery_packages WHERE package_id = ?";
+    private static final String SELECT_COURIER_IDS_SQL =
+            "SELECT u.id, u.username FROM users u JOIN couriers c ON c.user_id = u.id WHERE u.username IN (:usernames)";
+    private static final String SELECT_ACTIVE_PACKAGES_SQL =
+            "SELECT courier_id, MIN(package_id) AS package_id FROM delivery_packages " +
+            "WHERE status = 'IN_PROGRESS' AND courier_id IN (:courierIds) GROUP BY courier_id";
+
+    private static final int AUDIT_STATE_CAPACITY = 10_000;
+    private static final int COURIER_STATE_CAPACITY = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final LocationHistoryPartitions locationHistoryPartitions;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<LocationPingListener> listeners;
+    private final BlockingQueue<LocationPing> queue;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final long shutdownTimeoutMillis;
+    private final double auditMinDistanceMeters;
+    private final long auditMaxIntervalMillis;
+
+    // Per-courier state is only touched under the flush lock and keeps the most recently active couriers
+    private final Map<String, Long> courierIdCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > COURIER_STATE_CAPACITY;
+        }
+    };
+    private final Map<String, LocationPing> lastFlushedByCourier = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LocationPing> eldest) {
+            return size() > COURIER_STATE_CAPACITY;
+        }
+    };
+    // Last position recorded as a package event per package, so telemetry only audits meaningful moves
+    private final Map<Long, LocationPing> lastAuditedByPackage = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, LocationPing> eldest) {
+            return size() > AUDIT_STATE_CAPACITY;
+        }
+    };
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter acceptedCounter;
+    private final Counter rejectedCounter;
+    private final Counter coalescedCounter;
+    private final Counter persistedCounter;
+    private final Counter droppedCounter;
+    private final Counter auditSuppressedCounter;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    private volatile boolean accepting = true;
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    @Autowired
+    public LocationIngestServiceImpl(JdbcTemplate jdbcTemplate,
+                                     NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                     LocationHistoryPartitions locationHistoryPartitions,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectProvider<LocationPingListener> listeners,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.location-ingest.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${app.location-ingest.batch-size:500}") int batchSize,
+                                     @Value("${app.location-ingest.linger-ms:200}") long lingerMillis,
+                                     @Value("${app.location-ingest.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis,
+                                     @Value("${app.location-audit.min-distance-meters:250}") double auditMinDistanceMeters,
+                                     @Value("${app.location-audit.max-interval-seconds:300}") long auditMaxIntervalSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.locationHistoryPartitions = locationHistoryPartitions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.listeners = listeners;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.auditMinDistanceMeters = auditMinDistanceMeters;
+        this.auditMaxIntervalMillis = TimeUnit.SECONDS.toMillis(auditMaxIntervalSeconds);
+
+        Gauge.builder("location.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Location pings waiting to be flushed")
+                .register(meterRegistry);
+        this.acceptedCounter = Counter.builder("location.ingest.pings.accepted")
+                .description("Location pings accepted into the ingest queue")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("location.ingest.pings.rejected")
+                .description("Location pings rejected because the ingest queue was full")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("location.ingest.pings.coalesced")
+                .description("Location pings dropped as duplicates of the courier's previous position")
+                .register(meterRegistry);
+        this.persistedCounter = Counter.builder("location.ingest.pings.persisted")
+                .description("Location pings written by the ingest flusher")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("location.ingest.pings.dropped")
+                .description("Location pings lost because a flush failed or the courier was unknown")
+                .register(meterRegistry);
+        this.auditSuppressedCounter = Counter.builder("location.audit.suppressed")
+                .description("Package position updates that did not produce a package event")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("location.ingest.flush.latency")
+                .description("Time taken to write one batch of location pings")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("location.ingest.batch.size")
+                .description("Number of location pings drained per flush")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = new Thread(this::runFlushLoop, "location-ingest-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Location ingest pipeline started (capacity: {}, batch size: {}, linger: {} ms)",
+                queue.remainingCapacity(), batchSize, lingerMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Stopping location ingest pipeline with {} pending pings", queue.size());
+        accepting = false;
+        running = false;
+        try {
+            flusher.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logger.info("Location ingest pipeline stopped");
+    }
+
+    @Override
+    public boolean offer(LocationPing ping) {
+        if (accepting && queue.offer(ping)) {
+            acceptedCounter.increment();
+            notifyListeners(ping);
+            return true;
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    @Override
+    public void submit(LocationPing ping) {
+        if (!offer(ping)) {
+            logger.warn("Rejecting location ping from courier {}: ingest queue is full", ping.getCourierUsername());
+            throw new LocationIngestException("Location updates are arriving faster than they can be stored, retry later");
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void flush() {
+        // Holding the lock also waits for a batch the flusher thread may be writing
+        flushLock.lock();
+        try {
+            List<LocationPing> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void forgetCourier(String username) {
+        flushLock.lock();
+        try {
+            courierIdCache.remove(username);
+            lastFlushedByCourier.remove(username);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Live state is updated as soon as a ping is accepted; only the history trails behind the flusher
+    private void notifyListeners(LocationPing ping) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onLocationPing(ping);
+            } catch (Exception e) {
+                logger.error("Location ping listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        });
+    }
+
+    private void runFlushLoop() {
+        List<LocationPing> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                LocationPing first = queue.poll(lingerMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    LocationPing next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<LocationPing> batch) {
+        flushLock.lock();
+        try {
+            long start = System.nanoTime();
+            Map<String, LocationPing> flushed = new HashMap<>();
+            List<LocationPing> pings = coalesce(batch, flushed);
+            Map<Long, LocationPing> audited = new HashMap<>();
+            int written = transactionTemplate.execute(status -> persist(pings, audited));
+            // Dedupe and audit state only advance once the batch is committed, so a failed flush is not remembered
+            lastFlushedByCourier.putAll(flushed);
+            lastAuditedByPackage.putAll(audited);
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+            persistedCounter.increment(written);
+            droppedCounter.increment(pings.size() - written);
+            logger.debug("Flushed {} location pings ({} coalesced)", written, batch.size() - pings.size());
+        } catch (Exception e) {
+            logger.error("Failed to flush {} location pings: {}", batch.size(), e.getMessage(), e);
+            droppedCounter.increment(batch.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Each courier's latest kept ping is collected in flushed, which the caller records once the batch commits
+    private List<LocationPing> coalesce(List<LocationPing> batch, Map<String, LocationPing> flushed) {
+        List<LocationPing> pings = new ArrayList<>(batch.size());
+        for (LocationPing ping : batch) {
+            LocationPing previous = flushed.get(ping.getCourierUsername());
+            if (previous == null) {
+                previous = lastFlushedByCourier.get(ping.getCourierUsername());
+            }
+            if (ping.samePositionAs(previous) && Objects.equals(ping.getPackageId(), previous.getPackageId())) {
+                coalescedCounter.increment();
+                continue;
+            }
+            flushed.put(ping.getCourierUsername(), ping);
+            pings.add(ping);
+        }
+        return pings;
+    }
+
+    private int persist(List<LocationPing> pings, Map<Long, LocationPing> audited) {
+        Map<String, Long> courierIds = resolveCourierIds(pings);
+        Map<Long, Long> activePackages = resolveActivePackages(pings, courierIds);
+
+        int written = 0;
+        List<Object[]> historyRows = new ArrayList<>(pings.size());
+        Map<Long, LocationPing> latestByPackage = new LinkedHashMap<>();
+
+        for (LocationPing ping : pings) {
+            Long courierId = ping.getCourierId() != null ? ping.getCourierId() : courierIds.get(ping.getCourierUsername());
+            if (courierId == null) {
+                logger.warn("Dropping location ping from unknown courier {}", ping.getCourierUsername());
+                continue;
+            }
+            written++;
+
+            Long packageId = ping.getPackageId() != null ? ping.getPackageId() : activePackages.get(courierId);
+            if (packageId == null) {
+                continue;
+            }
+            latestByPackage.put(packageId, ping);
+            historyRows.add(new Object[] {
+                    packageId, courierId, ping.getCourierUsername(),
+                    ping.getLatitude(), ping.getLongitude(), ping.getZone(),
+                    Timestamp.valueOf(ping.getTimestamp())
+            });
+        }
+
+        if (!historyRows.isEmpty()) {
+            locationHistoryPartitions.insert(historyRows);
+        }
+        if (!latestByPackage.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> packageRows = new ArrayList<>(latestByPackage.size());
+            List<Object[]> auditRows = new ArrayList<>(latestByPackage.size());
+            latestByPackage.forEach((packageId, ping) -> {
+                packageRows.add(new Object[] {
+                        ping.getLatitude(), ping.getLongitude(), ping.getZone(), now, packageId
+                });
+                if (!isAuditWorthy(lastAuditedByPackage.get(packageId), ping)) {
+                    auditSuppressedCounter.increment();
+                    return;
+                }
+                audited.put(packageId, ping);
+                auditRows.add(new Object[] {
+                        "Location updated to: " + ping.getZone(),
+                        String.format("Lat: %f, Long: %f", ping.getLatitude(), ping.getLongitude()),
+                        now, packageId
+                });
+            });
+            jdbcTemplate.batchUpdate(UPDATE_PACKAGE_POSITION_SQL, packageRows);
+            if (!auditRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_MOVED_EVENT_SQL, auditRows);
+            }
+        }
+        return written;
+    }
+
+    private boolean isAuditWorthy(LocationPing lastAudited, LocationPing ping) {
+        if (lastAudited == null || !Objects.equals(lastAudited.getZone(), ping.getZone())) {
+            return true;
+        }
+        if (Duration.between(lastAudited.getTimestamp(), ping.getTimestamp()).toMillis() >= auditMaxIntervalMillis) {
+            return true;
+        }
+        return GeoUtils.distanceMeters(lastAudited.getLatitude(), lastAudited.getLongitude(),
+                ping.getLatitude(), ping.getLongitude()) >= auditMinDistanceMeters;
+    }
+
+    private Map<String, Long> resolveCourierIds(List<LocationPing> pings) {
+        Set<String> missing = new HashSet<>();
+        for (LocationPing ping : pings) {
+            if (ping.getCourierId() == null && !courierIdCache.containsKey(ping.getCourierUsername())) {
+                missing.add(ping.getCourierUsername());
+            }
+        }
+        if (!missing.isEmpty()) {
+            namedParameterJdbcTemplate.query(SELECT_COURIER_IDS_SQL, Map.of("usernames", missing),
+                    rs -> { courierIdCache.put(rs.getString("username"), rs.getLong("id")); });
+        }
+        return courierIdCache;
+    }
+
+    private Map<Long, Long> resolveActivePackages(List<LocationPing> pings, Map<String, Long> courierIds) {
+        Set<Long> couriers = new HashSet<>();
+        for (LocationPing ping : pings) {
+            if (ping.getPackageId() != null) {
+                continue;
+            }
+            Long courierId = ping.getCourierId() != null ? ping.getCourierId() : courierIds.get(ping.getCourierUsername());
+            if (courierId != null) {
+                couriers.add(courierId);
+            }
+        }
+        Map<Long, Long> activePackages = new HashMap<>();
+        if (!couriers.isEmpty()) {
+            namedParameterJdbcTemplate.query(SELECT_ACTIVE_PACKAGES_SQL, Map.of("courierIds", couriers),
+                    rs -> { activePackages.put(rs.getLong("courier_id"), rs.getLong("package_id")); });
+        }
+        return activePackages;
+    }
+}
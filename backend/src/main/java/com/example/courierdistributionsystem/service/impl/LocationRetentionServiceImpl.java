@@ -0,0 +1,63 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.repository.LocationHistoryPartitions;
+import com.example.courierdistributionsystem.service.ILocationRetentionService;
+import com.example.courierdistributionsystem.service.ITrackCompactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+@Service
+public class LocationRetentionServiceImpl implements ILocationRetentionService {
+    private static final Logger logger = LoggerFactory.getLogger(LocationRetentionServiceImpl.class);
+
+    private final LocationHistoryPartitions locationHistoryPartitions;
+    private final ITrackCompactionService trackCompactionService;
+    private final int rawDays;
+    private final Counter droppedPartitionsCounter;
+
+    @Autowired
+    public LocationRetentionServiceImpl(LocationHistoryPartitions locationHistoryPartitions,
+                                        ITrackCompactionService trackCompactionService,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.location-retention.raw-days:7}") int rawDays) {
+        this.locationHistoryPartitions = locationHistoryPartitions;
+        this.trackCompactionService = trackCompactionService;
+        this.rawDays = rawDays;
+
+        Gauge.builder("location.history.partitions", locationHistoryPartitions,
+                        partitions -> partitions.tables(null, null).size())
+                .description("Daily location history partitions currently held")
+                .register(meterRegistry);
+        this.droppedPartitionsCounter = Counter.builder("location.retention.partitions.dropped")
+                .description("Daily location history partitions rolled into compressed tracks and dropped")
+                .register(meterRegistry);
+    }
+
+    // Raw points older than the retention window survive only inside compressed tracks
+    @Override
+    @Scheduled(cron = "${app.location-retention.cron:0 30 3 * * *}")
+    public int enforceRetention() {
+        int dropped = 0;
+        for (LocalDate day : locationHistoryPartitions.daysBefore(LocalDate.now().minusDays(rawDays))) {
+            try {
+                trackCompactionService.rollUpPartition(day);
+                locationHistoryPartitions.drop(day);
+                droppedPartitionsCounter.increment();
+                dropped++;
+            } catch (Exception e) {
+                // The partition is kept and retried on the next run; folding already-folded points is a no-op
+                logger.error("Failed to retire location history partition for {}: {}", day, e.getMessage(), e);
+            }
+        }
+        return dropped;
+    }
+}
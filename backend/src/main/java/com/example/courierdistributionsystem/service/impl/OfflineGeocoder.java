@@ -0,0 +1,104 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.GeocodeResult;
+import com.example.courierdistributionsystem.service.Geocoder;
+import com.example.courierdistributionsystem.utils.AddressUtils;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Resolves addresses without any network call: literal "lat, lng" pairs are taken as-is, otherwise the most
+// specific gazetteer place named in the address wins (districts over cities over countries).
+@Component
+@ConditionalOnProperty(name = "app.geocoding.provider", havingValue = "offline", matchIfMissing = true)
+public class OfflineGeocoder implements Geocoder {
+    private static final Logger logger = LoggerFactory.getLogger(OfflineGeocoder.class);
+
+    private static final Pattern COORDINATES = Pattern.compile("(-?\\d{1,2}\\.\\d+) (-?\\d{1,3}\\.\\d+)");
+
+    private final Resource gazetteer;
+    private final Map<String, Place> places = new HashMap<>();
+    private int maxPlaceWords = 1;
+
+    public OfflineGeocoder(@Value("${app.geocoding.gazetteer:classpath:geocoding/gazetteer.csv}") Resource gazetteer) {
+        this.gazetteer = gazetteer;
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(gazetteer.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                String name = AddressUtils.normalize(fields[0]);
+                places.put(name, new Place(Double.parseDouble(fields[1]), Double.parseDouble(fields[2]),
+                        fields.length > 3 ? Integer.parseInt(fields[3].trim()) : 0));
+                maxPlaceWords = Math.max(maxPlaceWords, name.split(" ").length);
+            }
+        }
+        logger.info("Loaded {} gazetteer places from {}", places.size(), gazetteer.getDescription());
+    }
+
+    @Override
+    public String getName() {
+        return "offline";
+    }
+
+    @Override
+    public Optional<GeocodeResult> geocode(String normalizedAddress) {
+        Matcher coordinates = COORDINATES.matcher(normalizedAddress);
+        if (coordinates.find()) {
+            double latitude = Double.parseDouble(coordinates.group(1));
+            double longitude = Double.parseDouble(coordinates.group(2));
+            if (Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+                return Optional.of(new GeocodeResult(latitude, longitude));
+            }
+        }
+
+        String[] words = normalizedAddress.split(" ");
+        Place best = null;
+        for (int start = 0; start < words.length; start++) {
+            StringBuilder name = new StringBuilder();
+            for (int end = start; end < Math.min(words.length, start + maxPlaceWords); end++) {
+                if (end > start) {
+                    name.append(' ');
+                }
+                name.append(words[end]);
+                Place place = places.get(name.toString());
+                if (place != null && (best == null || place.rank > best.rank)) {
+                    best = place;
+                }
+            }
+        }
+        return best == null ? Optional.empty() : Optional.of(new GeocodeResult(best.latitude, best.longitude));
+    }
+
+    private static class Place {
+        private final double latitude;
+        private final double longitude;
+        private final int rank;
+
+        Place(double latitude, double longitude, int rank) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.rank = rank;
+        }
+    }
+}
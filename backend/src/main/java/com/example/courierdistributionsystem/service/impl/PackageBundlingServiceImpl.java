@@ -0,0 +1,167 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.CourierDto;
+import com.example.courierdistributionsystem.dto.DeliveryPackageDto;
+import com.example.courierdistributionsystem.dto.PackageBundleDto;
+import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
+import com.example.courierdistributionsystem.mapper.DeliveryPackageMapper;
+import com.example.courierdistributionsystem.model.DeliveryPackage;
+import com.example.courierdistributionsystem.registry.CourierLiveStateRegistry;
+import com.example.courierdistributionsystem.registry.PackageAssignmentTable;
+import com.example.courierdistributionsystem.repository.jpa.DeliveryPackageRepository;
+import com.example.courierdistributionsystem.service.IDeliveryPackageService;
+import com.example.courierdistributionsystem.service.IPackageBundlingService;
+import com.example.courierdistributionsystem.utils.GeoUtils;
+import com.example.courierdistributionsystem.utils.PackageBundler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Offers a courier whole bundles of pending packages that fit their vehicle and remaining load, nearest pickups
+// first. Claiming a bundle is a single conditional update, so the courier gets every package in it or none.
+@Service
+public class PackageBundlingServiceImpl implements IPackageBundlingService {
+    private final CourierLiveStateRegistry courierLiveStateRegistry;
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final DeliveryPackageRepository deliveryPackageRepository;
+    private final IDeliveryPackageService deliveryPackageService;
+    private final DeliveryPackageMapper deliveryPackageMapper;
+    private final int maxLoad;
+    private final double maxRadiusMeters;
+    private final int bundleMaxPackages;
+    private final double bundlePickupRadiusMeters;
+    private final double bundleMaxHeadingDifferenceDegrees;
+    private final int offerLimit;
+    private final double gridCellDegrees;
+
+    @Autowired
+    public PackageBundlingServiceImpl(CourierLiveStateRegistry courierLiveStateRegistry,
+                                      PackageAssignmentTable packageAssignmentTable,
+                                      DeliveryPackageRepository deliveryPackageRepository,
+                                      IDeliveryPackageService deliveryPackageService,
+                                      DeliveryPackageMapper deliveryPackageMapper,
+                                      @Value("${app.dispatch.max-load:3}") int maxLoad,
+                                      @Value("${app.dispatch.max-radius-meters:20000}") double maxRadiusMeters,
+                                      @Value("${app.dispatch.bundle.max-packages:3}") int bundleMaxPackages,
+                                      @Value("${app.dispatch.bundle.pickup-radius-meters:1000}") double bundlePickupRadiusMeters,
+                                      @Value("${app.dispatch.bundle.max-heading-difference-degrees:45}") double bundleMaxHeadingDifferenceDegrees,
+                                      @Value("${app.dispatch.bundle.offer-limit:20}") int offerLimit,
+                                      @Value("${app.courier-registry.grid-cell-degrees:0.01}") double gridCellDegrees) {
+        this.courierLiveStateRegistry = courierLiveStateRegistry;
+        this.packageAssignmentTable = packageAssignmentTable;
+        this.deliveryPackageRepository = deliveryPackageRepository;
+        this.deliveryPackageService = deliveryPackageService;
+        this.deliveryPackageMapper = deliveryPackageMapper;
+        this.maxLoad = maxLoad;
+        this.maxRadiusMeters = maxRadiusMeters;
+        this.bundleMaxPackages = bundleMaxPackages;
+        this.bundlePickupRadiusMeters = bundlePickupRadiusMeters;
+        this.bundleMaxHeadingDifferenceDegrees = bundleMaxHeadingDifferenceDegrees;
+        this.offerLimit = offerLimit;
+        this.gridCellDegrees = gridCellDegrees;
+    }
+
+    @Override
+    public List<PackageBundleDto> getAvailableBundles(String username) {
+        CourierDto courier = findCourier(username);
+        int spareLoad = maxLoad - packageAssignmentTable.countPackages(courier.getId());
+        if (spareLoad <= 0) {
+            return List.of();
+        }
+        Double latitude = courier.getCurrentLatitude();
+        Double longitude = courier.getCurrentLongitude();
+        boolean located = latitude != null && longitude != null;
+
+        // Nearest pickups seed the bundles; without a courier position the oldest packages go first
+        List<DeliveryPackage> pending = deliveryPackageRepository.findByStatusAndCourierIsNull(DeliveryPackage.DeliveryStatus.PENDING);
+        Map<Long, Double> distances = new HashMap<>();
+        if (located) {
+            for (DeliveryPackage deliveryPackage : pending) {
+                distances.put(deliveryPackage.getPackage_id(), pickupDistance(deliveryPackage, latitude, longitude));
+            }
+            pending.removeIf(deliveryPackage -> {
+                Double distance = distances.get(deliveryPackage.getPackage_id());
+                return distance != null && distance > maxRadiusMeters;
+            });
+            pending.sort(Comparator.comparing(deliveryPackage -> distances.get(deliveryPackage.getPackage_id()),
+                    Comparator.nullsLast(Comparator.naturalOrder())));
+        } else {
+            pending.sort(Comparator.comparing(DeliveryPackage::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        }
+
+        Map<Long, DeliveryPackage> byId = new HashMap<>();
+        List<PackageBundler.Parcel> parcels = new ArrayList<>(pending.size());
+        for (DeliveryPackage deliveryPackage : pending) {
+            byId.put(deliveryPackage.getPackage_id(), deliveryPackage);
+            parcels.add(new PackageBundler.Parcel(deliveryPackage.getPackage_id(), deliveryPackage.getWeight(),
+                    deliveryPackage.getPickupLatitude(), deliveryPackage.getPickupLongitude(),
+                    deliveryPackage.getDeliveryLatitude(), deliveryPackage.getDeliveryLongitude()));
+        }
+        double capacity = PackageBundler.capacityOf(courier.getVehicleType());
+        List<PackageBundleDto> offers = new ArrayList<>();
+        for (PackageBundler.Bundle bundle : PackageBundler.bundle(parcels, capacity, Math.min(bundleMaxPackages, spareLoad),
+                bundlePickupRadiusMeters, bundleMaxHeadingDifferenceDegrees, gridCellDegrees)) {
+            // A lone package heavier than the vehicle still forms a bundle of its own
+            if (bundle.getWeight() > capacity) {
+                continue;
+            }
+            List<DeliveryPackageDto> packages = bundle.getParcels().stream()
+                    .map(parcel -> deliveryPackageMapper.toDto(byId.get(parcel.getPackageId())))
+                    .collect(Collectors.toList());
+            offers.add(new PackageBundleDto(packages, bundle.getWeight(),
+                    PackageBundler.smallestVehicleFor(bundle.getWeight()),
+                    distances.get(bundle.getLead().getPackageId())));
+            if (offers.size() >= offerLimit) {
+                break;
+            }
+        }
+        return offers;
+    }
+
+    @Override
+    public List<DeliveryPackageDto> claimBundle(String username, List<Long> packageIds) {
+        CourierDto courier = findCourier(username);
+        Set<Long> ids = new LinkedHashSet<>(packageIds != null ? packageIds : List.of());
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("No packages to claim");
+        }
+        if (ids.size() > bundleMaxPackages) {
+            throw new IllegalArgumentException("A bundle holds at most " + bundleMaxPackages + " packages");
+        }
+        if (packageAssignmentTable.countPackages(courier.getId()) + ids.size() > maxLoad) {
+            throw new IllegalStateException("Courier cannot carry " + ids.size() + " more packages");
+        }
+        List<DeliveryPackage> packages = deliveryPackageRepository.findAllById(ids);
+        if (packages.size() != ids.size()) {
+            throw new ResourceNotFoundException("Delivery package not found");
+        }
+        double weight = packages.stream().mapToDouble(DeliveryPackage::getWeight).sum();
+        if (weight > PackageBundler.capacityOf(courier.getVehicleType())) {
+            throw new IllegalStateException("Bundle weight exceeds the vehicle capacity");
+        }
+        return deliveryPackageService.claimDeliveryPackages(new ArrayList<>(ids), username);
+    }
+
+    private CourierDto findCourier(String username) {
+        return courierLiveStateRegistry.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Courier not found: " + username));
+    }
+
+    private static Double pickupDistance(DeliveryPackage deliveryPackage, double latitude, double longitude) {
+        Double pickupLatitude = deliveryPackage.getPickupLatitude();
+        Double pickupLongitude = deliveryPackage.getPickupLongitude();
+        if (pickupLatitude == null || pickupLongitude == null) {
+            return null;
+        }
+        return GeoUtils.approximateDistanceMeters(latitude, longitude, pickupLatitude, pickupLongitude);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.PackageEventDto;
+import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
+import com.example.courierdistributionsystem.model.PackageEvent;
+import com.example.courierdistributionsystem.model.ProjectionCheckpoint;
+import com.example.courierdistributionsystem.repository.jpa.DeliveryPackageRepository;
+import com.example.courierdistributionsystem.repository.jpa.PackageEventRepository;
+import com.example.courierdistributionsystem.repository.jpa.ProjectionCheckpointRepository;
+import com.example.courierdistributionsystem.service.IPackageEventService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Service
+public class PackageEventServiceImpl implements IPackageEventService {
+    private static final Logger logger = LoggerFactory.getLogger(PackageEventServiceImpl.class);
+
+    private static final String DELIVERY_HISTORY_PROJECTION = "delivery-history";
+
+    private static final Set<PackageEvent.Type> PROJECTED_TYPES = EnumSet.of(
+            PackageEvent.Type.PICKED_UP, PackageEvent.Type.RELEASED, PackageEvent.Type.DELIVERED, PackageEvent.Type.CANCELLED);
+
+    // Every type is read so that a missing id can be told apart from an event that is simply not projected
+    private static final String SELECT_EVENTS_SQL =
+            "SELECT id, package_id, courier_id, type, occurred_at FROM package_events WHERE id > ? ORDER BY id LIMIT ?";
+    // One delivery history row per pickup; replays skip pickups that already have their row
+    private static final String INSERT_SPELL_SQL =
+            "INSERT INTO delivery_histories (courier_id, package_id, created_at, picked_up_at, delivery_status, " +
+            "pickup_location, delivery_location, source_event_id) " +
+            "SELECT ?, p.package_id, ?, ?, 'IN_PROGRESS', p.pickup_address, p.delivery_address, ? " +
+            "FROM delivery_packages p WHERE p.package_id = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM delivery_histories h WHERE h.source_event_id = ?)";
+    // Closes the latest pickup before the event, so the result does not depend on the order events are applied in
+    private static final String CLOSE_SPELL_SQL =
+            "UPDATE delivery_histories SET delivery_status = ?, completed_at = ?, cancelled_at = ? " +
+            "WHERE source_event_id = (SELECT MAX(h.source_event_id) FROM delivery_histories h " +
+            "WHERE h.package_id = ? AND h.source_event_id < ?)";
+
+    private final PackageEventRepository packageEventRepository;
+    private final ProjectionCheckpointRepository projectionCheckpointRepository;
+    private final DeliveryPackageRepository deliveryPackageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter projectedEventsCounter;
+    // Events past the checkpoint that were already applied, so unsettled ones are not written again every run
+    private final NavigableSet<Long> applied = new TreeSet<>();
+    // Ids missing above the checkpoint, with the System.nanoTime() at which this projector first saw them missing
+    private final NavigableMap<Long, Long> gapSeenAt = new TreeMap<>();
+
+    @Value("${app.package-events.batch-size:500}")
+    private int batchSize;
+
+    // Identity ids are handed out before commit, so a slow transaction can land an event behind newer ones.
+    // The checkpoint stops at the first missing id until that gap has stayed open this long on our own clock
+    // (a rolled back insert never fills it); events beyond it are applied but read again on the next run.
+    @Value("${app.package-events.settle-ms:5000}")
+    private long settleMs;
+
+    @Autowired
+    public PackageEventServiceImpl(PackageEventRepository packageEventRepository,
+                                   ProjectionCheckpointRepository projectionCheckpointRepository,
+                                   DeliveryPackageRepository deliveryPackageRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry) {
+        this.packageEventRepository = packageEventRepository;
+        this.projectionCheckpointRepository = projectionCheckpointRepository;
+        this.deliveryPackageRepository = deliveryPackageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.projectedEventsCounter = Counter.builder("package.events.projected")
+                .description("Package events applied to the courier delivery history")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PackageEventDto> getTimeline(Long packageId) {
+        if (!deliveryPackageRepository.existsById(packageId)) {
+            throw new ResourceNotFoundException("Package not found with id: " + packageId);
+        }
+        return packageEventRepository.findTimeline(packageId).stream()
+                .map(event -> PackageEventDto.builder()
+                        .id(event.getId())
+                        .type(event.getType().name())
+                        .status(event.getStatus().name())
+                        .courierUsername(event.getCourier() != null ? event.getCourier().getUsername() : null)
+                        .notes(event.getNotes())
+                        .locationData(event.getLocationData())
+                        .occurredAt(event.getOccurredAt())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.package-events.projection-interval-ms:1000}")
+    public synchronized int project() {
+        ProjectionCheckpoint checkpoint = checkpoint();
+        long cursor = checkpoint.getLastEventId();
+        long now = System.nanoTime();
+        long settleNanos = settleMs * 1_000_000;
+        long expected = cursor + 1;
+        boolean contiguous = true;
+        int total = 0;
+        while (true) {
+            List<StoredEvent> events = jdbcTemplate.query(SELECT_EVENTS_SQL, (rs, rowNum) -> new StoredEvent(
+                    rs.getLong("id"),
+                    rs.getLong("package_id"),
+                    rs.getObject("courier_id", Long.class),
+                    PackageEvent.Type.valueOf(rs.getString("type")),
+                    rs.getTimestamp("occurred_at")), cursor, batchSize);
+            if (events.isEmpty()) {
+                break;
+            }
+            List<StoredEvent> fresh = new ArrayList<>(events.size());
+            long settledUpTo = checkpoint.getLastEventId();
+            for (StoredEvent event : events) {
+                if (PROJECTED_TYPES.contains(event.type) && !applied.contains(event.id)) {
+                    fresh.add(event);
+                }
+                gapSeenAt.remove(event.id);
+                for (long missing = expected; missing < event.id; missing++) {
+                    long seenAt = gapSeenAt.computeIfAbsent(missing, id -> now);
+                    contiguous &= now - seenAt >= settleNanos;
+                }
+                expected = event.id + 1;
+                if (contiguous) {
+                    settledUpTo = event.id;
+                }
+            }
+            long newCheckpoint = settledUpTo;
+            if (!fresh.isEmpty() || newCheckpoint > checkpoint.getLastEventId()) {
+                checkpoint = transactionTemplate.execute(status -> apply(fresh, newCheckpoint));
+            }
+            fresh.forEach(event -> applied.add(event.id));
+            applied.headSet(newCheckpoint, true).clear();
+            gapSeenAt.headMap(newCheckpoint, true).clear();
+            cursor = events.get(events.size() - 1).id;
+            total += fresh.size();
+            projectedEventsCounter.increment(fresh.size());
+            if (events.size() < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            logger.debug("Projected {} package events up to id {}", total, cursor);
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized int rebuildProjections() {
+        ProjectionCheckpoint checkpoint = checkpoint();
+        checkpoint.setLastEventId(0);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        projectionCheckpointRepository.save(checkpoint);
+        applied.clear();
+        gapSeenAt.clear();
+        int replayed = project();
+        logger.info("Rebuilt delivery history from {} package events", replayed);
+        return replayed;
+    }
+
+    private ProjectionCheckpoint apply(List<StoredEvent> events, long lastEventId) {
+        List<Object[]> pickups = new ArrayList<>();
+        List<Object[]> closes = new ArrayList<>();
+        for (StoredEvent event : events) {
+            switch (event.type) {
+                case PICKED_UP -> {
+                    if (event.courierId != null) {
+                        pickups.add(new Object[] {event.courierId, event.occurredAt, event.occurredAt, event.id,
+                                event.packageId, event.id});
+                    }
+                }
+                case DELIVERED -> closes.add(new Object[] {"DELIVERED", event.occurredAt, null, event.packageId, event.id});
+                case CANCELLED -> closes.add(new Object[] {"CANCELLED", null, event.occurredAt, event.packageId, event.id});
+                case RELEASED -> closes.add(new Object[] {"PENDING", null, null, event.packageId, event.id});
+                default -> {
+                }
+            }
+        }
+        if (!pickups.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SPELL_SQL, pickups);
+        }
+        if (!closes.isEmpty()) {
+            jdbcTemplate.batchUpdate(CLOSE_SPELL_SQL, closes);
+        }
+        return projectionCheckpointRepository.save(ProjectionCheckpoint.builder()
+                .projectionName(DELIVERY_HISTORY_PROJECTION)
+                .lastEventId(lastEventId)
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+
+    private ProjectionCheckpoint checkpoint() {
+        return projectionCheckpointRepository.findById(DELIVERY_HISTORY_PROJECTION)
+                .orElseGet(() -> ProjectionCheckpoint.builder()
+                        .projectionName(DELIVERY_HISTORY_PROJECTION)
+                        .lastEventId(0)
+                        .updatedAt(LocalDateTime.now())
+                        .build());
+    }
+
+    private static class StoredEvent {
+        private final long id;
+        private final long packageId;
+        private final Long courierId;
+        private final PackageEvent.Type type;
+        private final Timestamp occurredAt;
+
+        StoredEvent(long id, long packageId, Long courierId, PackageEvent.Type type, Timestamp occurredAt) {
+            this.id = id;
+            this.packageId = packageId;
+            this.courierId = courierId;
+            this.type = type;
+            this.occurredAt = occurredAt;
+        }
+    }
+}
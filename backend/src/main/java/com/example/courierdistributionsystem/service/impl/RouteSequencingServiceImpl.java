@@ -0,0 +1,234 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.CourierDto;
+import com.example.courierdistributionsystem.dto.RouteStopDto;
+import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
+import com.example.courierdistributionsystem.registry.CourierLiveStateRegistry;
+import com.example.courierdistributionsystem.registry.PackageAssignmentTable;
+import com.example.courierdistributionsystem.service.IRouteSequencingService;
+import com.example.courierdistributionsystem.utils.RouteSequencer;
+import com.example.courierdistributionsystem.utils.RouteSequencer.Stop;
+import com.example.courierdistributionsystem.utils.RouteSequencer.StopType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Keeps one sequenced route per courier with active packages. Each read diffs the courier's assigned packages
+// against the cached route: removed packages are cut out, added ones are inserted at their cheapest position and
+// the route is only rebuilt from scratch when most of it is new.
+@Service
+public class RouteSequencingServiceImpl implements IRouteSequencingService {
+    private static final String SELECT_PACKAGES_SQL =
+            "SELECT package_id, tracking_number, pickup_address, delivery_address, latitude, longitude, " +
+            "delivery_latitude, delivery_longitude, current_latitude FROM delivery_packages " +
+            "WHERE package_id IN (%s) ORDER BY package_id";
+
+    private final CourierLiveStateRegistry courierLiveStateRegistry;
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final JdbcTemplate jdbcTemplate;
+    private final long timeBudgetNanos;
+    private final double rebuildRatio;
+
+    private final Map<Long, CourierRoute> routes = new ConcurrentHashMap<>();
+
+    private final Timer rebuildTimer;
+    private final Timer insertTimer;
+
+    @Autowired
+    public RouteSequencingServiceImpl(CourierLiveStateRegistry courierLiveStateRegistry,
+                                      PackageAssignmentTable packageAssignmentTable,
+                                      JdbcTemplate jdbcTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.route-sequencing.time-budget-ms:50}") long timeBudgetMs,
+                                      @Value("${app.route-sequencing.rebuild-ratio:0.5}") double rebuildRatio) {
+        this.courierLiveStateRegistry = courierLiveStateRegistry;
+        this.packageAssignmentTable = packageAssignmentTable;
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        this.rebuildRatio = rebuildRatio;
+
+        this.rebuildTimer = Timer.builder("routing.sequence.latency")
+                .description("Time spent sequencing a courier's stops")
+                .tag("mode", "rebuild")
+                .register(meterRegistry);
+        this.insertTimer = Timer.builder("routing.sequence.latency")
+                .description("Time spent sequencing a courier's stops")
+                .tag("mode", "insert")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<RouteStopDto> getRoute(String username) {
+        CourierDto courier = courierLiveStateRegistry.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Courier not found: " + username));
+        Set<Long> packageIds = packageAssignmentTable.findPackageIds(courier.getId());
+        if (packageIds.isEmpty()) {
+            routes.remove(courier.getId());
+            return List.of();
+        }
+
+        CourierRoute route = routes.computeIfAbsent(courier.getId(), id -> new CourierRoute());
+        synchronized (route) {
+            update(route, courier, loadPackages(packageIds));
+            return toDtos(route);
+        }
+    }
+
+    private void update(CourierRoute route, CourierDto courier, Map<Long, RoutedPackage> current) {
+        // A package whose stops changed (geocoded, picked up) is handled as a removal plus an insertion
+        List<Long> removed = new ArrayList<>();
+        for (Map.Entry<Long, RoutedPackage> entry : route.packages.entrySet()) {
+            RoutedPackage now = current.get(entry.getKey());
+            if (now == null || !now.sameStops(entry.getValue())) {
+                removed.add(entry.getKey());
+            }
+        }
+        for (Long packageId : removed) {
+            route.stops = RouteSequencer.remove(route.stops, packageId);
+            route.packages.remove(packageId);
+        }
+
+        List<Stop> added = new ArrayList<>();
+        for (RoutedPackage routedPackage : current.values()) {
+            // Existing entries are still replaced, since addresses can be edited without moving a stop
+            if (route.packages.put(routedPackage.packageId, routedPackage) == null) {
+                added.addAll(routedPackage.locatedStops());
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+
+        boolean located = courier.getCurrentLatitude() != null && courier.getCurrentLongitude() != null;
+        Stop origin = route.stops.isEmpty() ? added.get(0) : route.stops.get(0);
+        double startLatitude = located ? courier.getCurrentLatitude() : origin.getLatitude();
+        double startLongitude = located ? courier.getCurrentLongitude() : origin.getLongitude();
+
+        long start = System.nanoTime();
+        if (route.stops.isEmpty() || added.size() > rebuildRatio * (route.stops.size() + added.size())) {
+            List<Stop> all = new ArrayList<>(route.stops);
+            all.addAll(added);
+            route.stops = RouteSequencer.sequence(startLatitude, startLongitude, all, timeBudgetNanos);
+            rebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } else {
+            route.stops = RouteSequencer.insert(startLatitude, startLongitude, route.stops, added, timeBudgetNanos);
+            insertTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Map<Long, RoutedPackage> loadPackages(Set<Long> packageIds) {
+        String placeholders = packageIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        List<RoutedPackage> rows = jdbcTemplate.query(String.format(SELECT_PACKAGES_SQL, placeholders),
+                (rs, rowNum) -> toRoutedPackage(rs), packageIds.toArray());
+        Map<Long, RoutedPackage> packages = new LinkedHashMap<>();
+        rows.forEach(routedPackage -> packages.put(routedPackage.packageId, routedPackage));
+        return packages;
+    }
+
+    private RoutedPackage toRoutedPackage(ResultSet rs) throws SQLException {
+        RoutedPackage routedPackage = new RoutedPackage();
+        routedPackage.packageId = rs.getLong("package_id");
+        routedPackage.trackingNumber = rs.getString("tracking_number");
+        routedPackage.pickupAddress = rs.getString("pickup_address");
+        routedPackage.deliveryAddress = rs.getString("delivery_address");
+        routedPackage.pickupLatitude = rs.getObject("latitude", Double.class);
+        routedPackage.pickupLongitude = rs.getObject("longitude", Double.class);
+        routedPackage.dropLatitude = rs.getObject("delivery_latitude", Double.class);
+        routedPackage.dropLongitude = rs.getObject("delivery_longitude", Double.class);
+        // Packages are marked picked up when taken, so the first location ping is what shows the courier has them
+        routedPackage.pickupPending = rs.getObject("current_latitude") == null;
+        return routedPackage;
+    }
+
+    // Sequenced stops first, then stops that cannot be placed until their address is geocoded
+    private List<RouteStopDto> toDtos(CourierRoute route) {
+        List<RouteStopDto> stops = new ArrayList<>();
+        for (Stop stop : route.stops) {
+            RoutedPackage routedPackage = route.packages.get(stop.getPackageId());
+            stops.add(new RouteStopDto(stops.size() + 1, routedPackage.packageId, routedPackage.trackingNumber,
+                    stop.getType().name(), routedPackage.address(stop.getType()), stop.getLatitude(), stop.getLongitude()));
+        }
+        for (RoutedPackage routedPackage : route.packages.values()) {
+            for (StopType type : routedPackage.unlocatedStops()) {
+                stops.add(new RouteStopDto(stops.size() + 1, routedPackage.packageId, routedPackage.trackingNumber,
+                        type.name(), routedPackage.address(type), null, null));
+            }
+        }
+        return stops;
+    }
+
+    private static class CourierRoute {
+        private List<Stop> stops = new ArrayList<>();
+        private final Map<Long, RoutedPackage> packages = new LinkedHashMap<>();
+    }
+
+    private static class RoutedPackage {
+        private long packageId;
+        private String trackingNumber;
+        private String pickupAddress;
+        private String deliveryAddress;
+        private Double pickupLatitude;
+        private Double pickupLongitude;
+        private Double dropLatitude;
+        private Double dropLongitude;
+        private boolean pickupPending;
+
+        boolean sameStops(RoutedPackage other) {
+            return pickupPending == other.pickupPending
+                    && Objects.equals(pickupLatitude, other.pickupLatitude)
+                    && Objects.equals(pickupLongitude, other.pickupLongitude)
+                    && Objects.equals(dropLatitude, other.dropLatitude)
+                    && Objects.equals(dropLongitude, other.dropLongitude);
+        }
+
+        // A drop is only routed once its pending pickup can be routed ahead of it
+        List<Stop> locatedStops() {
+            List<Stop> stops = new ArrayList<>(2);
+            if (pickupPending && !pickupLocated()) {
+                return stops;
+            }
+            if (pickupPending) {
+                stops.add(new Stop(packageId, StopType.PICKUP, pickupLatitude, pickupLongitude));
+            }
+            if (dropLocated()) {
+                stops.add(new Stop(packageId, StopType.DROP, dropLatitude, dropLongitude));
+            }
+            return stops;
+        }
+
+        List<StopType> unlocatedStops() {
+            if (pickupPending && !pickupLocated()) {
+                return List.of(StopType.PICKUP, StopType.DROP);
+            }
+            return dropLocated() ? Collections.emptyList() : List.of(StopType.DROP);
+        }
+
+        private boolean pickupLocated() {
+            return pickupLatitude != null && pickupLongitude != null;
+        }
+
+        private boolean dropLocated() {
+            return dropLatitude != null && dropLongitude != null;
+        }
+
+        String address(StopType type) {
+            return type == StopType.PICKUP ? pickupAddress : deliveryAddress;
+        }
+    }
+}
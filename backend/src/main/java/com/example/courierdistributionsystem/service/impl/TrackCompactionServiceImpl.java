@@ -0,0 +1,275 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.model.CompressedTrack;
+import com.example.courierdistributionsystem.model.LocationHistory;
+import com.example.courierdistributionsystem.repository.LocationHistoryPartitions;
+import com.example.courierdistributionsystem.repository.jpa.CompressedTrackRepository;
+import com.example.courierdistributionsystem.service.ITrackCompactionService;
+import com.example.courierdistributionsystem.utils.TrackCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class TrackCompactionServiceImpl implements ITrackCompactionService {
+    private static final Logger logger = LoggerFactory.getLogger(TrackCompactionServiceImpl.class);
+
+    // Rows pulled per round trip while streaming a partition
+    private static final int PARTITION_FETCH_SIZE = 1000;
+
+    private static final String SELECT_POINTS_SQL =
+            "SELECT id, package_id, courier_id, courier_username, latitude, longitude, zone, timestamp FROM %s " +
+            "WHERE package_id = ? ORDER BY timestamp, id";
+    private static final String SELECT_PARTITION_POINTS_SQL =
+            "SELECT id, package_id, courier_id, courier_username, latitude, longitude, zone, timestamp FROM %s " +
+            "ORDER BY package_id, timestamp, id";
+    private static final String DELETE_POINT_SQL = "DELETE FROM %s WHERE id = ?";
+    private static final String SELECT_DELIVERED_WITH_POINTS_SQL =
+            "SELECT DISTINCT lh.package_id FROM %s lh " +
+            "JOIN delivery_packages p ON p.package_id = lh.package_id WHERE p.status = 'DELIVERED'";
+
+    private final CompressedTrackRepository compressedTrackRepository;
+    private final LocationHistoryPartitions locationHistoryPartitions;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final Counter compactedPointsCounter;
+    private final DistributionSummary bytesPerPointSummary;
+
+    @Autowired
+    public TrackCompactionServiceImpl(CompressedTrackRepository compressedTrackRepository,
+                                      LocationHistoryPartitions locationHistoryPartitions,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry) {
+        this.compressedTrackRepository = compressedTrackRepository;
+        this.locationHistoryPartitions = locationHistoryPartitions;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.compactedPointsCounter = Counter.builder("track.compaction.points")
+                .description("Location history rows folded into compressed tracks")
+                .register(meterRegistry);
+        this.bytesPerPointSummary = DistributionSummary.builder("track.compaction.bytes.per.point")
+                .description("Encoded size per point of compacted tracks")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void requestCompaction(Long packageId) {
+        pending.add(packageId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.track-compaction.delay-ms:5000}")
+    public void compactPending() {
+        for (Iterator<Long> it = pending.iterator(); it.hasNext(); ) {
+            Long packageId = it.next();
+            it.remove();
+            compactQuietly(packageId);
+        }
+    }
+
+    // Catches packages delivered before a restart and pings that were flushed after the package was compacted
+    @Scheduled(initialDelayString = "${app.track-compaction.delay-ms:5000}",
+               fixedDelayString = "${app.track-compaction.sweep-interval-ms:600000}")
+    public void sweep() {
+        Set<Long> packageIds = new TreeSet<>();
+        for (String table : locationHistoryPartitions.tables(null, null)) {
+            packageIds.addAll(jdbcTemplate.queryForList(String.format(SELECT_DELIVERED_WITH_POINTS_SQL, table), Long.class));
+        }
+        if (!packageIds.isEmpty()) {
+            logger.info("Compacting location history of {} delivered packages", packageIds.size());
+        }
+        packageIds.forEach(this::compactQuietly);
+    }
+
+    @Override
+    public int compact(Long packageId) {
+        Integer compacted = transactionTemplate.execute(status -> {
+            List<StoredPoint> rows = selectRows(packageId);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            fold(packageId, rows);
+            Map<String, List<Object[]>> idsByTable = new LinkedHashMap<>();
+            for (StoredPoint row : rows) {
+                idsByTable.computeIfAbsent(row.table, key -> new ArrayList<>()).add(new Object[] {row.id});
+            }
+            idsByTable.forEach((table, ids) -> jdbcTemplate.batchUpdate(String.format(DELETE_POINT_SQL, table), ids));
+            return rows.size();
+        });
+        compactedPointsCounter.increment(compacted);
+        logger.debug("Compacted {} location points of package {}", compacted, packageId);
+        return compacted;
+    }
+
+    // Folds a whole day into compressed tracks without deleting rows; the caller drops the partition afterwards.
+    // The partition is streamed in package order and each package is folded as soon as its last row has been read,
+    // so only one package's points are held at a time.
+    @Override
+    public int rollUpPartition(LocalDate day) {
+        String table = LocationHistoryPartitions.tableName(day);
+        RowMapper<StoredPoint> mapper = storedPointMapper(table);
+        List<StoredPoint> packageRows = new ArrayList<>();
+        int[] totals = new int[2];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(String.format(SELECT_PARTITION_POINTS_SQL, table),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(PARTITION_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            StoredPoint row = mapper.mapRow(rs, rs.getRow());
+            if (!packageRows.isEmpty() && packageRows.get(0).packageId != row.packageId) {
+                foldPartitionRows(packageRows, totals);
+            }
+            packageRows.add(row);
+        });
+        if (!packageRows.isEmpty()) {
+            foldPartitionRows(packageRows, totals);
+        }
+        compactedPointsCounter.increment(totals[0]);
+        logger.info("Rolled {} location points of {} packages from {} into compressed tracks",
+                totals[0], totals[1], table);
+        return totals[0];
+    }
+
+    // Commits one package of a partition roll-up and clears the buffer for the next
+    private void foldPartitionRows(List<StoredPoint> rows, int[] totals) {
+        long packageId = rows.get(0).packageId;
+        transactionTemplate.executeWithoutResult(status -> fold(packageId, rows));
+        totals[0] += rows.size();
+        totals[1]++;
+        rows.clear();
+    }
+
+    @Override
+    public List<LocationHistory> loadTrack(Long packageId) {
+        // Rows are read before the blob: a compaction running in between then shows up as duplicates, not gaps
+        List<LocationHistory> history = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (StoredPoint row : selectRows(packageId)) {
+            history.add(toLocationHistory(row.id, row.courierUsername, row.point));
+            seen.add(pointKey(row.point));
+        }
+        compressedTrackRepository.findById(packageId).ifPresent(track -> {
+            for (TrackCodec.Point point : TrackCodec.decode(track.getData())) {
+                if (!seen.contains(pointKey(point))) {
+                    history.add(toLocationHistory(null, track.getCourierUsername(), point));
+                }
+            }
+        });
+        history.sort(Comparator.comparing(LocationHistory::getTimestamp));
+        return history;
+    }
+
+    private void compactQuietly(Long packageId) {
+        try {
+            compact(packageId);
+        } catch (Exception e) {
+            logger.error("Failed to compact location history of package {}: {}", packageId, e.getMessage(), e);
+        }
+    }
+
+    // Merges rows into the package's track; points already in the track are skipped so a retried fold is harmless
+    private void fold(Long packageId, List<StoredPoint> rows) {
+        Optional<CompressedTrack> existing = compressedTrackRepository.findById(packageId);
+        List<TrackCodec.Point> points = new ArrayList<>();
+        existing.ifPresent(track -> points.addAll(TrackCodec.decode(track.getData())));
+        Set<String> seen = new HashSet<>();
+        points.forEach(point -> seen.add(pointKey(point)));
+        for (StoredPoint row : rows) {
+            if (seen.add(pointKey(row.point))) {
+                points.add(row.point);
+            }
+        }
+        points.sort(Comparator.comparing(TrackCodec.Point::getTimestamp));
+
+        StoredPoint first = rows.get(0);
+        byte[] data = TrackCodec.encode(points);
+        CompressedTrack track = existing.orElseGet(() -> CompressedTrack.builder()
+                .packageId(packageId)
+                .courierId(first.courierId)
+                .courierUsername(first.courierUsername)
+                .build());
+        track.setPointCount(points.size());
+        track.setStartedAt(points.get(0).getTimestamp());
+        track.setEndedAt(points.get(points.size() - 1).getTimestamp());
+        track.setData(data);
+        track.setCompactedAt(LocalDateTime.now());
+        compressedTrackRepository.save(track);
+        bytesPerPointSummary.record((double) data.length / points.size());
+    }
+
+    private List<StoredPoint> selectRows(Long packageId) {
+        List<StoredPoint> rows = new ArrayList<>();
+        for (String table : locationHistoryPartitions.tablesForPackage(packageId, null, null)) {
+            rows.addAll(jdbcTemplate.query(String.format(SELECT_POINTS_SQL, table), storedPointMapper(table), packageId));
+        }
+        return rows;
+    }
+
+    private static RowMapper<StoredPoint> storedPointMapper(String table) {
+        return (rs, rowNum) -> new StoredPoint(
+                table,
+                rs.getLong("id"),
+                rs.getLong("package_id"),
+                rs.getLong("courier_id"),
+                rs.getString("courier_username"),
+                new TrackCodec.Point(
+                        rs.getTimestamp("timestamp").toLocalDateTime(),
+                        rs.getDouble("latitude"),
+                        rs.getDouble("longitude"),
+                        rs.getString("zone")));
+    }
+
+    private static String pointKey(TrackCodec.Point point) {
+        return point.getTimestamp() + "|" + point.getLatitude() + "|" + point.getLongitude();
+    }
+
+    private static LocationHistory toLocationHistory(Long id, String courierUsername, TrackCodec.Point point) {
+        return LocationHistory.builder()
+                .id(id)
+                .latitude(point.getLatitude())
+                .longitude(point.getLongitude())
+                .zone(point.getZone())
+                .courierUsername(courierUsername)
+                .timestamp(point.getTimestamp())
+                .build();
+    }
+
+    private static class StoredPoint {
+        private final String table;
+        private final long id;
+        private final long packageId;
+        private final long courierId;
+        private final String courierUsername;
+        private final TrackCodec.Point point;
+
+        StoredPoint(String table, long id, long packageId, long courierId, String courierUsername, TrackCodec.Point point) {
+            this.table = table;
+            this.id = id;
+            this.packageId = packageId;
+            this.courierId = courierId;
+            this.courierUsername = courierUsername;
+            this.point = point;
+        }
+    }
+}
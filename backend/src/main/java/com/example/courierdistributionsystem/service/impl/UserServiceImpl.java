@@ -4,12 +4,15 @@ import com.example.courierdistributionsystem.dto.UserDto;
 import com.example.courierdistributionsystem.exception.AuthenticationException;
 import com.example.courierdistributionsystem.exception.ResourceNotFoundException;
 import com.example.courierdistributionsystem.model.*;
+import com.example.courierdistributionsystem.registry.CourierLiveStateRegistry;
 import com.example.courierdistributionsystem.repository.jpa.UserRepository;
 import com.example.courierdistributionsystem.repository.jpa.AdminRepository;
 import com.example.courierdistributionsystem.repository.jpa.CustomerRepository;
 import com.example.courierdistributionsystem.repository.jpa.CourierRepository;
+import com.example.courierdistributionsystem.service.ILocationIngestService;
 import com.example.courierdistributionsystem.service.IUserService;
 import com.example.courierdistributionsystem.mapper.UserMapper;
+import com.example.courierdistributionsystem.utils.TransactionUtils;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -38,6 +41,8 @@ public class UserServiceImpl implements IUserService {
     private final Counter userSignupCounter;
     private final Counter userSignupFailureCounter;
     private final UserMapper userMapper;
+    private final CourierLiveStateRegistry courierRegistry;
+    private final ILocationIngestService locationIngestService;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
@@ -45,12 +50,16 @@ public class UserServiceImpl implements IUserService {
                       CustomerRepository customerRepository,
                       CourierRepository courierRepository,
                       MeterRegistry meterRegistry,
-                      UserMapper userMapper) {
+                      UserMapper userMapper,
+                      CourierLiveStateRegistry courierRegistry,
+                      ILocationIngestService locationIngestService) {
         this.userRepository = userRepository;
         this.adminRepository = adminRepository;
         this.customerRepository = customerRepository;
         this.courierRepository = courierRepository;
         this.userMapper = userMapper;
+        this.courierRegistry = courierRegistry;
+        this.locationIngestService = locationIngestService;
         
         this.userSignupCounter = Counter.builder("user.signup.total")
                 .description("Total number of user signups")
@@ -153,6 +162,7 @@ public class UserServiceImpl implements IUserService {
         try {
             validatePassword(courier.getPassword());
             Courier savedCourier = courierRepository.save(courier);
+            TransactionUtils.afterCommit(() -> courierRegistry.register(savedCourier));
             logger.info("Successfully saved courier user: {}", courier.getUsername());
             return savedCourier;
         } catch (Exception e) {
@@ -306,7 +316,13 @@ public class UserServiceImpl implements IUserService {
             switch (user.getRole()) {
                 case ADMIN -> adminRepository.delete((Admin) user);
                 case CUSTOMER -> customerRepository.delete((Customer) user);
-                case COURIER -> courierRepository.delete((Courier) user);
+                case COURIER -> {
+                    courierRepository.delete((Courier) user);
+                    TransactionUtils.afterCommit(() -> {
+                        courierRegistry.remove(user.getId());
+                        locationIngestService.forgetCourier(user.getUsername());
+                    });
+                }
             }
             userRepository.delete(user);
             logger.info("User deleted successfully: {}", user.getUsername());
@@ -358,7 +374,11 @@ public class UserServiceImpl implements IUserService {
             user.setPassword(updates.get("password"));
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        if (saved instanceof Courier courier) {
+            TransactionUtils.afterCommit(() -> courierRegistry.register(courier));
+        }
+        return saved;
     }
 
     @Override
@@ -388,7 +408,10 @@ public class UserServiceImpl implements IUserService {
                 }
             }
 
-            userRepository.save(user);
+            User saved = userRepository.save(user);
+            if (saved instanceof Courier courier) {
+                TransactionUtils.afterCommit(() -> courierRegistry.register(courier));
+            }
             
             response.put("status", "success");
             response.put("message", "Settings updated successfully");
@@ -422,7 +445,10 @@ public class UserServiceImpl implements IUserService {
 
             validatePassword(newPassword);
             user.setPassword(newPassword);
-            userRepository.save(user);
+            User saved = userRepository.save(user);
+            if (saved instanceof Courier courier) {
+                TransactionUtils.afterCommit(() -> courierRegistry.register(courier));
+            }
             
             response.put("status", "success");
             response.put("message", "Password changed successfully");
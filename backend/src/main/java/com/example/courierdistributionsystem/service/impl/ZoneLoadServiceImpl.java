@@ -0,0 +1,122 @@
+package com.example.courierdistributionsystem.service.impl;
+
+import com.example.courierdistributionsystem.dto.NearbyCourierDto;
+import com.example.courierdistributionsystem.dto.ZoneLoadSnapshotDto;
+import com.example.courierdistributionsystem.registry.CourierLiveStateRegistry;
+import com.example.courierdistributionsystem.registry.ZoneLoadCounters;
+import com.example.courierdistributionsystem.service.IZoneLoadService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Feeds pending packages into ZoneLoadCounters and broadcasts the per-zone snapshot to /topic/admin/zones.
+// The broadcast runs at a fixed rate and reads only the counters, so its cost does not grow with the tables
+// or with the number of subscribed admins.
+@Service
+public class ZoneLoadServiceImpl implements IZoneLoadService {
+    private static final Logger logger = LoggerFactory.getLogger(ZoneLoadServiceImpl.class);
+
+    private static final String SELECT_PENDING_SQL =
+            "SELECT package_id, status, current_location, latitude, longitude FROM delivery_packages WHERE status = 'PENDING'";
+    private static final String SELECT_PACKAGE_SQL =
+            "SELECT package_id, status, current_location, latitude, longitude FROM delivery_packages WHERE package_id = ?";
+
+    private final ZoneLoadCounters zoneLoadCounters;
+    private final CourierLiveStateRegistry courierRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final double maxRadiusMeters;
+
+    private final Counter pushCounter;
+
+    @Autowired
+    public ZoneLoadServiceImpl(ZoneLoadCounters zoneLoadCounters,
+                               CourierLiveStateRegistry courierRegistry,
+                               JdbcTemplate jdbcTemplate,
+                               SimpMessagingTemplate messagingTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.dispatch.max-radius-meters:20000}") double maxRadiusMeters) {
+        this.zoneLoadCounters = zoneLoadCounters;
+        this.courierRegistry = courierRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.maxRadiusMeters = maxRadiusMeters;
+
+        this.pushCounter = Counter.builder("zone.load.pushes")
+                .description("Zone load snapshots broadcast to admins")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        int[] pending = new int[1];
+        jdbcTemplate.query(SELECT_PENDING_SQL, rs -> {
+            apply(rs);
+            pending[0]++;
+        });
+        logger.info("Loaded {} pending packages into zone load counters", pending[0]);
+    }
+
+    @Override
+    public ZoneLoadSnapshotDto snapshot() {
+        return new ZoneLoadSnapshotDto(LocalDateTime.now(), zoneLoadCounters.snapshot());
+    }
+
+    @Override
+    public void refreshPackage(Long packageId) {
+        List<Boolean> rows = jdbcTemplate.query(SELECT_PACKAGE_SQL, (rs, rowNum) -> apply(rs), packageId);
+        if (rows.isEmpty()) {
+            zoneLoadCounters.packageNotPending(packageId);
+        }
+    }
+
+    @Override
+    public void packagesCreated(Collection<Long> packageIds) {
+        packageIds.forEach(packageId -> zoneLoadCounters.packagePending(packageId, null));
+    }
+
+    @Scheduled(fixedRateString = "${app.zone-load.push-interval-ms:2000}")
+    public void publish() {
+        messagingTemplate.convertAndSend("/topic/admin/zones", snapshot());
+        pushCounter.increment();
+    }
+
+    private boolean apply(ResultSet rs) throws SQLException {
+        long packageId = rs.getLong("package_id");
+        if (!"PENDING".equals(rs.getString("status"))) {
+            zoneLoadCounters.packageNotPending(packageId);
+            return false;
+        }
+        zoneLoadCounters.packagePending(packageId, resolveZone(rs.getString("current_location"),
+                rs.getObject("latitude", Double.class), rs.getObject("longitude", Double.class)));
+        return true;
+    }
+
+    // Same placement as dispatch: the package's own zone, else the zone of the nearest available courier
+    private String resolveZone(String currentLocation, Double latitude, Double longitude) {
+        if (currentLocation != null) {
+            return currentLocation;
+        }
+        if (latitude != null && longitude != null) {
+            List<NearbyCourierDto> nearest = courierRegistry.findNearestAvailable(latitude, longitude, 1, maxRadiusMeters);
+            if (!nearest.isEmpty()) {
+                return nearest.get(0).getCourier().getCurrentZone();
+            }
+        }
+        return null;
+    }
+}
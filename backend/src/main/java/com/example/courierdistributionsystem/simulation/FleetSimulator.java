@@ -0,0 +1,501 @@
+package com.example.courierdistributionsystem.simulation;
+
+import com.example.courierdistributionsystem.dto.CreatePackageDto;
+import com.example.courierdistributionsystem.dto.DeliveryPackageDto;
+import com.example.courierdistributionsystem.dto.LocationPing;
+import com.example.courierdistributionsystem.model.Courier;
+import com.example.courierdistributionsystem.model.Customer;
+import com.example.courierdistributionsystem.model.User;
+import com.example.courierdistributionsystem.registry.CourierLiveStateRegistry;
+import com.example.courierdistributionsystem.registry.PackageAssignmentTable;
+import com.example.courierdistributionsystem.repository.jpa.CourierRepository;
+import com.example.courierdistributionsystem.repository.jpa.CustomerRepository;
+import com.example.courierdistributionsystem.service.IDeliveryPackageService;
+import com.example.courierdistributionsystem.service.IDispatchService;
+import com.example.courierdistributionsystem.service.ILocationIngestService;
+import com.example.courierdistributionsystem.utils.GeoUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+// Headless capacity run for the "simulator" profile. Builds a synthetic city of square zones with couriers of
+// mixed vehicle types and Poisson package arrivals weighted per zone, then drives the package service, dispatch
+// and the location ingest pipeline directly on a simulated clock that advances as fast as the services allow.
+// Couriers travel in straight lines at their vehicle's speed, serving their packages in assignment order.
+@Component
+@Profile("simulator")
+public class FleetSimulator implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(FleetSimulator.class);
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    private static final List<String> VEHICLE_MIX = List.of("MOTORCYCLE", "MOTORCYCLE", "MOTORCYCLE", "CAR", "CAR", "VAN");
+    private static final Map<String, Double> VEHICLE_SPEED_MPS = Map.of(
+            "MOTORCYCLE", 9.0,
+            "CAR", 7.0,
+            "VAN", 6.0);
+    private static final int SAVE_BATCH_SIZE = 1000;
+    private static final long MB = 1024 * 1024;
+
+    private final IDeliveryPackageService deliveryPackageService;
+    private final IDispatchService dispatchService;
+    private final ILocationIngestService locationIngestService;
+    private final CourierRepository courierRepository;
+    private final CustomerRepository customerRepository;
+    private final CourierLiveStateRegistry courierRegistry;
+    private final PackageAssignmentTable packageAssignmentTable;
+    private final StatementCounter statementCounter;
+    private final ConfigurableApplicationContext context;
+
+    private final int courierCount;
+    private final int customerCount;
+    private final int zoneSide;
+    private final double packagesPerDay;
+    private final double simulatedHours;
+    private final int stepSeconds;
+    private final int dispatchIntervalSeconds;
+    private final int stopSeconds;
+    private final double centerLatitude;
+    private final double centerLongitude;
+    private final double radiusMeters;
+    private final long seed;
+    private final String reportFile;
+    private final boolean exitOnFinish;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Autowired
+    public FleetSimulator(IDeliveryPackageService deliveryPackageService,
+                          IDispatchService dispatchService,
+                          ILocationIngestService locationIngestService,
+                          CourierRepository courierRepository,
+                          CustomerRepository customerRepository,
+                          CourierLiveStateRegistry courierRegistry,
+                          PackageAssignmentTable packageAssignmentTable,
+                          StatementCounter statementCounter,
+                          ConfigurableApplicationContext context,
+                          @Value("${app.simulator.couriers:10000}") int courierCount,
+                          @Value("${app.simulator.customers:1000}") int customerCount,
+                          @Value("${app.simulator.zones:16}") int zones,
+                          @Value("${app.simulator.packages-per-day:100000}") double packagesPerDay,
+                          @Value("${app.simulator.simulated-hours:24}") double simulatedHours,
+                          @Value("${app.simulator.step-seconds:30}") int stepSeconds,
+                          @Value("${app.simulator.dispatch-interval-seconds:30}") int dispatchIntervalSeconds,
+                          @Value("${app.simulator.stop-seconds:120}") int stopSeconds,
+                          @Value("${app.simulator.center-latitude:41.0082}") double centerLatitude,
+                          @Value("${app.simulator.center-longitude:28.9784}") double centerLongitude,
+                          @Value("${app.simulator.radius-km:15}") double radiusKm,
+                          @Value("${app.simulator.seed:42}") long seed,
+                          @Value("${app.simulator.report-file:}") String reportFile,
+                          @Value("${app.simulator.exit-on-finish:true}") boolean exitOnFinish) {
+        this.deliveryPackageService = deliveryPackageService;
+        this.dispatchService = dispatchService;
+        this.locationIngestService = locationIngestService;
+        this.courierRepository = courierRepository;
+        this.customerRepository = customerRepository;
+        this.courierRegistry = courierRegistry;
+        this.packageAssignmentTable = packageAssignmentTable;
+        this.statementCounter = statementCounter;
+        this.context = context;
+        this.courierCount = courierCount;
+        this.customerCount = Math.max(1, customerCount);
+        this.zoneSide = Math.max(1, (int) Math.round(Math.sqrt(zones)));
+        this.packagesPerDay = packagesPerDay;
+        this.simulatedHours = simulatedHours;
+        this.stepSeconds = Math.max(1, stepSeconds);
+        this.dispatchIntervalSeconds = Math.max(this.stepSeconds, dispatchIntervalSeconds);
+        this.stopSeconds = stopSeconds;
+        this.centerLatitude = centerLatitude;
+        this.centerLongitude = centerLongitude;
+        this.radiusMeters = radiusKm * 1000;
+        this.seed = seed;
+        this.reportFile = reportFile;
+        this.exitOnFinish = exitOnFinish;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Random random = new Random(seed);
+        City city = new City(random);
+        long setupStart = System.nanoTime();
+        Map<Long, SimCourier> couriers = createCouriers(city, random);
+        List<Customer> customers = createCustomers();
+        logger.info("Synthetic city ready: {} zones, {} couriers, {} customers in {} ms",
+                zoneSide * zoneSide, couriers.size(), customers.size(), (System.nanoTime() - setupStart) / 1_000_000);
+
+        Run run = new Run();
+        statementCounter.reset();
+        LocalDateTime origin = LocalDateTime.now();
+        long totalSeconds = Math.round(simulatedHours * 3600);
+        double arrivalsPerStep = packagesPerDay / 86_400.0 * stepSeconds;
+        long wallStart = System.nanoTime();
+        long nextDispatch = 0;
+        long nextProgressLog = 3600;
+
+        for (long second = 0; second < totalSeconds; second += stepSeconds) {
+            LocalDateTime now = origin.plusSeconds(second);
+            int arrivals = poisson(random, arrivalsPerStep);
+            for (int i = 0; i < arrivals; i++) {
+                createPackage(city, random, customers.get(random.nextInt(customers.size())), second, run);
+            }
+            if (second >= nextDispatch) {
+                dispatch(couriers, second, run);
+                nextDispatch += dispatchIntervalSeconds;
+            }
+            for (SimCourier courier : couriers.values()) {
+                advance(courier, city, now, second + stepSeconds, run);
+            }
+            run.heapPeak = Math.max(run.heapPeak, memory.getHeapMemoryUsage().getUsed());
+            if (second >= nextProgressLog) {
+                nextProgressLog += 3600;
+                logger.info("Simulated {} h: created {}, assigned {}, delivered {}, waiting {}",
+                        second / 3600, run.created, run.assignmentLatencies.size(), run.deliveryTimes.size(),
+                        run.waiting.size());
+            }
+        }
+        locationIngestService.flush();
+
+        SimulationReport report = report(run, couriers.size(), (System.nanoTime() - wallStart) / 1e9);
+        String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report);
+        logger.info("Simulation report:\n{}", json);
+        if (!reportFile.isBlank()) {
+            Files.writeString(Path.of(reportFile), json);
+        }
+        if (exitOnFinish) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private Map<Long, SimCourier> createCouriers(City city, Random random) {
+        Map<Long, SimCourier> couriers = new LinkedHashMap<>();
+        for (int from = 0; from < courierCount; from += SAVE_BATCH_SIZE) {
+            List<Courier> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(courierCount, from + SAVE_BATCH_SIZE); i++) {
+                double[] position = city.randomPoint(random);
+                batch.add(Courier.builder()
+                        .username("sim-courier-" + i)
+                        .email("sim-courier-" + i + "@simulator.local")
+                        .password("simulated")
+                        .role(User.UserRole.COURIER)
+                        .vehicleType(VEHICLE_MIX.get(random.nextInt(VEHICLE_MIX.size())))
+                        .available(true)
+                        .currentLatitude(position[0])
+                        .currentLongitude(position[1])
+                        .currentZone(city.zoneOf(position[0], position[1]))
+                        .build());
+            }
+            for (Courier courier : courierRepository.saveAll(batch)) {
+                courierRegistry.register(courier);
+                couriers.put(courier.getId(), new SimCourier(courier));
+            }
+        }
+        return couriers;
+    }
+
+    private List<Customer> createCustomers() {
+        List<Customer> customers = new ArrayList<>(customerCount);
+        for (int from = 0; from < customerCount; from += SAVE_BATCH_SIZE) {
+            List<Customer> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(customerCount, from + SAVE_BATCH_SIZE); i++) {
+                batch.add(Customer.builder()
+                        .username("sim-customer-" + i)
+                        .email("sim-customer-" + i + "@simulator.local")
+                        .password("simulated")
+                        .role(User.UserRole.CUSTOMER)
+                        .build());
+            }
+            customers.addAll(customerRepository.saveAll(batch));
+        }
+        return customers;
+    }
+
+    // Addresses carry literal coordinates, which the offline geocoder resolves as-is
+    private void createPackage(City city, Random random, Customer customer, long second, Run run) {
+        double[] pickup = city.randomPickup(random);
+        double[] drop = city.randomPoint(random);
+        CreatePackageDto request = new CreatePackageDto();
+        request.setPickupAddress(String.format(Locale.ROOT, "Pickup %.6f %.6f", pickup[0], pickup[1]));
+        request.setDeliveryAddress(String.format(Locale.ROOT, "Drop %.6f %.6f", drop[0], drop[1]));
+        request.setWeight(Math.min(50.0, 0.2 + -Math.log(1 - random.nextDouble()) * 4));
+        request.setDescription("Simulated parcel");
+        try {
+            DeliveryPackageDto created = deliveryPackageService.createDeliveryPackage(request, customer);
+            run.waiting.put(created.getTrackingNumber(), new SimPackage(created.getId(), second, pickup, drop));
+            run.created++;
+        } catch (Exception e) {
+            logger.warn("Simulated package creation failed: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch(Map<Long, SimCourier> couriers, long second, Run run) {
+        long start = System.nanoTime();
+        try {
+            dispatchService.dispatch();
+        } catch (Exception e) {
+            logger.error("Simulated dispatch failed: {}", e.getMessage(), e);
+        }
+        run.dispatchMillis.add((System.nanoTime() - start) / 1e6);
+
+        Iterator<Map.Entry<String, SimPackage>> waiting = run.waiting.entrySet().iterator();
+        while (waiting.hasNext()) {
+            Map.Entry<String, SimPackage> entry = waiting.next();
+            Optional<PackageAssignmentTable.Assignment> assignment = packageAssignmentTable.find(entry.getKey());
+            SimCourier courier = assignment.map(found -> couriers.get(found.getCourierId())).orElse(null);
+            if (courier == null) {
+                continue;
+            }
+            SimPackage simPackage = entry.getValue();
+            run.assignmentLatencies.add(second - simPackage.createdAt);
+            courier.stops.add(new Stop(simPackage, false));
+            courier.stops.add(new Stop(simPackage, true));
+            waiting.remove();
+        }
+    }
+
+    // Moves the courier through its stops for one step, delivering on arrival at a drop, then reports its position
+    private void advance(SimCourier courier, City city, LocalDateTime now, long stepEnd, Run run) {
+        if (courier.stops.isEmpty() && courier.dwellSeconds <= 0) {
+            return;
+        }
+        double budget = stepSeconds;
+        while (budget > 0) {
+            if (courier.dwellSeconds > 0) {
+                double dwell = Math.min(courier.dwellSeconds, budget);
+                courier.dwellSeconds -= dwell;
+                budget -= dwell;
+                continue;
+            }
+            Stop stop = courier.stops.peek();
+            if (stop == null) {
+                break;
+            }
+            double[] target = stop.drop ? stop.simPackage.drop : stop.simPackage.pickup;
+            double distance = GeoUtils.approximateDistanceMeters(courier.latitude, courier.longitude, target[0], target[1]);
+            double reach = courier.speed * budget;
+            if (reach < distance) {
+                double fraction = reach / distance;
+                courier.latitude += (target[0] - courier.latitude) * fraction;
+                courier.longitude += (target[1] - courier.longitude) * fraction;
+                break;
+            }
+            courier.latitude = target[0];
+            courier.longitude = target[1];
+            budget -= distance / courier.speed;
+            courier.stops.poll();
+            courier.dwellSeconds = stopSeconds;
+            if (stop.drop) {
+                deliver(courier, stop.simPackage, stepEnd, run);
+            }
+        }
+        locationIngestService.submit(LocationPing.builder()
+                .courierUsername(courier.username)
+                .courierId(courier.id)
+                .latitude(courier.latitude)
+                .longitude(courier.longitude)
+                .zone(city.zoneOf(courier.latitude, courier.longitude))
+                .timestamp(now.plusSeconds(stepSeconds))
+                .build());
+    }
+
+    private void deliver(SimCourier courier, SimPackage simPackage, long second, Run run) {
+        try {
+            deliveryPackageService.dropDeliveryPackage(simPackage.packageId, courier.username);
+            run.deliveryTimes.add(second - simPackage.createdAt);
+        } catch (Exception e) {
+            run.deliveryFailures++;
+            logger.warn("Simulated delivery of package {} failed: {}", simPackage.packageId, e.getMessage());
+        }
+    }
+
+    private SimulationReport report(Run run, int couriers, double wallSeconds) {
+        long statements = statementCounter.total();
+        List<Double> dispatchMillis = new ArrayList<>(run.dispatchMillis);
+        Collections.sort(dispatchMillis);
+        double dispatchTotal = dispatchMillis.stream().mapToDouble(Double::doubleValue).sum();
+        return SimulationReport.builder()
+                .couriers(couriers)
+                .zones(zoneSide * zoneSide)
+                .simulatedHours(simulatedHours)
+                .wallSeconds(wallSeconds)
+                .speedup(simulatedHours * 3600 / wallSeconds)
+                .packagesCreated(run.created)
+                .packagesAssigned(run.assignmentLatencies.size())
+                .packagesDelivered(run.deliveryTimes.size())
+                .packagesWaiting(run.waiting.size())
+                .deliveryFailures(run.deliveryFailures)
+                .deliveredPerSimulatedHour(run.deliveryTimes.size() / simulatedHours)
+                .createdPerWallSecond(run.created / wallSeconds)
+                .assignmentLatencyP50Seconds(percentile(run.assignmentLatencies, 0.50))
+                .assignmentLatencyP95Seconds(percentile(run.assignmentLatencies, 0.95))
+                .assignmentLatencyP99Seconds(percentile(run.assignmentLatencies, 0.99))
+                .deliveryTimeP50Seconds(percentile(run.deliveryTimes, 0.50))
+                .deliveryTimeP95Seconds(percentile(run.deliveryTimes, 0.95))
+                .dispatchTicks(dispatchMillis.size())
+                .dispatchMeanMillis(dispatchMillis.isEmpty() ? 0 : dispatchTotal / dispatchMillis.size())
+                .dispatchP95Millis(dispatchMillis.isEmpty() ? 0 : dispatchMillis.get(rank(dispatchMillis.size(), 0.95)))
+                .dispatchMaxMillis(dispatchMillis.isEmpty() ? 0 : dispatchMillis.get(dispatchMillis.size() - 1))
+                .statements(statements)
+                .statementsPerPackage(run.created == 0 ? 0 : (double) statements / run.created)
+                .statementsByKind(statementCounter.byKind())
+                .heapUsedMb(memory.getHeapMemoryUsage().getUsed() / MB)
+                .heapPeakMb(run.heapPeak / MB)
+                .heapMaxMb(memory.getHeapMemoryUsage().getMax() / MB)
+                .build();
+    }
+
+    private static long percentile(List<Long> values, double quantile) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(rank(sorted.size(), quantile));
+    }
+
+    private static int rank(int size, double quantile) {
+        return Math.max(0, (int) Math.ceil(quantile * size) - 1);
+    }
+
+    // Knuth's method for small means; busy steps use the normal approximation, which is close enough there
+    private static int poisson(Random random, double mean) {
+        if (mean > 30) {
+            return (int) Math.max(0, Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+        }
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+
+    // A square city around the center, cut into zoneSide x zoneSide zones of uneven demand
+    private class City {
+        private final double latitudeSpan;
+        private final double longitudeSpan;
+        private final double[] cumulativeWeights;
+
+        City(Random random) {
+            this.latitudeSpan = 2 * radiusMeters / METERS_PER_DEGREE;
+            this.longitudeSpan = latitudeSpan / Math.cos(Math.toRadians(centerLatitude));
+            this.cumulativeWeights = new double[zoneSide * zoneSide];
+            double total = 0;
+            for (int zone = 0; zone < cumulativeWeights.length; zone++) {
+                total += Math.exp(random.nextGaussian() * 0.75);
+                cumulativeWeights[zone] = total;
+            }
+            for (int zone = 0; zone < cumulativeWeights.length; zone++) {
+                cumulativeWeights[zone] /= total;
+            }
+        }
+
+        double[] randomPoint(Random random) {
+            return new double[]{
+                    centerLatitude - latitudeSpan / 2 + random.nextDouble() * latitudeSpan,
+                    centerLongitude - longitudeSpan / 2 + random.nextDouble() * longitudeSpan};
+        }
+
+        // Pickups follow the zone demand weights
+        double[] randomPickup(Random random) {
+            double draw = random.nextDouble();
+            int zone = 0;
+            while (zone < cumulativeWeights.length - 1 && cumulativeWeights[zone] < draw) {
+                zone++;
+            }
+            int row = zone / zoneSide;
+            int column = zone % zoneSide;
+            return new double[]{
+                    centerLatitude - latitudeSpan / 2 + (row + random.nextDouble()) * latitudeSpan / zoneSide,
+                    centerLongitude - longitudeSpan / 2 + (column + random.nextDouble()) * longitudeSpan / zoneSide};
+        }
+
+        String zoneOf(double latitude, double longitude) {
+            int row = cell((latitude - centerLatitude + latitudeSpan / 2) / latitudeSpan);
+            int column = cell((longitude - centerLongitude + longitudeSpan / 2) / longitudeSpan);
+            return "SIM-" + row + "-" + column;
+        }
+
+        private int cell(double fraction) {
+            return Math.min(zoneSide - 1, Math.max(0, (int) (fraction * zoneSide)));
+        }
+    }
+
+    private static class SimCourier {
+        private final long id;
+        private final String username;
+        private final double speed;
+        private final Deque<Stop> stops = new ArrayDeque<>();
+        private double latitude;
+        private double longitude;
+        private double dwellSeconds;
+
+        SimCourier(Courier courier) {
+            this.id = courier.getId();
+            this.username = courier.getUsername();
+            this.speed = VEHICLE_SPEED_MPS.getOrDefault(courier.getVehicleType(), 7.0);
+            this.latitude = courier.getCurrentLatitude();
+            this.longitude = courier.getCurrentLongitude();
+        }
+    }
+
+    private static class SimPackage {
+        private final long packageId;
+        private final long createdAt;
+        private final double[] pickup;
+        private final double[] drop;
+
+        SimPackage(long packageId, long createdAt, double[] pickup, double[] drop) {
+            this.packageId = packageId;
+            this.createdAt = createdAt;
+            this.pickup = pickup;
+            this.drop = drop;
+        }
+    }
+
+    private static class Stop {
+        private final SimPackage simPackage;
+        private final boolean drop;
+
+        Stop(SimPackage simPackage, boolean drop) {
+            this.simPackage = simPackage;
+            this.drop = drop;
+        }
+    }
+
+    private static class Run {
+        private final Map<String, SimPackage> waiting = new LinkedHashMap<>();
+        private final List<Long> assignmentLatencies = new ArrayList<>();
+        private final List<Long> deliveryTimes = new ArrayList<>();
+        private final List<Double> dispatchMillis = new ArrayList<>();
+        private long created;
+        private long deliveryFailures;
+        private long heapPeak;
+    }
+}
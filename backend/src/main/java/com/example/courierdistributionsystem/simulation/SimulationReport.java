@@ -0,0 +1,45 @@
+package com.example.courierdistributionsystem.simulation;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@Builder
+public class SimulationReport {
+    private final int couriers;
+    private final int zones;
+    private final double simulatedHours;
+    private final double wallSeconds;
+    private final double speedup;
+
+    private final long packagesCreated;
+    private final long packagesAssigned;
+    private final long packagesDelivered;
+    private final long packagesWaiting;
+    private final long deliveryFailures;
+    private final double deliveredPerSimulatedHour;
+    private final double createdPerWallSecond;
+
+    // Simulated seconds from package creation until a courier holds it
+    private final long assignmentLatencyP50Seconds;
+    private final long assignmentLatencyP95Seconds;
+    private final long assignmentLatencyP99Seconds;
+    // Simulated seconds from package creation until delivery
+    private final long deliveryTimeP50Seconds;
+    private final long deliveryTimeP95Seconds;
+
+    private final long dispatchTicks;
+    private final double dispatchMeanMillis;
+    private final double dispatchP95Millis;
+    private final double dispatchMaxMillis;
+
+    private final long statements;
+    private final double statementsPerPackage;
+    private final Map<String, Long> statementsByKind;
+
+    private final long heapUsedMb;
+    private final long heapPeakMb;
+    private final long heapMaxMb;
+}
@@ -0,0 +1,29 @@
+package com.example.courierdistributionsystem.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public final class AddressUtils {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    // Dots and minus signs survive only as part of numbers, so coordinates stay intact
+    private static final Pattern NON_NUMERIC_MARKS = Pattern.compile("\\.(?!\\d)|(?<!\\d)\\.|-(?!\\d)|(?<=\\p{Alnum})-");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{Alnum}.\\-]+");
+
+    private AddressUtils() {
+    }
+
+    // Case, diacritics, punctuation and spacing are folded so "Kadıköy, İstanbul" and "kadikoy istanbul" share a key
+    public static String normalize(String address) {
+        if (address == null) {
+            return "";
+        }
+        String folded = address.trim()
+                .replace('ı', 'i')
+                .replace('İ', 'I')
+                .toLowerCase(Locale.ROOT);
+        folded = COMBINING_MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+        folded = NON_NUMERIC_MARKS.matcher(folded).replaceAll(" ");
+        return SEPARATORS.matcher(folded).replaceAll(" ").trim();
+    }
+}
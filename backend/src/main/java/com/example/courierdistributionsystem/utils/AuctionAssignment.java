@@ -0,0 +1,108 @@
+package com.example.courierdistributionsystem.utils;
+
+import java.util.Arrays;
+
+// Sparse forward auction (Bertsekas) for the assignment problem.
+// Bidders only compete for the objects listed as their candidates, and any bidder may stay unassigned
+// at zero benefit, so there can be more bidders than objects. The result is within
+// bidders * epsilon of the maximum total benefit.
+// Not thread-safe; build one per solve.
+public class AuctionAssignment {
+    public static final int UNASSIGNED = -1;
+
+    private final int objects;
+    private int bidders;
+    private int[] offsets = new int[16];
+    private int[] candidates;
+    private double[] benefits;
+    private int candidateCount;
+
+    public AuctionAssignment(int objects, int expectedCandidates) {
+        this.objects = objects;
+        this.candidates = new int[Math.max(expectedCandidates, 16)];
+        this.benefits = new double[candidates.length];
+    }
+
+    // Candidates added after this call belong to the new bidder; returns its index
+    public int addBidder() {
+        if (bidders + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[bidders] = candidateCount;
+        offsets[bidders + 1] = candidateCount;
+        return bidders++;
+    }
+
+    // Benefits must be positive; a bidder prefers staying unassigned to anything worth less than zero
+    public void addCandidate(int object, double benefit) {
+        if (candidateCount == candidates.length) {
+            candidates = Arrays.copyOf(candidates, candidateCount * 2);
+            benefits = Arrays.copyOf(benefits, candidateCount * 2);
+        }
+        candidates[candidateCount] = object;
+        benefits[candidateCount] = benefit;
+        offsets[bidders] = ++candidateCount;
+    }
+
+    public int bidders() {
+        return bidders;
+    }
+
+    // Object assigned to each bidder, or UNASSIGNED
+    public int[] solve(double epsilon) {
+        int[] assigned = new int[bidders];
+        Arrays.fill(assigned, UNASSIGNED);
+        if (bidders == 0 || candidateCount == 0) {
+            return assigned;
+        }
+        double[] prices = new double[objects];
+        int[] owners = new int[objects];
+        Arrays.fill(owners, UNASSIGNED);
+        int[] queue = new int[bidders];
+        for (int i = 0; i < bidders; i++) {
+            queue[i] = i;
+        }
+        int head = 0;
+        int queued = bidders;
+        while (queued > 0) {
+            int bidder = queue[head];
+            head = (head + 1) % bidders;
+            queued--;
+            int prior = bid(bidder, prices, owners, assigned, epsilon);
+            if (prior != UNASSIGNED) {
+                queue[(head + queued) % bidders] = prior;
+                queued++;
+            }
+        }
+        return assigned;
+    }
+
+    // Returns the bidder that was outbid, if any
+    private int bid(int bidder, double[] prices, int[] owners, int[] assigned, double epsilon) {
+        int best = UNASSIGNED;
+        double bestValue = 0;
+        double secondValue = Double.NEGATIVE_INFINITY;
+        for (int c = offsets[bidder]; c < offsets[bidder + 1]; c++) {
+            double value = benefits[c] - prices[candidates[c]];
+            if (value > bestValue) {
+                secondValue = bestValue;
+                bestValue = value;
+                best = candidates[c];
+            } else if (value > secondValue) {
+                secondValue = value;
+            }
+        }
+        if (best == UNASSIGNED) {
+            return UNASSIGNED;
+        }
+        // Staying unassigned is always an option worth zero, so the runner-up is never below it
+        prices[best] += bestValue - Math.max(secondValue, 0) + epsilon;
+        int prior = owners[best];
+        if (prior != UNASSIGNED) {
+            assigned[prior] = UNASSIGNED;
+        }
+        owners[best] = bidder;
+        assigned[bidder] = best;
+        return prior;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.courierdistributionsystem.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streams RFC 4180 records one at a time: comma separated, double quotes around fields that contain commas,
+// quotes or line breaks, and "" for a literal quote. Only the current record is held in memory, and a record
+// longer than the limit is rejected before it is fully read.
+public class CsvRecordReader {
+    // The record was unusable but has been skipped; the reader can carry on with the next one
+    public static class MalformedRecordException extends IOException {
+        public MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+
+    private final Reader reader;
+    private final int maxRecordChars;
+    private int pushedBack = -2;
+
+    public CsvRecordReader(Reader reader, int maxRecordChars) {
+        this.reader = reader;
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    // Null at the end of input; blank lines come back as a single empty field
+    public List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        while (true) {
+            if (++length > maxRecordChars) {
+                skipRecord(c, quoted);
+                throw new MalformedRecordException("Record is longer than " + maxRecordChars + " characters");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new MalformedRecordException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == -1 || c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    // Drops the rest of an oversized record so the next call starts on the following one
+    private void skipRecord(int c, boolean quoted) throws IOException {
+        while (c != -1 && (quoted || (c != '\n' && c != '\r'))) {
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            c = read();
+        }
+        if (c == '\r') {
+            int following = read();
+            if (following != '\n') {
+                pushedBack = following;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.courierdistributionsystem.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Uniform lat/lng grid over small int ids (registry slots) for radius and k-nearest queries.
+// Queries scan rings of cells outward from the query point and stop once no unscanned cell can hold a closer point.
+// Not thread-safe; the owner guards it with its own lock.
+public class GeoGrid {
+    private static final long NO_CELL = Long.MIN_VALUE;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+    private static final double MAX_INDEXED_LATITUDE = 89.0;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Neighbor {
+        private final int id;
+        private final double distanceMeters;
+    }
+
+    private final double cellDegrees;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private long[] cellOfId = new long[0];
+    private double[] latitudes = new double[0];
+    private double[] longitudes = new double[0];
+    private int size;
+
+    public GeoGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    public void put(int id, double latitude, double longitude) {
+        ensureCapacity(id + 1);
+        long cell = cellKey(row(latitude), wrapColumn(column(longitude)));
+        long current = cellOfId[id];
+        latitudes[id] = latitude;
+        longitudes[id] = longitude;
+        if (current == cell) {
+            return;
+        }
+        if (current != NO_CELL) {
+            removeFromCell(current, id);
+        } else {
+            size++;
+        }
+        cells.computeIfAbsent(cell, key -> new Cell()).add(id);
+        cellOfId[id] = cell;
+    }
+
+    public void remove(int id) {
+        if (id >= cellOfId.length || cellOfId[id] == NO_CELL) {
+            return;
+        }
+        removeFromCell(cellOfId[id], id);
+        cellOfId[id] = NO_CELL;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Nearest first
+    public List<Neighbor> within(double latitude, double longitude, double radiusMeters) {
+        List<Neighbor> result = new ArrayList<>();
+        int maxRing = ringsFor(latitude, radiusMeters);
+        if (ringArea(maxRing) > cells.size()) {
+            // Sparser than the search square: walking the occupied cells is cheaper than probing empty ones
+            for (Cell cell : cells.values()) {
+                collectWithin(cell, latitude, longitude, radiusMeters, result);
+            }
+        } else {
+            int row = row(latitude);
+            int column = column(longitude);
+            for (int r = -maxRing; r <= maxRing; r++) {
+                for (int c = -maxRing; c <= maxRing; c++) {
+                    Cell cell = cells.get(cellKey(row + r, wrapColumn(column + c)));
+                    if (cell != null) {
+                        collectWithin(cell, latitude, longitude, radiusMeters, result);
+                    }
+                }
+            }
+        }
+        result.sort(Comparator.comparingDouble(Neighbor::getDistanceMeters));
+        return result;
+    }
+
+    // Nearest first, at most k, none farther than maxRadiusMeters
+    public List<Neighbor> nearest(double latitude, double longitude, int k, double maxRadiusMeters) {
+        if (k <= 0 || size == 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(
+                Comparator.comparingDouble(Neighbor::getDistanceMeters).reversed());
+        int row = row(latitude);
+        int column = column(longitude);
+        int maxRing = ringsFor(latitude, maxRadiusMeters);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (ringArea(ring) > cells.size()) {
+                // Probing further rings would cost more than checking every occupied cell
+                best.clear();
+                for (Cell cell : cells.values()) {
+                    offer(cell, latitude, longitude, k, maxRadiusMeters, best);
+                }
+                break;
+            }
+            for (int r = -ring; r <= ring; r++) {
+                boolean edgeRow = r == -ring || r == ring;
+                for (int c = -ring; c <= ring; c += edgeRow ? 1 : 2 * ring) {
+                    Cell cell = cells.get(cellKey(row + r, wrapColumn(column + c)));
+                    if (cell != null) {
+                        offer(cell, latitude, longitude, k, maxRadiusMeters, best);
+                    }
+                    if (ring == 0) {
+                        break;
+                    }
+                }
+            }
+            // Everything within ring * cell size of the query point has now been scanned
+            if (best.size() == k && best.peek().getDistanceMeters() <= ring * minCellMeters(latitude, ring)) {
+                break;
+            }
+        }
+        List<Neighbor> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbor::getDistanceMeters));
+        return result;
+    }
+
+    private void offer(Cell cell, double latitude, double longitude, int k, double maxRadiusMeters,
+                       PriorityQueue<Neighbor> best) {
+        for (int i = 0; i < cell.size; i++) {
+            int id = cell.ids[i];
+            double distance = GeoUtils.distanceMeters(latitude, longitude, latitudes[id], longitudes[id]);
+            if (distance > maxRadiusMeters) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.add(new Neighbor(id, distance));
+            } else if (distance < best.peek().getDistanceMeters()) {
+                best.poll();
+                best.add(new Neighbor(id, distance));
+            }
+        }
+    }
+
+    private void collectWithin(Cell cell, double latitude, double longitude, double radiusMeters, List<Neighbor> result) {
+        for (int i = 0; i < cell.size; i++) {
+            int id = cell.ids[i];
+            double distance = GeoUtils.distanceMeters(latitude, longitude, latitudes[id], longitudes[id]);
+            if (distance <= radiusMeters) {
+                result.add(new Neighbor(id, distance));
+            }
+        }
+    }
+
+    private int ringsFor(double latitude, double radiusMeters) {
+        if (Double.isInfinite(radiusMeters)) {
+            return maxUsefulRing();
+        }
+        int rings = (int) Math.ceil(radiusMeters / (cellDegrees * METERS_PER_DEGREE));
+        // Cells narrow with latitude, so more columns than rows are needed to cover the radius
+        double width = minCellMeters(latitude, rings);
+        return Math.min((int) Math.ceil(radiusMeters / width), maxUsefulRing());
+    }
+
+    private int maxUsefulRing() {
+        return (int) Math.ceil(360 / cellDegrees);
+    }
+
+    private static long ringArea(int ring) {
+        long side = 2L * ring + 1;
+        return side * side;
+    }
+
+    // Smallest cell edge among cells up to `rings` rows away from the latitude
+    private double minCellMeters(double latitude, int rings) {
+        double farthest = Math.min(MAX_INDEXED_LATITUDE, Math.abs(latitude) + (rings + 1) * cellDegrees);
+        return cellDegrees * METERS_PER_DEGREE * Math.cos(Math.toRadians(farthest));
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    private int wrapColumn(int column) {
+        int columns = (int) Math.ceil(360 / cellDegrees);
+        return Math.floorMod(column, columns);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private void removeFromCell(long key, int id) {
+        Cell cell = cells.get(key);
+        if (cell != null && cell.remove(id) && cell.size == 0) {
+            cells.remove(key);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= cellOfId.length) {
+            return;
+        }
+        int grown = Math.max(capacity, cellOfId.length * 2);
+        int previous = cellOfId.length;
+        cellOfId = Arrays.copyOf(cellOfId, grown);
+        Arrays.fill(cellOfId, previous, grown, NO_CELL);
+        latitudes = Arrays.copyOf(latitudes, grown);
+        longitudes = Arrays.copyOf(longitudes, grown);
+    }
+
+    private static class Cell {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.courierdistributionsystem.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// Groups pending packages that one courier can carry in a single run: pickups within a short radius of the
+// bundle's first package, trips heading roughly the same way, and a total weight and count within the limits.
+// Bundles are seeded in input order, so callers decide who goes first. Packages with an unknown pickup or
+// drop are never combined.
+public final class PackageBundler {
+    public static final double DEFAULT_CAPACITY_KG = 200.0;
+
+    // Smallest to largest
+    private static final List<String> VEHICLE_CLASSES = List.of("MOTORCYCLE", "CAR", "VAN");
+    private static final Map<String, Double> VEHICLE_CAPACITY_KG = Map.of(
+            "MOTORCYCLE", 20.0,
+            "CAR", 200.0,
+            "VAN", 1000.0);
+    // Trips shorter than this have no meaningful heading and go with any bundle
+    private static final double MIN_HEADING_TRIP_METERS = 300;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Parcel {
+        private final long packageId;
+        private final double weight;
+        private final Double pickupLatitude;
+        private final Double pickupLongitude;
+        private final Double dropLatitude;
+        private final Double dropLongitude;
+
+        boolean located() {
+            return pickupLatitude != null && pickupLongitude != null && dropLatitude != null && dropLongitude != null;
+        }
+    }
+
+    @Getter
+    public static class Bundle {
+        private final List<Parcel> parcels;
+        private final double weight;
+
+        Bundle(List<Parcel> parcels) {
+            this.parcels = Collections.unmodifiableList(parcels);
+            this.weight = parcels.stream().mapToDouble(Parcel::getWeight).sum();
+        }
+
+        // The seed package, whose pickup the others are near
+        public Parcel getLead() {
+            return parcels.get(0);
+        }
+
+        public int size() {
+            return parcels.size();
+        }
+    }
+
+    private PackageBundler() {
+    }
+
+    // Couriers that never named a vehicle are treated as cars
+    public static double capacityOf(String vehicleType) {
+        return vehicleType == null ? DEFAULT_CAPACITY_KG : VEHICLE_CAPACITY_KG.getOrDefault(vehicleType, DEFAULT_CAPACITY_KG);
+    }
+
+    // The smallest vehicle class that can carry the weight, or null when none can
+    public static String smallestVehicleFor(double weightKg) {
+        for (String vehicleType : VEHICLE_CLASSES) {
+            if (weightKg <= VEHICLE_CAPACITY_KG.get(vehicleType)) {
+                return vehicleType;
+            }
+        }
+        return null;
+    }
+
+    public static List<Bundle> bundle(List<Parcel> parcels, double capacityKg, int maxPackages,
+                                      double pickupRadiusMeters, double maxHeadingDifferenceDegrees,
+                                      double gridCellDegrees) {
+        GeoGrid pickups = new GeoGrid(gridCellDegrees);
+        double[] headings = new double[parcels.size()];
+        for (int i = 0; i < parcels.size(); i++) {
+            Parcel parcel = parcels.get(i);
+            if (parcel.located()) {
+                pickups.put(i, parcel.pickupLatitude, parcel.pickupLongitude);
+                headings[i] = heading(parcel);
+            }
+        }
+
+        boolean[] bundled = new boolean[parcels.size()];
+        List<Bundle> bundles = new ArrayList<>();
+        for (int seed = 0; seed < parcels.size(); seed++) {
+            if (bundled[seed]) {
+                continue;
+            }
+            bundled[seed] = true;
+            Parcel lead = parcels.get(seed);
+            List<Parcel> members = new ArrayList<>(maxPackages);
+            members.add(lead);
+            if (!lead.located()) {
+                bundles.add(new Bundle(members));
+                continue;
+            }
+            pickups.remove(seed);
+            double weight = lead.weight;
+            if (maxPackages > 1 && weight < capacityKg) {
+                for (GeoGrid.Neighbor neighbor : pickups.within(lead.pickupLatitude, lead.pickupLongitude, pickupRadiusMeters)) {
+                    int candidate = neighbor.getId();
+                    Parcel parcel = parcels.get(candidate);
+                    if (weight + parcel.weight > capacityKg
+                            || !sameDirection(headings[seed], headings[candidate], maxHeadingDifferenceDegrees)) {
+                        continue;
+                    }
+                    members.add(parcel);
+                    weight += parcel.weight;
+                    bundled[candidate] = true;
+                    pickups.remove(candidate);
+                    if (members.size() >= maxPackages) {
+                        break;
+                    }
+                }
+            }
+            bundles.add(new Bundle(members));
+        }
+        return bundles;
+    }
+
+    // NaN for trips too short to have a heading
+    private static double heading(Parcel parcel) {
+        double length = GeoUtils.approximateDistanceMeters(parcel.pickupLatitude, parcel.pickupLongitude,
+                parcel.dropLatitude, parcel.dropLongitude);
+        return length < MIN_HEADING_TRIP_METERS
+                ? Double.NaN
+                : GeoUtils.bearingDegrees(parcel.pickupLatitude, parcel.pickupLongitude,
+                        parcel.dropLatitude, parcel.dropLongitude);
+    }
+
+    private static boolean sameDirection(double heading, double other, double maxDifferenceDegrees) {
+        if (Double.isNaN(heading) || Double.isNaN(other)) {
+            return true;
+        }
+        double difference = Math.abs(heading - other) % 360;
+        return Math.min(difference, 360 - difference) <= maxDifferenceDegrees;
+    }
+}
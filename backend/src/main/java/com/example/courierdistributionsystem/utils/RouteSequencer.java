@@ -0,0 +1,288 @@
+package com.example.courierdistributionsystem.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Orders a courier's pickup and drop stops into a short open path starting at the courier's position.
+// Routes are built by nearest-neighbour construction (or cheapest insertion into an existing route) and then
+// improved with 2-opt and Or-opt moves until no move helps or the time budget runs out.
+// A package's pickup always stays ahead of its drop.
+public final class RouteSequencer {
+    private static final double MIN_GAIN_METERS = 1e-6;
+    private static final int MAX_OR_OPT_SEGMENT = 3;
+
+    public enum StopType {
+        PICKUP,
+        DROP
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stop {
+        private final long packageId;
+        private final StopType type;
+        private final double latitude;
+        private final double longitude;
+    }
+
+    private RouteSequencer() {
+    }
+
+    public static List<Stop> sequence(double startLatitude, double startLongitude, List<Stop> stops, long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        Problem problem = new Problem(startLatitude, startLongitude, stops);
+        int[] route = problem.nearestNeighbour();
+        problem.improve(route, deadline);
+        return problem.toStops(route);
+    }
+
+    // Keeps the existing order and slots each added stop in at its cheapest feasible position before improving
+    public static List<Stop> insert(double startLatitude, double startLongitude, List<Stop> route, List<Stop> added,
+                                    long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        List<Stop> all = new ArrayList<>(route);
+        // Pickups first, so every drop can be placed behind its pickup
+        added.stream().filter(stop -> stop.getType() == StopType.PICKUP).forEach(all::add);
+        added.stream().filter(stop -> stop.getType() == StopType.DROP).forEach(all::add);
+        Problem problem = new Problem(startLatitude, startLongitude, all);
+        int[] order = new int[0];
+        for (int node = 1; node <= route.size(); node++) {
+            order = insertAt(order, order.length, node);
+        }
+        for (int node = route.size() + 1; node <= all.size(); node++) {
+            order = problem.cheapestInsertion(order, node);
+        }
+        problem.improve(order, deadline);
+        return problem.toStops(order);
+    }
+
+    public static List<Stop> remove(List<Stop> route, long packageId) {
+        List<Stop> remaining = new ArrayList<>(route.size());
+        for (Stop stop : route) {
+            if (stop.getPackageId() != packageId) {
+                remaining.add(stop);
+            }
+        }
+        return remaining;
+    }
+
+    public static double length(double startLatitude, double startLongitude, List<Stop> route) {
+        double meters = 0;
+        double latitude = startLatitude;
+        double longitude = startLongitude;
+        for (Stop stop : route) {
+            meters += GeoUtils.approximateDistanceMeters(latitude, longitude, stop.getLatitude(), stop.getLongitude());
+            latitude = stop.getLatitude();
+            longitude = stop.getLongitude();
+        }
+        return meters;
+    }
+
+    private static int[] insertAt(int[] order, int position, int node) {
+        int[] result = new int[order.length + 1];
+        System.arraycopy(order, 0, result, 0, position);
+        result[position] = node;
+        System.arraycopy(order, position, result, position + 1, order.length - position);
+        return result;
+    }
+
+    // Node 0 is the start position; stops are nodes 1..n
+    private static class Problem {
+        private final List<Stop> stops;
+        private final double[][] distances;
+        private final int[] pickupOf;
+
+        Problem(double startLatitude, double startLongitude, List<Stop> stops) {
+            this.stops = stops;
+            int nodes = stops.size() + 1;
+            double[] latitudes = new double[nodes];
+            double[] longitudes = new double[nodes];
+            latitudes[0] = startLatitude;
+            longitudes[0] = startLongitude;
+            Map<Long, Integer> pickups = new HashMap<>();
+            for (int i = 0; i < stops.size(); i++) {
+                latitudes[i + 1] = stops.get(i).getLatitude();
+                longitudes[i + 1] = stops.get(i).getLongitude();
+                if (stops.get(i).getType() == StopType.PICKUP) {
+                    pickups.put(stops.get(i).getPackageId(), i + 1);
+                }
+            }
+            this.pickupOf = new int[nodes];
+            this.distances = new double[nodes][nodes];
+            for (int i = 0; i < nodes; i++) {
+                pickupOf[i] = i > 0 && stops.get(i - 1).getType() == StopType.DROP
+                        ? pickups.getOrDefault(stops.get(i - 1).getPackageId(), -1)
+                        : -1;
+                for (int j = 0; j < nodes; j++) {
+                    distances[i][j] = GeoUtils.approximateDistanceMeters(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+                }
+            }
+        }
+
+        int[] nearestNeighbour() {
+            int n = stops.size();
+            int[] route = new int[n];
+            boolean[] visited = new boolean[n + 1];
+            int current = 0;
+            for (int step = 0; step < n; step++) {
+                int best = -1;
+                for (int node = 1; node <= n; node++) {
+                    boolean ready = pickupOf[node] < 0 || visited[pickupOf[node]];
+                    if (!visited[node] && ready && (best < 0 || distances[current][node] < distances[current][best])) {
+                        best = node;
+                    }
+                }
+                route[step] = best;
+                visited[best] = true;
+                current = best;
+            }
+            return route;
+        }
+
+        int[] cheapestInsertion(int[] order, int node) {
+            int earliest = 0;
+            if (pickupOf[node] >= 0) {
+                for (int i = 0; i < order.length; i++) {
+                    if (order[i] == pickupOf[node]) {
+                        earliest = i + 1;
+                    }
+                }
+            }
+            int bestPosition = order.length;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for (int position = earliest; position <= order.length; position++) {
+                int before = position == 0 ? 0 : order[position - 1];
+                double cost = distances[before][node];
+                if (position < order.length) {
+                    cost += distances[node][order[position]] - distances[before][order[position]];
+                }
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestPosition = position;
+                }
+            }
+            return insertAt(order, bestPosition, node);
+        }
+
+        void improve(int[] route, long deadline) {
+            boolean improved = true;
+            while (improved && System.nanoTime() < deadline) {
+                improved = twoOpt(route, deadline) | orOpt(route, deadline);
+            }
+        }
+
+        // Reverses route[i..j] when that shortens the path and keeps every pickup ahead of its drop
+        private boolean twoOpt(int[] route, long deadline) {
+            int n = route.length;
+            boolean improved = false;
+            int[] positions = positions(route);
+            for (int i = 0; i < n - 1; i++) {
+                if (System.nanoTime() >= deadline) {
+                    return improved;
+                }
+                int before = i == 0 ? 0 : route[i - 1];
+                for (int j = i + 1; j < n; j++) {
+                    double delta = distances[before][route[j]] - distances[before][route[i]];
+                    if (j + 1 < n) {
+                        delta += distances[route[i]][route[j + 1]] - distances[route[j]][route[j + 1]];
+                    }
+                    if (delta < -MIN_GAIN_METERS && reversible(route, positions, i, j)) {
+                        for (int a = i, b = j; a < b; a++, b--) {
+                            int swap = route[a];
+                            route[a] = route[b];
+                            route[b] = swap;
+                        }
+                        positions = positions(route);
+                        improved = true;
+                    }
+                }
+            }
+            return improved;
+        }
+
+        private boolean reversible(int[] route, int[] positions, int i, int j) {
+            for (int k = i; k <= j; k++) {
+                int pickup = pickupOf[route[k]];
+                if (pickup >= 0 && positions[pickup] >= i && positions[pickup] <= j) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Moves a run of up to three consecutive stops to a cheaper place elsewhere in the route
+        private boolean orOpt(int[] route, long deadline) {
+            int n = route.length;
+            boolean improved = false;
+            for (int length = 1; length <= Math.min(MAX_OR_OPT_SEGMENT, n - 1); length++) {
+                for (int i = 0; i + length <= n; i++) {
+                    if (System.nanoTime() >= deadline) {
+                        return improved;
+                    }
+                    int first = route[i];
+                    int last = route[i + length - 1];
+                    int before = i == 0 ? 0 : route[i - 1];
+                    int after = i + length < n ? route[i + length] : -1;
+                    double removed = distances[before][first]
+                            + (after >= 0 ? distances[last][after] - distances[before][after] : 0);
+
+                    int[] rest = new int[n - length];
+                    System.arraycopy(route, 0, rest, 0, i);
+                    System.arraycopy(route, i + length, rest, i, n - i - length);
+                    for (int position = 0; position <= rest.length; position++) {
+                        if (position == i) {
+                            continue;
+                        }
+                        int u = position == 0 ? 0 : rest[position - 1];
+                        int v = position < rest.length ? rest[position] : -1;
+                        double added = distances[u][first] + (v >= 0 ? distances[last][v] - distances[u][v] : 0);
+                        if (added - removed >= -MIN_GAIN_METERS) {
+                            continue;
+                        }
+                        int[] candidate = new int[n];
+                        System.arraycopy(rest, 0, candidate, 0, position);
+                        System.arraycopy(route, i, candidate, position, length);
+                        System.arraycopy(rest, position, candidate, position + length, rest.length - position);
+                        if (feasible(candidate)) {
+                            System.arraycopy(candidate, 0, route, 0, n);
+                            improved = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            return improved;
+        }
+
+        private boolean feasible(int[] route) {
+            int[] positions = positions(route);
+            for (int node : route) {
+                if (pickupOf[node] >= 0 && positions[pickupOf[node]] > positions[node]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int[] positions(int[] route) {
+            int[] positions = new int[stops.size() + 1];
+            for (int i = 0; i < route.length; i++) {
+                positions[route[i]] = i;
+            }
+            return positions;
+        }
+
+        List<Stop> toStops(int[] route) {
+            List<Stop> result = new ArrayList<>(route.length);
+            for (int node : route) {
+                result.add(stops.get(node - 1));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.courierdistributionsystem.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+// Lossless track encoding in the style of Gorilla: delta-of-delta timestamps at microsecond precision
+// (the precision of the timestamp column) and XOR-compressed coordinate bits, with zones dictionary-coded.
+public final class TrackCodec {
+    public static final byte VERSION = 1;
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private TrackCodec() {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Point {
+        private final LocalDateTime timestamp;
+        private final double latitude;
+        private final double longitude;
+        private final String zone;
+    }
+
+    public static byte[] encode(List<Point> points) {
+        BitWriter out = new BitWriter(points.size() * 8 + 16);
+        out.writeBits(VERSION, 8);
+        out.writeVarLong(points.size());
+
+        List<String> dictionary = new ArrayList<>();
+        Map<String, Integer> zoneIndexes = new HashMap<>();
+        for (Point point : points) {
+            if (point.getZone() != null && !zoneIndexes.containsKey(point.getZone())) {
+                zoneIndexes.put(point.getZone(), dictionary.size());
+                dictionary.add(point.getZone());
+            }
+        }
+        out.writeVarLong(dictionary.size());
+        for (String zone : dictionary) {
+            out.writeString(zone);
+        }
+        if (points.isEmpty()) {
+            return out.toByteArray();
+        }
+
+        Point first = points.get(0);
+        long previousTime = toMicros(first.getTimestamp());
+        long previousDelta = 0;
+        XorState latitudes = new XorState(Double.doubleToRawLongBits(first.getLatitude()));
+        XorState longitudes = new XorState(Double.doubleToRawLongBits(first.getLongitude()));
+        int previousZone = zoneIndex(zoneIndexes, first.getZone());
+
+        out.writeBits(previousTime, 64);
+        out.writeBits(latitudes.previous, 64);
+        out.writeBits(longitudes.previous, 64);
+        out.writeVarLong(previousZone + 1);
+
+        for (int i = 1; i < points.size(); i++) {
+            Point point = points.get(i);
+            long time = toMicros(point.getTimestamp());
+            long delta = time - previousTime;
+            writeDeltaOfDelta(out, delta - previousDelta);
+            previousTime = time;
+            previousDelta = delta;
+
+            latitudes.write(out, Double.doubleToRawLongBits(point.getLatitude()));
+            longitudes.write(out, Double.doubleToRawLongBits(point.getLongitude()));
+
+            int zone = zoneIndex(zoneIndexes, point.getZone());
+            if (zone == previousZone) {
+                out.writeBit(false);
+            } else {
+                out.writeBit(true);
+                out.writeVarLong(zone + 1);
+                previousZone = zone;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static List<Point> decode(byte[] data) {
+        BitReader in = new BitReader(data);
+        int version = (int) in.readBits(8);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported track encoding version " + version);
+        }
+        int count = (int) in.readVarLong();
+        int dictionarySize = (int) in.readVarLong();
+        List<String> dictionary = new ArrayList<>(dictionarySize);
+        for (int i = 0; i < dictionarySize; i++) {
+            dictionary.add(in.readString());
+        }
+        List<Point> points = new ArrayList<>(count);
+        if (count == 0) {
+            return points;
+        }
+
+        long time = in.readBits(64);
+        long delta = 0;
+        XorState latitudes = new XorState(in.readBits(64));
+        XorState longitudes = new XorState(in.readBits(64));
+        int zone = (int) in.readVarLong() - 1;
+        points.add(toPoint(time, latitudes.previous, longitudes.previous, zone, dictionary));
+
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(in);
+            time += delta;
+            long latitude = latitudes.read(in);
+            long longitude = longitudes.read(in);
+            if (in.readBit()) {
+                zone = (int) in.readVarLong() - 1;
+            }
+            points.add(toPoint(time, latitude, longitude, zone, dictionary));
+        }
+        return points;
+    }
+
+    private static Point toPoint(long micros, long latitudeBits, long longitudeBits, int zone, List<String> dictionary) {
+        return new Point(
+                EPOCH.plus(micros, ChronoUnit.MICROS),
+                Double.longBitsToDouble(latitudeBits),
+                Double.longBitsToDouble(longitudeBits),
+                zone < 0 ? null : dictionary.get(zone));
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return ChronoUnit.MICROS.between(EPOCH, timestamp);
+    }
+
+    private static int zoneIndex(Map<String, Integer> zoneIndexes, String zone) {
+        return zone == null ? -1 : zoneIndexes.get(zone);
+    }
+
+    // Prefix-coded buckets sized for GPS cadences of roughly one ping per second to one per minute
+    private static void writeDeltaOfDelta(BitWriter out, long value) {
+        if (value == 0) {
+            out.writeBit(false);
+            return;
+        }
+        long zigZag = (value << 1) ^ (value >> 63);
+        if (zigZag < (1L << 20)) {
+            out.writeBits(0b10, 2);
+            out.writeBits(zigZag, 20);
+        } else if (zigZag < (1L << 32)) {
+            out.writeBits(0b110, 3);
+            out.writeBits(zigZag, 32);
+        } else {
+            out.writeBits(0b111, 3);
+            out.writeBits(zigZag, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        long zigZag;
+        if (!in.readBit()) {
+            zigZag = in.readBits(20);
+        } else if (!in.readBit()) {
+            zigZag = in.readBits(32);
+        } else {
+            zigZag = in.readBits(64);
+        }
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static class XorState {
+        private long previous;
+        private int leading = Integer.MAX_VALUE;
+        private int trailing;
+
+        XorState(long initial) {
+            this.previous = initial;
+        }
+
+        void write(BitWriter out, long value) {
+            long xor = value ^ previous;
+            previous = value;
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+            int newLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int newTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading != Integer.MAX_VALUE && newLeading >= leading && newTrailing >= trailing) {
+                // Meaningful bits fit inside the previous window
+                out.writeBit(false);
+                out.writeBits(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                leading = newLeading;
+                trailing = newTrailing;
+                int significant = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                out.writeBits(significant - 1, 6);
+                out.writeBits(xor >>> trailing, significant);
+            }
+        }
+
+        long read(BitReader in) {
+            if (!in.readBit()) {
+                return previous;
+            }
+            if (in.readBit()) {
+                leading = (int) in.readBits(5);
+                int significant = (int) in.readBits(6) + 1;
+                trailing = 64 - leading - significant;
+            }
+            long xor = in.readBits(64 - leading - trailing) << trailing;
+            previous ^= xor;
+            return previous;
+        }
+    }
+
+    private static class BitWriter {
+        private final ByteArrayOutputStream bytes;
+        private int current;
+        private int used;
+
+        BitWriter(int expectedBytes) {
+            this.bytes = new ByteArrayOutputStream(expectedBytes);
+        }
+
+        void writeBit(boolean bit) {
+            current = (current << 1) | (bit ? 1 : 0);
+            if (++used == 8) {
+                bytes.write(current);
+                current = 0;
+                used = 0;
+            }
+        }
+
+        void writeBits(long value, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                writeBit(((value >>> i) & 1) != 0);
+            }
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeBits((value & 0x7F) | 0x80, 8);
+                value >>>= 7;
+            }
+            writeBits(value, 8);
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            for (byte b : utf8) {
+                writeBits(b & 0xFF, 8);
+            }
+        }
+
+        byte[] toByteArray() {
+            if (used > 0) {
+                bytes.write(current << (8 - used));
+                current = 0;
+                used = 0;
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static class BitReader {
+        private final byte[] data;
+        private long position;
+
+        BitReader(byte[] data) {
+            this.data = data;
+        }
+
+        boolean readBit() {
+            int index = (int) (position >>> 3);
+            if (index >= data.length) {
+                throw new IllegalArgumentException("Truncated track data");
+            }
+            int bit = (data[index] >>> (7 - (int) (position & 7))) & 1;
+            position++;
+            return bit != 0;
+        }
+
+        long readBits(int count) {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value = (value << 1) | (readBit() ? 1 : 0);
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                long b = readBits(8);
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        String readString() {
+            byte[] utf8 = new byte[(int) readVarLong()];
+            for (int i = 0; i < utf8.length; i++) {
+                utf8[i] = (byte) readBits(8);
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.courierdistributionsystem.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Snowflake-style tracking numbers: 41 bits of milliseconds since 2024, a 10-bit node id and a 12-bit sequence,
+// written as 13 Crockford base32 digits plus a Luhn mod 32 check digit, e.g. CDS-0A1B2C3D4E5F6G.
+// Timestamp and sequence share one atomic word; a sequence overflow or a clock stepping back keeps counting on the
+// last timestamp instead of waiting, so numbers from one node never repeat and sort by creation time.
+public final class TrackingNumberGenerator {
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+    private static final String PREFIX = "CDS-";
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int DIGITS = 13;
+    private static final int LENGTH = PREFIX.length() + DIGITS + 1;
+    // 2024-01-01T00:00:00Z
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final long MAX_TIMESTAMP = (1L << 41) - 1;
+
+    private final long node;
+    private final LongSupplier clock;
+    // (milliseconds since epoch << SEQUENCE_BITS) | sequence of the last number handed out
+    private final AtomicLong state = new AtomicLong();
+
+    public TrackingNumberGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    TrackingNumberGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.node = nodeId;
+        this.clock = clock;
+    }
+
+    public String next() {
+        return format(nextId());
+    }
+
+    public long nextId() {
+        long now = clock.getAsLong() - EPOCH_MILLIS;
+        while (true) {
+            long last = state.get();
+            // The increment carries a full sequence into the next millisecond
+            long next = now > last >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : last + 1;
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                if (timestamp > MAX_TIMESTAMP) {
+                    throw new IllegalStateException("Tracking number timestamp overflow");
+                }
+                return timestamp << (NODE_BITS + SEQUENCE_BITS)
+                        | node << SEQUENCE_BITS
+                        | next & ((1L << SEQUENCE_BITS) - 1);
+            }
+        }
+    }
+
+    public static String format(long id) {
+        char[] text = new char[LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), text, 0);
+        int sum = 0;
+        for (int i = 0; i < DIGITS; i++) {
+            int digit = (int) (id >>> (5 * (DIGITS - 1 - i))) & 31;
+            text[PREFIX.length() + i] = ALPHABET[digit];
+            sum += luhnTerm(digit, DIGITS - 1 - i);
+        }
+        text[LENGTH - 1] = ALPHABET[(32 - sum % 32) % 32];
+        return new String(text);
+    }
+
+    public static boolean isValid(String trackingNumber) {
+        if (trackingNumber == null || trackingNumber.length() != LENGTH || !trackingNumber.startsWith(PREFIX)) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i <= DIGITS; i++) {
+            int digit = digitOf(trackingNumber.charAt(PREFIX.length() + i));
+            if (digit < 0) {
+                return false;
+            }
+            // The check digit sits in the rightmost position, which is never doubled
+            sum += i == DIGITS ? digit : luhnTerm(digit, DIGITS - 1 - i);
+        }
+        return sum % 32 == 0;
+    }
+
+    // Luhn mod N: counting from the check digit, every second digit is doubled and its base-32 digits summed
+    private static int luhnTerm(int digit, int positionFromRight) {
+        if (positionFromRight % 2 != 0) {
+            return digit;
+        }
+        int doubled = digit * 2;
+        return doubled / 32 + doubled % 32;
+    }
+
+    private static int digitOf(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.courierdistributionsystem.interceptor;
+
+import com.example.courierdistributionsystem.registry.IdempotencyStore;
+import com.example.courierdistributionsystem.utils.JwtUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotencyFilterTest {
+	private static final String TAKE_PATH = "/api/packages/7/take";
+
+	private IdempotencyStore idempotencyStore;
+	private IdempotencyFilter filter;
+	private final AtomicInteger executions = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		JwtUtils jwtUtils = mock(JwtUtils.class);
+		when(jwtUtils.getUsernameFromToken("courier-token")).thenReturn("courier1");
+		ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+		idempotencyStore = new IdempotencyStore(null, objectMapper, new SimpleMeterRegistry(), 100, 3600, false, 30000);
+		filter = new IdempotencyFilter(idempotencyStore, jwtUtils, objectMapper, new SimpleMeterRegistry(),
+				List.of("/api/packages/*/take"));
+	}
+
+	@Test
+	void retryReplaysTheStoredResponse() throws Exception {
+		MockHttpServletResponse first = send(request("key-1", "{}"), respondWith(200, "{\"claimed\":true}"));
+		MockHttpServletResponse retry = send(request("key-1", "{}"), respondWith(200, "{\"claimed\":false}"));
+
+		assertEquals(1, executions.get());
+		assertEquals(200, first.getStatus());
+		assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(200, retry.getStatus());
+		assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals("{\"claimed\":true}", retry.getContentAsString());
+		assertEquals("application/json", retry.getContentType());
+	}
+
+	// The retry arrives while the first attempt is still inside the controller
+	@Test
+	void retryWhileInFlightIsTurnedAway() throws Exception {
+		MockHttpServletResponse[] retry = new MockHttpServletResponse[1];
+		FilterChain slowChain = (servletRequest, servletResponse) -> {
+			executions.incrementAndGet();
+			retry[0] = send(request("key-2", "{}"), respondWith(200, "{}"));
+			servletResponse.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+		};
+
+		MockHttpServletResponse first = send(request("key-2", "{}"), slowChain);
+
+		assertEquals(1, executions.get());
+		assertEquals(200, first.getStatus());
+		assertEquals(409, retry[0].getStatus());
+		assertEquals("1", retry[0].getHeader("Retry-After"));
+	}
+
+	@Test
+	void reusingKeyForDifferentRequestIsRejected() throws Exception {
+		send(request("key-3", "{\"note\":\"a\"}"), respondWith(200, "{}"));
+		MockHttpServletResponse other = send(request("key-3", "{\"note\":\"b\"}"), respondWith(200, "{}"));
+
+		assertEquals(1, executions.get());
+		assertEquals(422, other.getStatus());
+	}
+
+	// A server error says nothing about the outcome, so the key is freed and the retry runs again
+	@Test
+	void serverErrorIsNotReplayed() throws Exception {
+		MockHttpServletResponse failed = send(request("key-4", "{}"), respondWith(503, "{\"error\":\"busy\"}"));
+		MockHttpServletResponse retry = send(request("key-4", "{}"), respondWith(200, "{\"claimed\":true}"));
+		MockHttpServletResponse replay = send(request("key-4", "{}"), respondWith(200, "{}"));
+
+		assertEquals(503, failed.getStatus());
+		assertEquals(2, executions.get());
+		assertEquals(200, retry.getStatus());
+		assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals("{\"claimed\":true}", replay.getContentAsString());
+		assertEquals("true", replay.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+	}
+
+	@Test
+	void exceptionFreesTheKey() throws Exception {
+		FilterChain failingChain = (servletRequest, servletResponse) -> {
+			executions.incrementAndGet();
+			throw new IllegalStateException("boom");
+		};
+		assertThrows(IllegalStateException.class, () -> send(request("key-5", "{}"), failingChain));
+		MockHttpServletResponse retry = send(request("key-5", "{}"), respondWith(200, "{}"));
+
+		assertEquals(2, executions.get());
+		assertEquals(200, retry.getStatus());
+		assertEquals(1, idempotencyStore.size());
+	}
+
+	@Test
+	void keysAreScopedToTheCaller() throws Exception {
+		send(request("key-6", "{}"), respondWith(200, "{}"));
+		MockHttpServletRequest anonymous = request("key-6", "{}");
+		anonymous.removeHeader("Authorization");
+		MockHttpServletResponse response = send(anonymous, respondWith(401, "{}"));
+
+		assertEquals(2, executions.get());
+		assertEquals(401, response.getStatus());
+	}
+
+	private static MockHttpServletRequest request(String key, String body) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", TAKE_PATH);
+		request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+		request.addHeader("Authorization", "Bearer courier-token");
+		request.setContentType("application/json");
+		request.setContent(body.getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+
+	private FilterChain respondWith(int status, String body) {
+		return (servletRequest, servletResponse) -> {
+			executions.incrementAndGet();
+			HttpServletResponse response = (HttpServletResponse) servletResponse;
+			response.setStatus(status);
+			response.setContentType("application/json");
+			response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	private MockHttpServletResponse send(MockHttpServletRequest request, FilterChain chain) throws ServletException, IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+}
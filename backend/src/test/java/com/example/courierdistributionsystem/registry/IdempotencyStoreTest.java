@@ -0,0 +1,51 @@
+package com.example.courierdistributionsystem.registry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdempotencyStoreTest {
+
+	// Completed responses crowding the map out must not free a key whose first request is still running
+	@Test
+	void evictionSkipsKeysInFlight() {
+		IdempotencyStore store = store(2, 3600);
+		assertEquals(IdempotencyStore.Outcome.STARTED, store.begin("running", "f").getOutcome());
+		for (int i = 0; i < 5; i++) {
+			String key = "done-" + i;
+			store.begin(key, "f");
+			store.complete(key, response("f"));
+		}
+
+		assertEquals(IdempotencyStore.Outcome.IN_FLIGHT, store.begin("running", "f").getOutcome());
+		assertEquals(IdempotencyStore.Outcome.STARTED, store.begin("done-0", "f").getOutcome());
+		assertEquals(IdempotencyStore.Outcome.REPLAY, store.begin("done-4", "f").getOutcome());
+		assertEquals(IdempotencyStore.Outcome.MISMATCH, store.begin("done-4", "other").getOutcome());
+	}
+
+	@Test
+	void purgeDropsExpiredKeys() throws InterruptedException {
+		IdempotencyStore store = store(10, 0);
+		store.begin("running", "f");
+		store.begin("done", "f");
+		store.complete("done", response("f"));
+		Thread.sleep(5);
+
+		store.purgeExpired();
+
+		assertEquals(0, store.size());
+		assertEquals(IdempotencyStore.Outcome.STARTED, store.begin("done", "f").getOutcome());
+	}
+
+	private static IdempotencyStore store(int capacity, long ttlSeconds) {
+		return new IdempotencyStore(null, new ObjectMapper(), new SimpleMeterRegistry(), capacity, ttlSeconds, false, 30000);
+	}
+
+	private static IdempotencyStore.StoredResponse response(String fingerprint) {
+		return new IdempotencyStore.StoredResponse(fingerprint, 200, "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,209 @@
+package com.example.courierdistributionsystem.service;
+
+import com.example.courierdistributionsystem.exception.PackageClaimException;
+import com.example.courierdistributionsystem.model.Courier;
+import com.example.courierdistributionsystem.model.Customer;
+import com.example.courierdistributionsystem.model.DeliveryPackage;
+import com.example.courierdistributionsystem.model.User;
+import com.example.courierdistributionsystem.repository.jpa.CourierRepository;
+import com.example.courierdistributionsystem.repository.jpa.CustomerRepository;
+import com.example.courierdistributionsystem.repository.jpa.DeliveryPackageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Hundreds of couriers go for the same packages at once; exactly one may win each package
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:claim-contention;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+		"app.dispatch.enabled=false"
+})
+class PackageClaimContentionTest {
+	private static final int CLAIMERS = 200;
+
+	@Autowired
+	private IDeliveryPackageService deliveryPackageService;
+	@Autowired
+	private ICourierService courierService;
+	@Autowired
+	private IPackageEventService packageEventService;
+	@Autowired
+	private CourierRepository courierRepository;
+	@Autowired
+	private CustomerRepository customerRepository;
+	@Autowired
+	private DeliveryPackageRepository deliveryPackageRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final List<Courier> couriers = new ArrayList<>();
+	private Customer customer;
+
+	@BeforeEach
+	void setUp() {
+		String run = Long.toString(System.nanoTime());
+		customer = customerRepository.save(Customer.builder()
+				.username("customer-" + run)
+				.email("customer-" + run + "@example.com")
+				.password("secret")
+				.role(User.UserRole.CUSTOMER)
+				.build());
+		couriers.clear();
+		for (int i = 0; i < CLAIMERS; i++) {
+			couriers.add(courierRepository.save(Courier.builder()
+					.username("courier-" + run + "-" + i)
+					.email("courier-" + run + "-" + i + "@example.com")
+					.password("secret")
+					.role(User.UserRole.COURIER)
+					.phoneNumber("555-" + i)
+					.vehicleType("VAN")
+					.build()));
+		}
+	}
+
+	@Test
+	void takeHasExactlyOneWinner() throws Exception {
+		DeliveryPackage deliveryPackage = createPackage();
+		double conflictsBefore = claimCount("take", "conflict");
+
+		Queue<Integer> winners = new ConcurrentLinkedQueue<>();
+		Queue<Throwable> failures = race(i -> {
+			deliveryPackageService.takeDeliveryPackage(deliveryPackage.getPackage_id(), couriers.get(i).getUsername());
+			winners.add(i);
+		});
+
+		assertEquals(1, winners.size());
+		assertEquals(CLAIMERS - 1, failures.size());
+		assertTrue(failures.stream().allMatch(PackageClaimException.class::isInstance));
+		assertWonBy(deliveryPackage, couriers.get(winners.peek()));
+		assertEquals(1, pickupEvents(deliveryPackage));
+		packageEventService.project();
+		assertEquals(1, historyRows(deliveryPackage));
+		assertEquals(CLAIMERS - 1, claimCount("take", "conflict") - conflictsBefore);
+	}
+
+	@Test
+	void takeAndAssignTogetherHaveExactlyOneWinner() throws Exception {
+		DeliveryPackage deliveryPackage = createPackage();
+
+		Queue<Integer> winners = new ConcurrentLinkedQueue<>();
+		Queue<Throwable> failures = race(i -> {
+			String username = couriers.get(i).getUsername();
+			if (i % 2 == 0) {
+				deliveryPackageService.takeDeliveryPackage(deliveryPackage.getPackage_id(), username);
+			} else {
+				courierService.assignDeliveryToCourier(deliveryPackage.getPackage_id(), username);
+			}
+			winners.add(i);
+		});
+
+		assertEquals(1, winners.size());
+		assertTrue(failures.stream().allMatch(PackageClaimException.class::isInstance));
+		assertWonBy(deliveryPackage, couriers.get(winners.peek()));
+	}
+
+	@Test
+	void overlappingBundlesAreClaimedWholeOrNotAtAll() throws Exception {
+		DeliveryPackage first = createPackage();
+		DeliveryPackage shared = createPackage();
+		DeliveryPackage last = createPackage();
+
+		Queue<Integer> winners = new ConcurrentLinkedQueue<>();
+		Queue<Throwable> failures = race(i -> {
+			List<Long> bundle = i % 2 == 0
+					? List.of(first.getPackage_id(), shared.getPackage_id())
+					: List.of(shared.getPackage_id(), last.getPackage_id());
+			deliveryPackageService.claimDeliveryPackages(bundle, couriers.get(i).getUsername());
+			winners.add(i);
+		});
+
+		assertEquals(1, winners.size());
+		assertTrue(failures.stream().allMatch(PackageClaimException.class::isInstance));
+		Courier winner = couriers.get(winners.peek());
+		assertWonBy(shared, winner);
+		DeliveryPackage won = winners.peek() % 2 == 0 ? first : last;
+		DeliveryPackage lost = winners.peek() % 2 == 0 ? last : first;
+		assertWonBy(won, winner);
+		DeliveryPackage untouched = deliveryPackageRepository.findById(lost.getPackage_id()).orElseThrow();
+		assertEquals(DeliveryPackage.DeliveryStatus.PENDING, untouched.getStatus());
+		assertNull(untouched.getCourier());
+	}
+
+	// Every claimer is released at the same moment; returns what the losers threw
+	private Queue<Throwable> race(IntConsumer claim) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(CLAIMERS);
+		CountDownLatch ready = new CountDownLatch(CLAIMERS);
+		CountDownLatch start = new CountDownLatch(1);
+		Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+		try {
+			for (int i = 0; i < CLAIMERS; i++) {
+				int claimer = i;
+				executor.submit(() -> {
+					ready.countDown();
+					try {
+						start.await();
+						claim.accept(claimer);
+					} catch (Throwable e) {
+						failures.add(e);
+					}
+				});
+			}
+			ready.await();
+			start.countDown();
+		} finally {
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+		}
+		return failures;
+	}
+
+	private DeliveryPackage createPackage() {
+		return deliveryPackageRepository.save(DeliveryPackage.builder()
+				.customer(customer)
+				.pickupAddress("Pickup")
+				.deliveryAddress("Delivery")
+				.weight(1.0)
+				.description("Contended package")
+				.createdAt(LocalDateTime.now())
+				.build());
+	}
+
+	private void assertWonBy(DeliveryPackage deliveryPackage, Courier courier) {
+		DeliveryPackage stored = deliveryPackageRepository.findById(deliveryPackage.getPackage_id()).orElseThrow();
+		assertEquals(DeliveryPackage.DeliveryStatus.IN_PROGRESS, stored.getStatus());
+		assertEquals(courier.getId(), stored.getCourier().getId());
+	}
+
+	private int pickupEvents(DeliveryPackage deliveryPackage) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM package_events WHERE package_id = ? AND type = 'PICKED_UP'",
+				Integer.class, deliveryPackage.getPackage_id());
+	}
+
+	private int historyRows(DeliveryPackage deliveryPackage) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM delivery_histories WHERE package_id = ?",
+				Integer.class, deliveryPackage.getPackage_id());
+	}
+
+	private double claimCount(String path, String outcome) {
+		return meterRegistry.get("package.claims").tag("path", path).tag("outcome", outcome).counter().count();
+	}
+}
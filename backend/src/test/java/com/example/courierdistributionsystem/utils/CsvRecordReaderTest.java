@@ -0,0 +1,55 @@
+package com.example.courierdistributionsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRecordReaderTest {
+
+	@Test
+	void readsQuotedFieldsAcrossLineBreaks() throws IOException {
+		CsvRecordReader reader = new CsvRecordReader(
+				new StringReader("a,\"b, c\",\"say \"\"hi\"\"\nthere\"\r\n,x,\r\nlast"), 1000);
+
+		assertEquals(List.of("a", "b, c", "say \"hi\"\nthere"), reader.next());
+		assertEquals(List.of("", "x", ""), reader.next());
+		assertEquals(List.of("last"), reader.next());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void blankLinesAreSingleEmptyRecords() throws IOException {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("a\n\r\nb\n"), 1000);
+
+		assertEquals(List.of("a"), reader.next());
+		assertEquals(List.of(""), reader.next());
+		assertEquals(List.of("b"), reader.next());
+		assertNull(reader.next());
+	}
+
+	// A bad record is skipped whole, including line breaks inside its quotes, and reading carries on after it
+	@Test
+	void oversizedRecordIsSkipped() throws IOException {
+		CsvRecordReader reader = new CsvRecordReader(
+				new StringReader("ok\n0123456789,\"quoted\nstill quoted\",x\nnext\n"), 8);
+
+		assertEquals(List.of("ok"), reader.next());
+		assertThrows(CsvRecordReader.MalformedRecordException.class, reader::next);
+		assertEquals(List.of("next"), reader.next());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void unterminatedQuoteIsRejected() throws IOException {
+		CsvRecordReader reader = new CsvRecordReader(new StringReader("a,\"open\nrest"), 1000);
+
+		assertThrows(CsvRecordReader.MalformedRecordException.class, reader::next);
+		assertNull(reader.next());
+	}
+}
@@ -0,0 +1,158 @@
+package com.example.courierdistributionsystem.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrackCodecTest {
+	private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 8, 30);
+	private static final String[] ZONES = {"KADIKOY", "BESIKTAS", "SISLI", "USKUDAR"};
+
+	@Test
+	void randomizedTracksRoundTrip() {
+		Random random = new Random(42);
+		for (int track = 0; track < 200; track++) {
+			int length = 1 + random.nextInt(500);
+			List<TrackCodec.Point> points = new ArrayList<>(length);
+			LocalDateTime timestamp = START.plusNanos(random.nextInt(1_000_000) * 1000L);
+			double latitude = 40.8 + random.nextDouble() * 0.4;
+			double longitude = 28.8 + random.nextDouble() * 0.6;
+			String zone = ZONES[random.nextInt(ZONES.length)];
+			for (int i = 0; i < length; i++) {
+				// Mostly a steady cadence with jitter, occasionally a long gap or a zone change
+				long gapMicros = random.nextInt(20) == 0
+						? random.nextInt(3_600_000) * 1000L
+						: 1_000_000L * (1 + random.nextInt(30)) + random.nextInt(2000) - 1000;
+				timestamp = timestamp.plusNanos(gapMicros * 1000);
+				latitude += (random.nextDouble() - 0.5) * 1e-3;
+				longitude += (random.nextDouble() - 0.5) * 1e-3;
+				if (random.nextInt(50) == 0) {
+					zone = random.nextInt(5) == 0 ? null : ZONES[random.nextInt(ZONES.length)];
+				}
+				points.add(new TrackCodec.Point(timestamp, latitude, longitude, zone));
+			}
+			assertRoundTrip(points);
+		}
+	}
+
+	@Test
+	void equalAndDecreasingTimestampsRoundTrip() {
+		List<TrackCodec.Point> points = List.of(
+				point(START, 41.0, 29.0),
+				point(START, 41.0, 29.0),
+				point(START, 41.0001, 29.0001),
+				point(START.minusSeconds(5), 41.0002, 29.0002),
+				point(START.minusSeconds(5).minusNanos(1000), 41.0003, 29.0003),
+				point(START.plusSeconds(10), 41.0004, 29.0004),
+				point(START.minusSeconds(10), 41.0005, 29.0005));
+
+		assertRoundTrip(points);
+	}
+
+	@Test
+	void negativeAndExtremeValuesRoundTrip() {
+		List<TrackCodec.Point> points = List.of(
+				point(START, -33.8688, -151.2093),
+				point(START.plusSeconds(1), -90.0, -180.0),
+				point(START.plusSeconds(2), 90.0, 180.0),
+				point(START.plusSeconds(3), -0.0, 0.0),
+				point(START.plusSeconds(4), Double.MIN_VALUE, -Double.MAX_VALUE),
+				point(START.plusSeconds(5), Double.NaN, Double.POSITIVE_INFINITY),
+				point(LocalDateTime.of(1, 1, 1, 0, 0), 12.5, -12.5),
+				point(LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_000), 12.5, -12.5),
+				point(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 1000), 1.0, 1.0));
+
+		assertRoundTrip(points);
+	}
+
+	@Test
+	void singlePointAndEmptyTracksRoundTrip() {
+		assertRoundTrip(List.of(new TrackCodec.Point(START.plusNanos(123_456_000), 41.0082, 28.9784, "FATIH")));
+		assertRoundTrip(List.of(new TrackCodec.Point(START, 41.0082, 28.9784, null)));
+		assertRoundTrip(List.of());
+	}
+
+	// Each zone name is stored once however often the track switches between zones
+	@Test
+	void zonesAreDictionaryCoded() {
+		String longZone = "A_ZONE_WITH_A_RATHER_LONG_NAME_" + "X".repeat(100);
+		List<TrackCodec.Point> points = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			String zone = switch (i % 4) {
+				case 0 -> longZone;
+				case 1 -> "SHORT";
+				case 2 -> null;
+				default -> longZone;
+			};
+			points.add(new TrackCodec.Point(START.plusSeconds(i), 41.0, 29.0, zone));
+		}
+
+		byte[] encoded = TrackCodec.encode(points);
+
+		assertRoundTrip(points);
+		// Spelling the long name out at every switch would take over 60 KB
+		assertTrue(encoded.length < 2 * longZone.length() + 2 * points.size(), "encoded " + encoded.length + " bytes");
+		assertNull(TrackCodec.decode(encoded).get(2).getZone());
+	}
+
+	// A steady one-second GPS track must come out well under the width of its raw timestamp and coordinates alone
+	@Test
+	void steadyTrackCompressesBelowRawColumns() {
+		Random random = new Random(7);
+		List<TrackCodec.Point> points = new ArrayList<>();
+		double latitude = 41.0;
+		double longitude = 29.0;
+		for (int i = 0; i < 3600; i++) {
+			latitude += 2e-5 + (random.nextDouble() - 0.5) * 1e-5;
+			longitude += 1e-5 + (random.nextDouble() - 0.5) * 1e-5;
+			points.add(new TrackCodec.Point(START.plusSeconds(i), latitude, longitude, "KADIKOY"));
+		}
+
+		byte[] encoded = TrackCodec.encode(points);
+
+		assertTrue(encoded.length < points.size() * 16, "encoded " + encoded.length + " bytes");
+		assertRoundTrip(points);
+	}
+
+	@Test
+	void rejectsUnknownVersionAndTruncatedData() {
+		byte[] encoded = TrackCodec.encode(List.of(point(START, 41.0, 29.0), point(START.plusSeconds(1), 41.1, 29.1)));
+
+		byte[] wrongVersion = encoded.clone();
+		wrongVersion[0] = (byte) (TrackCodec.VERSION + 1);
+		assertThrows(IllegalArgumentException.class, () -> TrackCodec.decode(wrongVersion));
+
+		byte[] truncated = new byte[encoded.length / 2];
+		System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+		assertThrows(IllegalArgumentException.class, () -> TrackCodec.decode(truncated));
+	}
+
+	private static TrackCodec.Point point(LocalDateTime timestamp, double latitude, double longitude) {
+		return new TrackCodec.Point(timestamp, latitude, longitude, "ZONE");
+	}
+
+	private static void assertRoundTrip(List<TrackCodec.Point> points) {
+		List<TrackCodec.Point> decoded = TrackCodec.decode(TrackCodec.encode(points));
+
+		assertEquals(points.size(), decoded.size());
+		for (int i = 0; i < points.size(); i++) {
+			TrackCodec.Point expected = points.get(i);
+			TrackCodec.Point actual = decoded.get(i);
+			assertEquals(expected.getTimestamp(), actual.getTimestamp(), "timestamp of point " + i);
+			// Bit-for-bit, so -0.0 and NaN payloads survive too
+			assertEquals(Double.doubleToRawLongBits(expected.getLatitude()), Double.doubleToRawLongBits(actual.getLatitude()),
+					"latitude of point " + i);
+			assertEquals(Double.doubleToRawLongBits(expected.getLongitude()), Double.doubleToRawLongBits(actual.getLongitude()),
+					"longitude of point " + i);
+			assertEquals(expected.getZone(), actual.getZone(), "zone of point " + i);
+		}
+	}
+}
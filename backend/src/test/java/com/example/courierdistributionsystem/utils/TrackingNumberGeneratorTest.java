@@ -0,0 +1,161 @@
+package com.example.courierdistributionsystem.utils;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrackingNumberGeneratorTest {
+	private static final int NODES = 4;
+	private static final int THREADS_PER_NODE = 8;
+	private static final int NUMBERS_PER_THREAD = 50_000;
+
+	// Several backend instances, each with many request threads, issue numbers at the same time
+	@Test
+	void numbersAreUniqueAcrossNodesAndThreads() throws Exception {
+		Set<String> seen = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(NODES * THREADS_PER_NODE);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> results = new ArrayList<>();
+		try {
+			for (int node = 0; node < NODES; node++) {
+				TrackingNumberGenerator generator = new TrackingNumberGenerator(node);
+				for (int thread = 0; thread < THREADS_PER_NODE; thread++) {
+					results.add(executor.submit(() -> {
+						start.await();
+						for (int i = 0; i < NUMBERS_PER_THREAD; i++) {
+							String trackingNumber = generator.next();
+							assertTrue(TrackingNumberGenerator.isValid(trackingNumber), trackingNumber);
+							assertTrue(seen.add(trackingNumber), "Duplicate " + trackingNumber);
+						}
+						return null;
+					}));
+				}
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(2, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(NODES * THREADS_PER_NODE * NUMBERS_PER_THREAD, seen.size());
+	}
+
+	// A frozen or backwards clock and more than 4096 numbers per millisecond must not repeat or go backwards
+	@Test
+	void idsKeepIncreasingWhenTheClockStallsOrStepsBack() {
+		AtomicLong clock = new AtomicLong(1_800_000_000_000L);
+		TrackingNumberGenerator generator = new TrackingNumberGenerator(7, clock::get);
+		long previous = generator.nextId();
+		for (int i = 0; i < 20_000; i++) {
+			if (i == 10_000) {
+				clock.addAndGet(-5_000);
+			}
+			long id = generator.nextId();
+			assertTrue(id > previous);
+			previous = id;
+		}
+	}
+
+	@Test
+	void checkDigitCatchesTyposAndTranspositions() {
+		TrackingNumberGenerator generator = new TrackingNumberGenerator(1);
+		for (int n = 0; n < 1_000; n++) {
+			String trackingNumber = generator.next();
+			char[] text = trackingNumber.toCharArray();
+			for (int i = 4; i < text.length; i++) {
+				char original = text[i];
+				text[i] = original == 'X' ? 'Y' : 'X';
+				assertFalse(TrackingNumberGenerator.isValid(new String(text)), new String(text));
+				text[i] = original;
+			}
+			for (int i = 4; i < text.length - 1; i++) {
+				// Like decimal Luhn with 09 and 90, Luhn mod 32 cannot tell 0Z from Z0
+				if (text[i] == text[i + 1] || isZeroZ(text[i], text[i + 1])) {
+					continue;
+				}
+				swap(text, i);
+				assertFalse(TrackingNumberGenerator.isValid(new String(text)), new String(text));
+				swap(text, i);
+			}
+		}
+		assertFalse(TrackingNumberGenerator.isValid("CDS-123"));
+		assertFalse(TrackingNumberGenerator.isValid(null));
+	}
+
+	@Test
+	void nodeIdMustFitItsBits() {
+		assertThrows(IllegalArgumentException.class, () -> new TrackingNumberGenerator(-1));
+		assertThrows(IllegalArgumentException.class, () -> new TrackingNumberGenerator(TrackingNumberGenerator.MAX_NODE_ID + 1));
+	}
+
+	// Rough throughput check reporting numbers per second for one thread and for contended threads; excluded from
+	// the default build by its tag
+	@Test
+	@Tag("benchmark")
+	void benchmark(TestReporter reporter) throws Exception {
+		TrackingNumberGenerator generator = new TrackingNumberGenerator(3);
+		int warmup = 200_000;
+		for (int i = 0; i < warmup; i++) {
+			generator.next();
+		}
+
+		int count = 2_000_000;
+		long started = System.nanoTime();
+		long checksum = 0;
+		for (int i = 0; i < count; i++) {
+			checksum += generator.next().charAt(17);
+		}
+		double singleThreaded = count / ((System.nanoTime() - started) / 1e9);
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> results = new ArrayList<>();
+		started = System.nanoTime();
+		try {
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(() -> {
+					for (int i = 0; i < count / threads; i++) {
+						generator.next();
+					}
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get(2, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		double contended = count / ((System.nanoTime() - started) / 1e9);
+
+		reporter.publishEntry("throughput", String.format("%.0f/s on 1 thread, %.0f/s on %d threads (checksum %d)",
+				singleThreaded, contended, threads, checksum));
+		assertTrue(singleThreaded > 0 && contended > 0);
+	}
+
+	private static boolean isZeroZ(char a, char b) {
+		return a == '0' && b == 'Z' || a == 'Z' && b == '0';
+	}
+
+	private static void swap(char[] text, int i) {
+		char c = text[i];
+		text[i] = text[i + 1];
+		text[i + 1] = c;
+	}
+}